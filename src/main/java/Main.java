@@ -4,6 +4,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import steganography.metrics.MetricsRegistry;
 
 /**
  * The main class.
@@ -27,6 +28,8 @@ public class Main extends Application {
     }
 
     public static void main(String[] args) {
+        // export the metrics over JMX (see MetricsRegistry)
+        MetricsRegistry.registerMBean();
         launch(args);
     }
 }
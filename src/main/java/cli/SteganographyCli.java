@@ -0,0 +1,477 @@
+package cli;
+
+import exceptions.SteganographyException;
+import server.SteganographyServer;
+import steganography.SteganographyUtils;
+import steganography.analysis.AnalysisReport;
+import steganography.analysis.SteganalysisUtils;
+import steganography.batch.BatchPipeline;
+import steganography.batch.BatchResult;
+import steganography.engine.EngineParameters;
+import steganography.metrics.MetricsRegistry;
+import steganography.recovery.ParameterRecovery;
+import steganography.scan.CarrierScanner;
+import utils.JsonUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The command line interface, used to process many images without the GUI.
+ *
+ * Usage: SteganographyCli <command> [options] <arguments>
+ *
+ * Commands:
+ * - batch <carrier directory> <file> <output directory>: encodes the file in every image of the
+ *   carrier directory, writing the encoded images in the output directory (as PNG images, except for
+ *   the JPEG images, which are encoded in their coefficients and stay JPEG images).
+ * - scan <carrier directory>: checks which images of the carrier directory (and its subdirectories)
+ *   contain an encoded file, for every candidate, printing a JSON line for every image. The candidates
+ *   are read from the file given with --candidates (one candidate on every line, as
+ *   "bits method [caesar shift | vigenere key]"); without it, the options give the only candidate.
+ * - recover <image>: finds the parameters with which a file was encoded in the image, trying every
+ *   combination of the given ranges (--bits-range, either --stride-range or --seed-range with
+ *   --random-bounds, and --caesar-range / --vigenere-keys), and prints the combinations that match.
+ * - analyze <directory>: runs the steganalysis (chi-square attack, RS analysis and LSB histograms) on
+ *   every image of the directory (and its subdirectories), printing a JSON line for every image
+ *   and a last JSON line with the aggregate results.
+ * - serve: starts the HTTP server (see SteganographyServer) on --port, with --threads workers and at
+ *   most --queue waiting requests, and handles requests until the process is stopped.
+ *
+ * Options (for all the commands):
+ * - --bits <n>: the number of least significant bits used in every byte (1 by default);
+ * - --method <method>: the steganography method, either "n" (every n bytes),
+ *   "random,seed,lowerBound,upperBound", "fibonacci" (spread over the whole image, see FibonacciUtils),
+ *   "permutation,key" (all the bytes, in a keyed order, see PermutationUtils) or "hamming,k" (matrix
+ *   embedding, see MatrixEmbeddingUtils) ("1" by default);
+ * - --caesar <shift> or --vigenere <key>: the encryption method (no encryption by default);
+ * - --threads <n>: the number of threads used for every CPU-heavy stage (one for each core by default);
+ * - --io-threads <n>: the number of threads used for reading / writing files.
+ */
+public class SteganographyCli {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: SteganographyCli <command> [options] <arguments>",
+            "Commands:",
+            "  batch <carrier directory> <file> <output directory>",
+            "  scan <carrier directory> [--candidates <file>]",
+            "  recover <image> [--bits-range a-b] [--stride-range a-b | --seed-range a-b --random-bounds l,u]",
+            "                  [--caesar-range a-b] [--vigenere-keys <file>]",
+            "  analyze <directory>",
+            "  serve [--port <n>] [--queue <n>]",
+            "Options:",
+            "  --bits <n>            the number of least significant bits used (1 to 8)",
+            "  --method <method>     'n' (every n bytes), 'random,seed,lowerBound,upperBound',",
+            "                        'fibonacci', 'permutation,key' (a keyed order of all the bytes)",
+            "                        or 'hamming,k' (matrix embedding, k from 2 to 8)",
+            "  --caesar <shift>      encrypt with the Caesar cipher",
+            "  --vigenere <key>      encrypt with the Vigenere cipher",
+            "  --threads <n>         the number of threads used for every CPU-heavy stage",
+            "  --io-threads <n>      the number of threads used for reading / writing files",
+            "  --candidates <file>   the candidates to scan for, one on every line:",
+            "                        'bits method [caesar shift | vigenere key]'",
+            "  --bits-range a-b      the bits used to try (1-8 by default)",
+            "  --stride-range a-b    the strides to try (1-64 by default)",
+            "  --seed-range a-b      the random seeds to try, with the bounds given by --random-bounds",
+            "  --caesar-range a-b    the Caesar shifts to try (none by default)",
+            "  --vigenere-keys <file> the Vigenere keys to try, one on every line (none by default)",
+            "  --port <n>            the port of the HTTP server (8080 by default)",
+            "  --queue <n>           the number of requests that can wait for a worker of the HTTP server");
+
+    /**
+     * The options and the positional arguments of a command.
+     */
+    private static class CommandLine {
+        private final Map<String, String> options = new HashMap<>();
+        private final List<String> arguments = new ArrayList<>();
+
+        private CommandLine(List<String> args) {
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (arg.startsWith("--")) {
+                    if (i + 1 >= args.size()) {
+                        throw new IllegalArgumentException("Missing value for option " + arg + ".");
+                    }
+                    options.put(arg.substring(2), args.get(++i));
+                } else {
+                    arguments.add(arg);
+                }
+            }
+        }
+
+        private String getOption(String name, String defaultValue) {
+            return options.getOrDefault(name, defaultValue);
+        }
+
+        private int getIntOption(String name, int defaultValue) {
+            String value = options.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The value of option --" + name + " should be a number.");
+            }
+        }
+
+        /**
+         * Returns the bounds of a range option given as "a-b" (or "a", for a single value).
+         */
+        private long[] getRangeOption(String name, long defaultFrom, long defaultTo) {
+            String value = options.get(name);
+            if (value == null) {
+                return new long[]{defaultFrom, defaultTo};
+            }
+            try {
+                int separator = value.indexOf('-', 1);
+                if (separator < 0) {
+                    long bound = Long.parseLong(value);
+                    return new long[]{bound, bound};
+                }
+                return new long[]{Long.parseLong(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1))};
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The value of option --" + name + " should be a range 'a-b'.");
+            }
+        }
+
+        /**
+         * Returns the encryption method string, in the same format as the one built by the GUI.
+         */
+        private String getEncryptionMethodString() {
+            if (options.containsKey("caesar")) {
+                getIntOption("caesar", 0);
+                return "  caesar" + options.get("caesar");
+            } else if (options.containsKey("vigenere")) {
+                return "vigenere" + options.get("vigenere");
+            }
+            return "";
+        }
+
+        private void requireArguments(int count) {
+            if (arguments.size() != count) {
+                throw new IllegalArgumentException("Expected " + count + " arguments, but got "
+                        + arguments.size() + ".");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        // export the metrics over JMX (see MetricsRegistry)
+        MetricsRegistry.registerMBean();
+
+        int exitCode;
+        try {
+            CommandLine commandLine = new CommandLine(Arrays.asList(args).subList(1, args.length));
+            switch (args[0]) {
+                case "batch":
+                    exitCode = runBatch(commandLine);
+                    break;
+                case "scan":
+                    exitCode = runScan(commandLine);
+                    break;
+                case "recover":
+                    exitCode = runRecover(commandLine);
+                    break;
+                case "analyze":
+                    exitCode = runAnalyze(commandLine);
+                    break;
+                case "serve":
+                    exitCode = runServe(commandLine);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command '" + args[0] + "'.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            exitCode = 2;
+        } catch (SteganographyException e) {
+            System.err.println(e.getTitle() + " " + e.getMessage());
+            exitCode = 1;
+        } catch (IOException e) {
+            System.err.println(e.toString());
+            exitCode = 1;
+        } catch (InterruptedException e) {
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Runs the 'batch' command. Prints a line for every carrier, and returns 1 if any carrier failed.
+     */
+    private static int runBatch(CommandLine commandLine) {
+        commandLine.requireArguments(3);
+        File carrierDirectory = new File(commandLine.arguments.get(0));
+        File selectedFile = new File(commandLine.arguments.get(1));
+        File outputDirectory = new File(commandLine.arguments.get(2));
+
+        // find the carriers (every file of the carrier directory, in the order of their names)
+        File[] carrierFiles = carrierDirectory.listFiles(File::isFile);
+        if (carrierFiles == null) {
+            throw new IllegalArgumentException("'" + carrierDirectory + "' is not a directory.");
+        }
+        Arrays.sort(carrierFiles);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IllegalArgumentException("'" + outputDirectory + "' can not be created.");
+        }
+
+        // encode the file in all the carriers
+        int cpuThreadCount = commandLine.getIntOption("threads", Runtime.getRuntime().availableProcessors());
+        BatchPipeline pipeline = new BatchPipeline(commandLine.getIntOption("bits", 1),
+                commandLine.getOption("method", "1"), commandLine.getEncryptionMethodString(),
+                cpuThreadCount, commandLine.getIntOption("io-threads", 2), 2 * cpuThreadCount);
+        long startTime = System.nanoTime();
+        List<BatchResult> results = pipeline.encodeFileInImages(Arrays.asList(carrierFiles),
+                selectedFile, outputDirectory);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        // print the results
+        int failedCount = 0;
+        for (BatchResult result : results) {
+            if (result.isSuccessful()) {
+                System.out.println(result.getCarrierFile() + " -> " + result.getOutputFile());
+            } else {
+                System.out.println(result.getCarrierFile() + " FAILED: " + result.getErrorMessage());
+                failedCount++;
+            }
+        }
+        System.out.println(results.size() + " carriers, " + failedCount + " failed, " + elapsedMillis + " ms");
+        return failedCount == 0 ? 0 : 1;
+    }
+
+    /**
+     * Runs the 'scan' command. Prints a JSON line for every carrier (as soon as it is scanned),
+     * and returns 0 if any carrier matched a candidate, or 1 otherwise.
+     */
+    private static int runScan(CommandLine commandLine) throws IOException, InterruptedException {
+        commandLine.requireArguments(1);
+        Path carrierDirectory = Paths.get(commandLine.arguments.get(0));
+        if (!Files.isDirectory(carrierDirectory)) {
+            throw new IllegalArgumentException("'" + carrierDirectory + "' is not a directory.");
+        }
+
+        // find the carriers (every file of the carrier directory and its subdirectories)
+        List<File> carrierFiles = findFiles(carrierDirectory);
+
+        // scan them, printing the results as they come
+        CarrierScanner scanner = new CarrierScanner(readCandidates(commandLine),
+                commandLine.getIntOption("io-threads", 2 * Runtime.getRuntime().availableProcessors()),
+                commandLine.getIntOption("threads", Runtime.getRuntime().availableProcessors()));
+        PrintStream output = System.out;
+        int matchedCount = scanner.scan(carrierFiles, result -> output.println(result.toJsonLine()));
+        output.flush();
+        return matchedCount > 0 ? 0 : 1;
+    }
+
+    /**
+     * Reads the candidates from the file given with --candidates, one on every line, as
+     * "bits method [caesar shift | vigenere key]" (the empty lines and the lines starting with '#'
+     * are skipped). Without a candidates file, the only candidate is given by the options.
+     */
+    private static List<EngineParameters> readCandidates(CommandLine commandLine) throws IOException {
+        List<EngineParameters> candidates = new ArrayList<>();
+        String candidatesFile = commandLine.getOption("candidates", null);
+        if (candidatesFile == null) {
+            candidates.add(new EngineParameters(commandLine.getIntOption("bits", 1),
+                    commandLine.getOption("method", "1"), commandLine.getEncryptionMethodString()));
+            return candidates;
+        }
+
+        for (String line : Files.readAllLines(Paths.get(candidatesFile))) {
+            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                continue;
+            }
+            String[] split = line.trim().split("\\s+", 4);
+            if (split.length != 2 && split.length != 4) {
+                throw new IllegalArgumentException("Invalid candidate '" + line + "'.");
+            }
+            String encryptionMethodString = "";
+            if (split.length == 4) {
+                if (split[2].equals("caesar")) {
+                    encryptionMethodString = "  caesar" + split[3];
+                } else if (split[2].equals("vigenere")) {
+                    encryptionMethodString = "vigenere" + split[3];
+                } else {
+                    throw new IllegalArgumentException("Unknown encryption method '" + split[2] + "'.");
+                }
+            }
+            try {
+                candidates.add(new EngineParameters(Integer.parseInt(split[0]), split[1], encryptionMethodString));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid candidate '" + line + "'.");
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Runs the 'recover' command. Prints the matching combinations (as candidate lines, which can be
+     * used with 'scan'), and returns 0 if any combination matched, or 1 otherwise.
+     */
+    private static int runRecover(CommandLine commandLine) throws IOException, InterruptedException {
+        commandLine.requireArguments(1);
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(
+                SteganographyUtils.loadImage(new File(commandLine.arguments.get(0))));
+
+        // the encryption methods to try: no encryption, the Caesar shifts and the Vigenere keys
+        List<String> encryptionMethodStrings = new ArrayList<>();
+        encryptionMethodStrings.add("");
+        if (commandLine.options.containsKey("caesar-range")) {
+            long[] shiftRange = commandLine.getRangeOption("caesar-range", 0, 0);
+            for (long shift = shiftRange[0]; shift <= shiftRange[1]; shift++) {
+                encryptionMethodStrings.add("  caesar" + shift);
+            }
+        }
+        String vigenereKeysFile = commandLine.getOption("vigenere-keys", null);
+        if (vigenereKeysFile != null) {
+            for (String key : Files.readAllLines(Paths.get(vigenereKeysFile))) {
+                if (!key.isEmpty()) {
+                    encryptionMethodStrings.add("vigenere" + key);
+                }
+            }
+        }
+
+        long[] bitsRange = commandLine.getRangeOption("bits-range", 1, 8);
+        ParameterRecovery recovery = new ParameterRecovery((int) bitsRange[0], (int) bitsRange[1],
+                encryptionMethodStrings,
+                commandLine.getIntOption("threads", Runtime.getRuntime().availableProcessors()));
+
+        // try the strides, or the seeds of the random method
+        long startTime = System.nanoTime();
+        List<EngineParameters> matches;
+        if (commandLine.options.containsKey("seed-range")) {
+            long[] seedRange = commandLine.getRangeOption("seed-range", 0, 0);
+            String[] bounds = commandLine.getOption("random-bounds", "1,10").split(",");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("The value of option --random-bounds should be 'l,u'.");
+            }
+            try {
+                matches = recovery.recoverRandom(coverImage, seedRange[0], seedRange[1],
+                        Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The value of option --random-bounds should be 'l,u'.");
+            }
+        } else {
+            long[] strideRange = commandLine.getRangeOption("stride-range", 1, 64);
+            matches = recovery.recoverStride(coverImage, (int) strideRange[0], (int) strideRange[1]);
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        // print the matches in the format of the candidates file
+        for (EngineParameters match : matches) {
+            String encryptionMethodString = match.getEncryptionMethodString();
+            String encryption = encryptionMethodString.isEmpty() ? ""
+                    : " " + encryptionMethodString.substring(0, 8).trim() + " " + encryptionMethodString.substring(8);
+            System.out.println(match.getBitsUsed() + " " + match.getMethodString() + encryption);
+        }
+        System.err.println(recovery.getTestedCount() + " methods tried, " + matches.size() + " matched, "
+                + elapsedMillis + " ms");
+        return matches.isEmpty() ? 1 : 0;
+    }
+
+    /**
+     * Runs the 'analyze' command. Prints a JSON line for every image and a last line with the aggregate
+     * results, and returns 0 if no image is suspicious, or 1 otherwise. The tiles of every image are
+     * analysed in parallel, using --threads threads.
+     */
+    private static int runAnalyze(CommandLine commandLine) throws IOException, InterruptedException {
+        commandLine.requireArguments(1);
+        Path directory = Paths.get(commandLine.arguments.get(0));
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("'" + directory + "' is not a directory.");
+        }
+        List<File> imageFiles = findFiles(directory);
+
+        // the parallel streams started inside a fork-join pool use the threads of that pool
+        ForkJoinPool pool = new ForkJoinPool(commandLine.getIntOption("threads",
+                Runtime.getRuntime().availableProcessors()));
+        try {
+            return pool.submit(() -> {
+                int analyzedCount = 0;
+                int suspiciousCount = 0;
+                int failedCount = 0;
+                double chiSquareSum = 0;
+                double rsSum = 0;
+                for (File imageFile : imageFiles) {
+                    AnalysisReport report;
+                    try {
+                        report = SteganalysisUtils.analyzeImage(imageFile);
+                    } catch (SteganographyException e) {
+                        System.out.println("{\"file\":" + JsonUtils.quote(imageFile.getPath())
+                                + ",\"error\":" + JsonUtils.quote(e.getTitle() + " " + e.getMessage()) + "}");
+                        failedCount++;
+                        continue;
+                    }
+                    System.out.println(report.toJsonLine());
+                    analyzedCount++;
+                    suspiciousCount += report.isSuspicious() ? 1 : 0;
+                    chiSquareSum += report.getMaxChiSquareProbability();
+                    rsSum += report.getMaxRsEstimate();
+                }
+
+                // the aggregate results
+                System.out.println("{\"aggregate\":true,\"images\":" + analyzedCount
+                        + ",\"failed\":" + failedCount
+                        + ",\"suspicious\":" + suspiciousCount
+                        + ",\"meanChiSquare\":" + JsonUtils.number(chiSquareSum / analyzedCount)
+                        + ",\"meanRs\":" + JsonUtils.number(rsSum / analyzedCount) + "}");
+                return suspiciousCount == 0 ? 0 : 1;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the 'serve' command. The server is stopped (waiting a second for the requests being handled)
+     * when the process is stopped, so this method only returns if it is interrupted.
+     */
+    private static int runServe(CommandLine commandLine) throws IOException, InterruptedException {
+        commandLine.requireArguments(0);
+        int workerCount = commandLine.getIntOption("threads", Runtime.getRuntime().availableProcessors());
+        SteganographyServer server = new SteganographyServer(commandLine.getIntOption("port", 8080),
+                workerCount, commandLine.getIntOption("queue", 4 * workerCount));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        System.out.println("Listening on port " + server.getPort());
+
+        new CountDownLatch(1).await();
+        return 0;
+    }
+
+    /**
+     * Returns every file of the directory and its subdirectories, in the order of their paths.
+     */
+    private static List<File> findFiles(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).map(Path::toFile).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import javafx.fxml.FXML;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import steganography.SteganographyUtils;
+import steganography.simd.LsbKernels;
 import utils.GUIUtils;
 
 import javax.imageio.ImageIO;
@@ -28,18 +29,29 @@ public class ImageDifferenceController {
         // convert original image to buffered image
         BufferedImage originalBufferedImage = SteganographyUtils.loadImage(originalImageFile);
 
-        // convert the cover image to a byte array
-        byte[] coverByteImage = SteganographyUtils.getImageAsPixelByteArray(coverBufferedImage);
-
-        // create the image difference as a byte array
+        // create the image difference (it has the same layout as the cover image)
         BufferedImage differenceBufferedImage = SteganographyUtils.createCopyOfImage(originalBufferedImage);
-        byte[] differenceByteImage = SteganographyUtils.getImageAsPixelByteArray(differenceBufferedImage);
-        for (int i = 0; i < differenceByteImage.length; i++) {
-            // do the difference itself
-            differenceByteImage[i] = (byte) (Math.abs(differenceByteImage[i] - coverByteImage[i]));
-
-            // shift the bits to increase the difference magnitude, so it can be seen with the naked eye
-            differenceByteImage[i] = (byte) (differenceByteImage[i] << (8 - bitsUsed));
+        int sampleBitsUsed = SteganographyUtils.getSampleBitsUsed(coverBufferedImage, bitsUsed);
+        if (SteganographyUtils.isSixteenBitImage(coverBufferedImage)) {
+            // images with 16 bits per sample: the difference is done on shorts
+            short[] coverShortImage = SteganographyUtils.getImageAsPixelShortArray(coverBufferedImage);
+            short[] differenceShortImage = SteganographyUtils.getImageAsPixelShortArray(differenceBufferedImage);
+            LsbKernels.computeDifference(differenceShortImage, coverShortImage, differenceShortImage, sampleBitsUsed);
+        } else {
+            // convert the cover image to a byte array
+            byte[] coverByteImage = SteganographyUtils.getImageAsPixelByteArray(coverBufferedImage);
+            byte[] originalByteImage = SteganographyUtils.getImageAsPixelByteArray(differenceBufferedImage);
+
+            // for indexed images, the difference of the indices is displayed as a grayscale image
+            if (SteganographyUtils.isIndexedImage(differenceBufferedImage)) {
+                differenceBufferedImage = new BufferedImage(coverBufferedImage.getWidth(),
+                        coverBufferedImage.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            }
+            byte[] differenceByteImage = SteganographyUtils.getImageAsPixelByteArray(differenceBufferedImage);
+
+            // do the difference itself, and shift the bits to increase the difference magnitude,
+            // so it can be seen with the naked eye
+            LsbKernels.computeDifference(originalByteImage, coverByteImage, differenceByteImage, sampleBitsUsed);
         }
 
         // display the image in the imageDifferenceView
@@ -4,6 +4,7 @@ import com.jfoenix.controls.*;
 import exceptions.SteganographyException;
 import javafx.beans.value.ChangeListener;
 import javafx.event.ActionEvent;
+import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -13,13 +14,18 @@ import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.apache.commons.io.FilenameUtils;
+import steganography.ImageCache;
 import steganography.RawDecodedFile;
 import steganography.SteganographyUtils;
+import steganography.engine.Carrier;
+import steganography.engine.EncodedCarrier;
+import steganography.engine.EngineParameters;
+import steganography.engine.SteganographyEngine;
+import steganography.engine.SteganographyEngines;
 import utils.AlertUtils;
 import utils.GUIUtils;
 import utils.TextFieldLimitListener;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 
@@ -102,6 +108,11 @@ public class MainController {
     private String selectedImageName;
     private File selectedFile;
 
+    // the layout of the selected image samples: the number of samples of every pixel
+    // (3 or 4, with alpha) and whether the samples have 16 bits (so twice as many bits are used)
+    private int samplesPerPixel = 3;
+    private boolean sixteenBitSamples;
+
     public void initialize() {
         // Set the radio button colors
         LSBRadioButton.setSelectedColor(GUIUtils.PRIMARY_COLOR);
@@ -243,7 +254,8 @@ public class MainController {
             return true;
         }
 
-        long maxFileSize = GUIUtils.getMaxFileSize(image, bitsUsed,
+        int sampleBitsUsed = sixteenBitSamples ? Math.min(16, 2 * bitsUsed) : bitsUsed;
+        long maxFileSize = GUIUtils.getMaxFileSize(image, samplesPerPixel, sampleBitsUsed,
                 everyNPixelsRadioButton.isSelected(), GUIUtils.getNumericTextFieldValue(everyNPixelsTextField),
                 randomPatternRadioButton.isSelected(), GUIUtils.getNumericTextFieldValue(randomLowerBoundTextField),
                 GUIUtils.getNumericTextFieldValue(randomUpperBoundTextField));
@@ -257,7 +269,7 @@ public class MainController {
                     "The file was unloaded.");
             return false;
         } else {
-            maxBytesSize = GUIUtils.setMaxFileSize(image, maxFileSizeLabel, bitsUsed,
+            maxBytesSize = GUIUtils.setMaxFileSize(image, maxFileSizeLabel, samplesPerPixel, sampleBitsUsed,
                     everyNPixelsRadioButton.isSelected(), GUIUtils.getNumericTextFieldValue(everyNPixelsTextField),
                     randomPatternRadioButton.isSelected(), GUIUtils.getNumericTextFieldValue(randomLowerBoundTextField),
                     GUIUtils.getNumericTextFieldValue(randomUpperBoundTextField));
@@ -283,10 +295,16 @@ public class MainController {
                 String encryptionMethodString = GUIUtils.getEncryptionMethod(useEncryptionCheckbox,
                         caesarRadioButton, caesarTextField, vigenereRadioButton, vigenereTextArea);
 
-                BufferedImage coverImage = SteganographyUtils.encodeFileInImageLSB(selectedImage, selectedFile,
-                        (int) LSBBitsUsedSlider.getValue(), methodString, encryptionMethodString);
+                // JPEG images are encoded in their coefficients (and saved as JPEG images), the other
+                // images in their pixels
+                Carrier carrier = new Carrier(selectedImage);
+                SteganographyEngine engine = SteganographyEngines.findFastestEngine(carrier);
+                EngineParameters parameters = new EngineParameters((int) LSBBitsUsedSlider.getValue(),
+                        methodString, encryptionMethodString);
+                EncodedCarrier encodedCarrier = SteganographyEngines.encodeFile(engine, carrier, selectedFile,
+                        parameters);
 
-                GUIUtils.showSaveImageDialog(mainStage, selectedImageName, imageView.getImage(), coverImage,
+                GUIUtils.showSaveImageDialog(mainStage, selectedImageName, imageView.getImage(), encodedCarrier,
                         (int) LSBBitsUsedSlider.getValue(), selectedImage);
             } catch (SteganographyException exception) {
                 AlertUtils.showNotificationAlert(mainStage, exception.getTitle(), exception.getMessage());
@@ -308,8 +326,11 @@ public class MainController {
                 String encryptionMethodString = GUIUtils.getEncryptionMethod(useEncryptionCheckbox,
                         caesarRadioButton, caesarTextField, vigenereRadioButton, vigenereTextArea);
 
-                RawDecodedFile decodedFile = SteganographyUtils.decodeFileFromImageLSB(selectedImage,
-                        (int) LSBBitsUsedSlider.getValue(), methodString, encryptionMethodString);
+                Carrier carrier = new Carrier(selectedImage);
+                SteganographyEngine engine = SteganographyEngines.findFastestEngine(carrier);
+                EngineParameters parameters = new EngineParameters((int) LSBBitsUsedSlider.getValue(),
+                        methodString, encryptionMethodString);
+                RawDecodedFile decodedFile = SteganographyEngines.decodeFile(engine, carrier, parameters);
                 GUIUtils.showSaveFileDialog(mainStage, decodedFile);
 
                 AlertUtils.showNotificationAlert(mainStage,
@@ -384,8 +405,9 @@ public class MainController {
         }
 
         // check if it's an actual image
+        BufferedImage bufferedImage;
         try {
-            BufferedImage bufferedImage = ImageIO.read(imageFile);
+            bufferedImage = ImageCache.getImage(imageFile);
             if (bufferedImage.getWidth() == 0 && bufferedImage.getHeight() == 0) {
                 throw new Exception();
             }
@@ -396,10 +418,20 @@ public class MainController {
             return;
         }
 
+        // remember the layout of the image samples (as they will be encoded), keeping the
+        // previous one in case the image can't be loaded
+        int previousSamplesPerPixel = samplesPerPixel;
+        boolean previousSixteenBitSamples = sixteenBitSamples;
+        BufferedImage pixelCopy = SteganographyUtils.createCopyOfImage(bufferedImage.getSubimage(0, 0, 1, 1));
+        samplesPerPixel = SteganographyUtils.getSampleCount(pixelCopy);
+        sixteenBitSamples = SteganographyUtils.isSixteenBitImage(pixelCopy);
+
         // check if the file size is not too large
-        Image image = new Image(imageFile.toURI().toString());
+        Image image = SwingFXUtils.toFXImage(bufferedImage, null);
         boolean successful = updateMaxFileSize(image, (int) LSBBitsUsedSlider.getValue());
         if (!successful) {
+            samplesPerPixel = previousSamplesPerPixel;
+            sixteenBitSamples = previousSixteenBitSamples;
             return;
         }
 
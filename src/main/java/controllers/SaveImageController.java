@@ -11,13 +11,16 @@ import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import exceptions.SteganographyException;
+import steganography.engine.EncodedCarrier;
 import utils.AlertUtils;
 import utils.GUIUtils;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 
 @SuppressWarnings("DuplicatedCode")
 public class SaveImageController {
@@ -31,6 +34,7 @@ public class SaveImageController {
 
     private String originalImageFileName;
     private Image originalImage;
+    private EncodedCarrier encodedCarrier;
     private BufferedImage coverImage;
     private int bitsUsed;
     private File originalImageFile;
@@ -60,8 +64,9 @@ public class SaveImageController {
         GUIUtils.centerImage(originalImageView);
     }
 
-    public void setCoverImage(BufferedImage coverImage) {
-        this.coverImage = coverImage;
+    public void setEncodedCarrier(EncodedCarrier encodedCarrier) {
+        this.encodedCarrier = encodedCarrier;
+        this.coverImage = encodedCarrier.getImage();
         coverImageView.setImage(SwingFXUtils.toFXImage(coverImage, null));
         GUIUtils.centerImage(coverImageView);
     }
@@ -79,15 +84,20 @@ public class SaveImageController {
         try {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Save cover image as...");
+            // the cover image is saved in the format of the engine that encoded it (e.g. a JPEG image
+            // encoded in its coefficients is saved as it is, since decoding it would lose the payload)
+            String formatName = encodedCarrier.getFormatName();
             fileChooser.getExtensionFilters().addAll(
-                    new FileChooser.ExtensionFilter("PNG", "*.png"),
+                    new FileChooser.ExtensionFilter(formatName.toUpperCase(), "*." + formatName),
                     new FileChooser.ExtensionFilter("All Images", "*.*")
             );
-            fileChooser.setInitialFileName(originalImageFileName + ".png");
+            fileChooser.setInitialFileName(originalImageFileName + "." + formatName);
 
             File coverImageFile = fileChooser.showSaveDialog(currentStage);
             if (coverImageFile != null) {
-                ImageIO.write(coverImage, "png", coverImageFile);
+                try (OutputStream output = Files.newOutputStream(coverImageFile.toPath())) {
+                    encodedCarrier.writeTo(output);
+                }
                 AlertUtils.showNotificationAlert(mainStage,
                         "Saving successful!",
                         "The cover image was saved successfully.");
@@ -97,6 +107,8 @@ public class SaveImageController {
             AlertUtils.showNotificationAlert(currentStage,
                     "Saving error!",
                     "The cover image could not be saved.");
+        } catch (SteganographyException exception) {
+            AlertUtils.showNotificationAlert(currentStage, exception.getTitle(), exception.getMessage());
         }
     }
 
@@ -31,6 +31,56 @@ public class EncryptionUtils {
         }
     }
 
+    /**
+     * This method encrypts a byte array in place (the array itself is modified), so that
+     * no new array is allocated. The result is the same as the one of encryptBytes.
+     */
+    public static void encryptBytesInPlace(byte[] bytes, String methodString) {
+        if (methodString.contains("caesar")) {
+            int shiftCount = Integer.parseInt(methodString.substring(8));
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = rotateLeft(bytes[i], shiftCount);
+            }
+        } else if (methodString.contains("vigenere")) {
+            String key = methodString.substring(8);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = rotateLeft(bytes[i], ((int) key.charAt(i % key.length())) % 7 + 1);
+            }
+        }
+    }
+
+    /**
+     * This method decrypts a byte array in place (the array itself is modified), so that
+     * no new array is allocated. The result is the same as the one of decryptBytes.
+     */
+    public static void decryptBytesInPlace(byte[] bytes, String methodString) {
+        decryptBytesInPlace(bytes, methodString, 0);
+    }
+
+    /**
+     * This method decrypts, in place, bytes that were encrypted as a part of a larger byte array,
+     * starting at 'position' in that array (so that a part of an encrypted array can be decrypted
+     * without the rest of it; the Vigenere cypher depends on the position of every byte).
+     */
+    public static void decryptBytesInPlace(byte[] bytes, String methodString, long position) {
+        if (methodString.contains("caesar")) {
+            int shiftCount = Integer.parseInt(methodString.substring(8));
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = rotateRight(bytes[i], shiftCount);
+            }
+        } else if (methodString.contains("vigenere")) {
+            String key = methodString.substring(8);
+            int keyPosition = (int) (position % key.length());
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = rotateRight(bytes[i], ((int) key.charAt(keyPosition)) % 7 + 1);
+                keyPosition++;
+                if (keyPosition >= key.length()) {
+                    keyPosition = 0;
+                }
+            }
+        }
+    }
+
     /**
      * Given a byte, the method returns the byte rotated by 'shift' positions to the left.
      */
@@ -0,0 +1,354 @@
+package server;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import exceptions.SteganographyException;
+import steganography.engine.Carrier;
+import steganography.engine.EncodedCarrier;
+import steganography.engine.EngineParameters;
+import steganography.engine.SteganographyEngine;
+import steganography.engine.SteganographyEngines;
+import steganography.fibonacci.FibonacciUtils;
+import steganography.matrix.MatrixEmbeddingUtils;
+import steganography.permutation.PermutationUtils;
+import utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small HTTP server, so that other services can encode and decode files without the GUI.
+ * Every request is a POST, with the parameters in the query string (bits, method, and either
+ * caesar or vigenere, with the same meaning as the options of the command line interface):
+ * - /encode?name=file.txt&carrierLength=n: the body is the carrier image (n bytes), followed by
+ *   the file to encode; the response is the encoded image (a JPEG image for a JPEG carrier, encoded
+ *   in its coefficients, and a PNG image for the other images);
+ * - /decode: the body is the encoded image; the response is the decoded file, with its name
+ *   in the Content-Disposition header;
+ * - /probe: the body is an image; the response is {"encoded": true} if it contains an encoded file.
+ *
+ * Every carrier is handled by the engine picked for it (see SteganographyEngines.findFastestEngine).
+ * The file bodies are streamed: the file to encode is read from the request while it is encoded, and
+ * the decoded file is written to the response one chunk at a time (after all its chunks were verified,
+ * so that a corrupted file is still answered with an error). Only the carrier image is in memory.
+ *
+ * The requests are handled by a fixed number of workers, with a bounded queue of waiting requests;
+ * when the queue is full, the request is refused at once with 429 (Too Many Requests). Errors are
+ * returned as JSON objects, {"title": ..., "message": ...}: 400 for invalid parameters, 422 for a
+ * SteganographyException (with its title and message), 500 for anything else.
+ */
+public class SteganographyServer {
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+    private static final int STATUS_LENGTH_REQUIRED = 411;
+    private static final int STATUS_UNPROCESSABLE_ENTITY = 422;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_INTERNAL_ERROR = 500;
+
+    // the length of a chunked response, for sendResponseHeaders
+    private static final long CHUNKED = 0;
+
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * An invalid request (missing or invalid parameters), answered with 'status'.
+     */
+    private static class InvalidRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private InvalidRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * The handling of a request, done by a worker.
+     */
+    @FunctionalInterface
+    private interface RequestHandler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * Creates a server listening on 'port' (0 for any free port), with 'workerCount' workers
+     * and at most 'queueCapacity' requests waiting for a worker. The server is started by start.
+     */
+    public SteganographyServer(int port, int workerCount, int queueCapacity) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "server-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/encode", createHandler(this::handleEncode));
+        httpServer.createContext("/decode", createHandler(this::handleDecode));
+        httpServer.createContext("/probe", createHandler(this::handleProbe));
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops the server, waiting at most 'delaySeconds' for the requests being handled.
+     */
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+        workers.shutdownNow();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Creates the HTTP handler of a context: the request is handed to a worker (or refused with 429
+     * if all of them are busy and the queue is full), which handles it and maps its errors.
+     */
+    private HttpHandler createHandler(RequestHandler requestHandler) {
+        return exchange -> {
+            try {
+                workers.execute(() -> handleRequest(exchange, requestHandler));
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, STATUS_TOO_MANY_REQUESTS, "Server busy!",
+                        "Too many requests are being handled, please try again later.");
+            }
+        };
+    }
+
+    private void handleRequest(HttpExchange exchange, RequestHandler requestHandler) {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                throw new InvalidRequestException(STATUS_METHOD_NOT_ALLOWED, "Only POST requests are accepted.");
+            }
+            requestHandler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (InvalidRequestException e) {
+            sendError(exchange, e.status, "Invalid request!", e.getMessage());
+        } catch (SteganographyException e) {
+            sendError(exchange, STATUS_UNPROCESSABLE_ENTITY, e.getTitle(), e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            sendError(exchange, STATUS_INTERNAL_ERROR, "Server error!", e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles /encode: reads the carrier, encodes the rest of the body in it, and sends the encoded image.
+     */
+    private void handleEncode(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        int bitsUsed = getBitsUsed(parameters);
+        String methodString = getMethodString(parameters);
+        String encryptionMethodString = getEncryptionMethodString(parameters);
+        String fileName = parameters.get("name");
+        if (fileName == null || fileName.isEmpty()) {
+            throw new InvalidRequestException(STATUS_BAD_REQUEST, "The parameter 'name' is missing.");
+        }
+
+        // the file length is what remains of the body after the carrier
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength == null) {
+            throw new InvalidRequestException(STATUS_LENGTH_REQUIRED, "The Content-Length header is missing.");
+        }
+        long carrierLength = getLongParameter(parameters, "carrierLength");
+        long fileLength = Long.parseLong(contentLength) - carrierLength;
+        if (carrierLength <= 0 || fileLength < 0) {
+            throw new InvalidRequestException(STATUS_BAD_REQUEST, "The parameter 'carrierLength' is invalid.");
+        }
+
+        // read the carrier from the start of the body, and check that the file fits in it (the file
+        // name is encoded before the file, so it takes its length from the capacity)
+        InputStream body = exchange.getRequestBody();
+        Carrier carrier = new Carrier(ByteStreams.limit(body, carrierLength));
+        SteganographyEngine engine = SteganographyEngines.findFastestEngine(carrier);
+        EngineParameters engineParameters = new EngineParameters(bitsUsed, methodString, encryptionMethodString);
+        if (fileLength + fileName.getBytes().length > engine.getCapacity(carrier, engineParameters)) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+
+        // encode the file while it is read, then send the encoded image
+        EncodedCarrier encodedCarrier = engine.encode(carrier, fileName, body, fileLength, engineParameters);
+        exchange.getResponseHeaders().set("Content-Type", getContentType(encodedCarrier.getFormatName()));
+        exchange.sendResponseHeaders(STATUS_OK, CHUNKED);
+        encodedCarrier.writeTo(exchange.getResponseBody());
+    }
+
+    private static String getContentType(String formatName) {
+        return "image/" + (formatName.equals("jpg") ? "jpeg" : formatName);
+    }
+
+    /**
+     * Handles /decode: reads the carrier, and sends the decoded file as it is decoded.
+     */
+    private void handleDecode(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        int bitsUsed = getBitsUsed(parameters);
+        String methodString = getMethodString(parameters);
+        String encryptionMethodString = getEncryptionMethodString(parameters);
+
+        Carrier carrier = new Carrier(exchange.getRequestBody());
+        SteganographyEngine engine = SteganographyEngines.findFastestEngine(carrier);
+        EngineParameters engineParameters = new EngineParameters(bitsUsed, methodString, encryptionMethodString);
+
+        // the file is decoded twice: first only to verify all its chunks (without keeping them),
+        // so that a corrupted file is sent as an error, and then to stream it in the response
+        String fileName = engine.decode(carrier, ByteStreams.nullOutputStream(), engineParameters);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=" + JsonUtils.quote(fileName));
+        exchange.sendResponseHeaders(STATUS_OK, CHUNKED);
+        engine.decode(carrier, exchange.getResponseBody(), engineParameters);
+    }
+
+    /**
+     * Handles /probe: reads the carrier, and sends whether it contains an encoded file.
+     */
+    private void handleProbe(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        int bitsUsed = getBitsUsed(parameters);
+        String methodString = getMethodString(parameters);
+        String encryptionMethodString = getEncryptionMethodString(parameters);
+
+        Carrier carrier = new Carrier(exchange.getRequestBody());
+        boolean encoded = SteganographyEngines.findFastestEngine(carrier).probe(carrier,
+                new EngineParameters(bitsUsed, methodString, encryptionMethodString));
+        sendJson(exchange, STATUS_OK, "{\"encoded\": " + encoded + "}");
+    }
+
+    private static int getBitsUsed(Map<String, String> parameters) {
+        int bitsUsed = (int) getLongParameter(parameters, "bits", 1);
+        if (bitsUsed < 1 || bitsUsed > 8) {
+            throw new InvalidRequestException(STATUS_BAD_REQUEST, "The parameter 'bits' should be between 1 and 8.");
+        }
+        return bitsUsed;
+    }
+
+    /**
+     * Returns the steganography method, one of "n", "random,seed,lowerBound,upperBound", "fibonacci",
+     * "permutation,key" or "hamming,k".
+     */
+    private static String getMethodString(Map<String, String> parameters) {
+        String methodString = parameters.getOrDefault("method", "1");
+        String[] split = methodString.split(",");
+        try {
+            if (split.length == 4 && "random".equals(split[0])) {
+                Long.parseLong(split[1]);
+                if (Integer.parseInt(split[2]) < 1 || Integer.parseInt(split[3]) <= Integer.parseInt(split[2])) {
+                    throw new NumberFormatException();
+                }
+                return methodString;
+            }
+            if (FibonacciUtils.isFibonacciMethod(methodString)) {
+                return methodString;
+            }
+            if (split.length == 2 && PermutationUtils.METHOD_NAME.equals(split[0])) {
+                PermutationUtils.getKey(methodString);
+                return methodString;
+            }
+            if (split.length == 2 && MatrixEmbeddingUtils.METHOD_NAME.equals(split[0])) {
+                MatrixEmbeddingUtils.getBlockBits(methodString);
+                return methodString;
+            }
+            if (split.length == 1 && Integer.parseInt(methodString) >= 1) {
+                return methodString;
+            }
+        } catch (NumberFormatException | SteganographyException e) {
+            // handled below
+        }
+        throw new InvalidRequestException(STATUS_BAD_REQUEST,
+                "The parameter 'method' should be 'n', 'random,seed,lowerBound,upperBound', 'fibonacci', "
+                        + "'permutation,key' or 'hamming,k'.");
+    }
+
+    /**
+     * Returns the encryption method string, in the same format as the one built by the GUI.
+     */
+    private static String getEncryptionMethodString(Map<String, String> parameters) {
+        if (parameters.containsKey("caesar")) {
+            return "  caesar" + getLongParameter(parameters, "caesar");
+        } else if (parameters.containsKey("vigenere")) {
+            return "vigenere" + parameters.get("vigenere");
+        }
+        return "";
+    }
+
+    private static long getLongParameter(Map<String, String> parameters, String name) {
+        if (!parameters.containsKey(name)) {
+            throw new InvalidRequestException(STATUS_BAD_REQUEST, "The parameter '" + name + "' is missing.");
+        }
+        return getLongParameter(parameters, name, 0);
+    }
+
+    private static long getLongParameter(Map<String, String> parameters, String name, long defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException(STATUS_BAD_REQUEST, "The parameter '" + name + "' should be a number.");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Sends an error, unless the response was already started (the client is gone, most likely).
+     */
+    private static void sendError(HttpExchange exchange, int status, String title, String message) {
+        try {
+            if (exchange.getResponseCode() != -1) {
+                return;
+            }
+            sendJson(exchange, status, "{\"title\": " + JsonUtils.quote(title)
+                    + ", \"message\": " + JsonUtils.quote(message) + "}");
+        } catch (IOException e) {
+            // the client is gone, nothing else can be done
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, jsonBytes.length);
+        exchange.getResponseBody().write(jsonBytes);
+    }
+}
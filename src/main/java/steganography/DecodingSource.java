@@ -0,0 +1,13 @@
+package steganography;
+
+/**
+ * A place from which the bytes of an encoded file can be read, from a given offset
+ * (in bytes, from the start of the encoded data). For LSB steganography, the source
+ * is the pixel byte array of the cover image.
+ *
+ * Throws a SteganographyException if the bytes can not be decoded.
+ */
+@FunctionalInterface
+public interface DecodingSource {
+    byte[] decodeBytes(int offset, int length);
+}
@@ -0,0 +1,134 @@
+package steganography;
+
+import encryption.EncryptionUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only channel over the bytes of an encoded file, without decoding the whole file: every
+ * read decodes and decrypts only the requested bytes, found at the offsets (in the source) given by
+ * the structure described in SteganographyUtils (the position of the channel is a position in the
+ * file, which is translated to a chunk and an offset in that chunk). This is how, for example, the
+ * central directory at the end of an encoded zip file can be read, without decoding the rest of it.
+ *
+ * Since the chunks are not decoded entirely, their checksums are not verified (decodeFile has to be
+ * used for that). Channels over encoded files are obtained with SteganographyUtils.openEncodedFile.
+ */
+public class EncodedFileChannel implements SeekableByteChannel {
+    private final DecodingSource source;
+    private final String fileName;
+    private final long fileLength;
+    private final int dataOffset;
+    private final int chunkSize;
+    private final int chunkStride;
+    private final String encryptionMethodString;
+    private final Runnable closeAction;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * Creates a channel over a file of 'fileLength' bytes, whose data starts at 'dataOffset' in the
+     * source, split in chunks of 'chunkSize' bytes, each followed by 'checksumBytes' bytes (a legacy
+     * file, without checksums, is a single chunk). The 'closeAction' (optional) is run when the channel
+     * is closed. Other containers whose files are encrypted as single fields (e.g. the entries of an
+     * archive) can use a single chunk as well.
+     */
+    public EncodedFileChannel(DecodingSource source, String fileName, long fileLength, int dataOffset,
+                              int chunkSize, int checksumBytes, String encryptionMethodString, Runnable closeAction) {
+        this.source = source;
+        this.fileName = fileName;
+        this.fileLength = fileLength;
+        this.dataOffset = dataOffset;
+        this.chunkSize = chunkSize;
+        this.chunkStride = chunkSize + checksumBytes;
+        this.encryptionMethodString = encryptionMethodString;
+        this.closeAction = closeAction;
+    }
+
+    /**
+     * Returns the name of the encoded file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer destination) throws ClosedChannelException {
+        ensureOpen();
+        if (position >= fileLength) {
+            return -1;
+        }
+
+        // read the requested bytes one chunk at a time (every chunk is encrypted on its own)
+        long readLength = Math.min(destination.remaining(), fileLength - position);
+        for (long remainingBytes = readLength; remainingBytes > 0; ) {
+            long chunkIndex = position / chunkSize;
+            int positionInChunk = (int) (position % chunkSize);
+            int length = (int) Math.min(remainingBytes, chunkSize - positionInChunk);
+
+            byte[] bytes = source.decodeBytes((int) (dataOffset + chunkIndex * chunkStride + positionInChunk), length);
+            EncryptionUtils.decryptBytesInPlace(bytes, encryptionMethodString, positionInChunk);
+            destination.put(bytes);
+
+            position += length;
+            remainingBytes -= length;
+        }
+        return (int) readLength;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws ClosedChannelException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized EncodedFileChannel position(long newPosition) throws ClosedChannelException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("The position can not be negative.");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws ClosedChannelException {
+        ensureOpen();
+        return fileLength;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            if (closeAction != null) {
+                closeAction.run();
+            }
+        }
+    }
+
+    private synchronized void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
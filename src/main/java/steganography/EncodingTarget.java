@@ -0,0 +1,13 @@
+package steganography;
+
+/**
+ * A place in which the bytes of an encoded file can be written, at a given offset
+ * (in bytes, from the start of the encoded data). For LSB steganography, the target
+ * is the pixel byte array of the cover image.
+ *
+ * Throws a SteganographyException if the bytes do not fit in the target.
+ */
+@FunctionalInterface
+public interface EncodingTarget {
+    void encodeBytes(byte[] bytes, int offset);
+}
@@ -0,0 +1,156 @@
+package steganography;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class keeps the most recently decoded images in memory, so that an image used several
+ * times in a session (loaded in the GUI, encoded, decoded, compared etc.) is only decoded once.
+ *
+ * The images are identified by their path, their last modification time and their size, so a
+ * modified file is always decoded again. The least recently used images are removed as soon as
+ * the total size of the cached pixels exceeds the maximum number of bytes (a quarter of the
+ * maximum heap size, by default); images larger than the limit are not cached at all.
+ *
+ * The cached images are shared, so they must never be modified (all the steganography methods
+ * work on a copy of the image, see SteganographyUtils.createCopyOfImage).
+ */
+public class ImageCache {
+    private static final LinkedHashMap<CacheKey, BufferedImage> IMAGES = new LinkedHashMap<>(16, 0.75f, true);
+    private static long maximumBytes = Runtime.getRuntime().maxMemory() / 4;
+    private static long cachedBytes;
+    private static long hitCount;
+    private static long missCount;
+
+    /**
+     * The key of a cached image: the absolute path of the file, its last modification time and its size.
+     */
+    private static class CacheKey {
+        private final String path;
+        private final long lastModified;
+        private final long length;
+
+        private CacheKey(File file) {
+            this.path = file.getAbsolutePath();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey otherKey = (CacheKey) other;
+            return path.equals(otherKey.path) && lastModified == otherKey.lastModified
+                    && length == otherKey.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, length);
+        }
+    }
+
+    /**
+     * Returns the decoded image found in the file, decoding it only if it is not already cached.
+     * Returns null if the file is not an image (just like ImageIO.read).
+     */
+    public static BufferedImage getImage(File imageFile) throws IOException {
+        CacheKey key = new CacheKey(imageFile);
+        synchronized (ImageCache.class) {
+            BufferedImage image = IMAGES.get(key);
+            if (image != null) {
+                hitCount++;
+                return image;
+            }
+            missCount++;
+        }
+
+        // decode the image outside of the lock, so that other images can be obtained meanwhile
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image != null) {
+            putImage(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Returns the number of bytes used by the pixels of an image.
+     */
+    private static long getImageBytes(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+    }
+
+    private static synchronized void putImage(CacheKey key, BufferedImage image) {
+        long imageBytes = getImageBytes(image);
+        if (imageBytes > maximumBytes) {
+            return;
+        }
+
+        BufferedImage previousImage = IMAGES.put(key, image);
+        if (previousImage != null) {
+            cachedBytes -= getImageBytes(previousImage);
+        }
+        cachedBytes += imageBytes;
+        evictImages();
+    }
+
+    /**
+     * Removes the least recently used images, until the cached pixels fit in the maximum number of bytes.
+     */
+    private static void evictImages() {
+        Iterator<Map.Entry<CacheKey, BufferedImage>> iterator = IMAGES.entrySet().iterator();
+        while (cachedBytes > maximumBytes && iterator.hasNext()) {
+            cachedBytes -= getImageBytes(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Sets the maximum number of bytes used by the cached pixels (0 disables the cache).
+     */
+    public static synchronized void setMaximumBytes(long maximumBytes) {
+        ImageCache.maximumBytes = maximumBytes;
+        evictImages();
+    }
+
+    public static synchronized int getImageCount() {
+        return IMAGES.size();
+    }
+
+    public static synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Returns the number of images obtained from the cache, without decoding them.
+     */
+    public static synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of images that had to be decoded.
+     */
+    public static synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Removes all the cached images.
+     */
+    public static synchronized void clear() {
+        IMAGES.clear();
+        cachedBytes = 0;
+    }
+}
@@ -0,0 +1,65 @@
+package steganography;
+
+import java.util.Random;
+import java.util.function.LongToIntFunction;
+
+/**
+ * The sequence of the samples used by the method "random,seed,lowerBound,upperBound": the i-th used
+ * sample is the sum of the first i + 1 random jumps (each between lowerBound and upperBound - 1).
+ *
+ * A jump depends on all the previous ones, so the sequence remembers the last computed sample (its
+ * index and its position in the cover) and continues from it when a later sample is requested (the
+ * files are encoded and decoded in order: the chunks, the checksums, the reads of a channel). The
+ * random generator is only seeded again when an earlier sample is requested.
+ */
+class RandomSampleSequence implements LongToIntFunction {
+    private final String methodString;
+    private final int coverLength;
+    private final Random randomGenerator = new Random();
+    private int lowerBound;
+    private int upperBound;
+
+    // nothing is computed yet, so that an invalid method string fails when the sequence is first used
+    // (inside the encoding / decoding, like the other methods)
+    private long lastIndex = Long.MAX_VALUE;
+    private long lastPosition;
+
+    RandomSampleSequence(String methodString, int coverLength) {
+        this.methodString = methodString;
+        this.coverLength = coverLength;
+    }
+
+    /**
+     * Returns the position (in the cover) of the 'index'-th used sample. Throws an
+     * ArrayIndexOutOfBoundsException if it is outside of the cover.
+     */
+    @Override
+    public synchronized int applyAsInt(long index) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Sequence index " + index);
+        }
+        if (index < lastIndex) {
+            restart();
+        }
+        while (lastIndex < index) {
+            lastPosition += randomGenerator.nextInt(upperBound - lowerBound) + lowerBound;
+            lastIndex++;
+            if (lastPosition >= coverLength) {
+                throw new ArrayIndexOutOfBoundsException("Position " + lastPosition + " out of " + coverLength);
+            }
+        }
+        return (int) lastPosition;
+    }
+
+    /**
+     * Seeds the random generator again, and goes back before the first sample.
+     */
+    private void restart() {
+        String[] split = methodString.split(",");
+        randomGenerator.setSeed(Long.parseLong(split[1]));
+        lowerBound = Integer.parseInt(split[2]);
+        upperBound = Integer.parseInt(split[3]);
+        lastIndex = -1;
+        lastPosition = 0;
+    }
+}
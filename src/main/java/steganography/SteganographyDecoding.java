@@ -1,8 +1,9 @@
 package steganography;
 
 import exceptions.SteganographyException;
+import steganography.simd.LsbKernels;
 
-import java.util.Random;
+import java.util.function.LongToIntFunction;
 
 /**
  * This class contains the actual decoding steganography methods, which involve
@@ -18,6 +19,10 @@ public class SteganographyDecoding {
      * The method can be:
      * - "random" (in which case the bytes used in the coverImage are selected using a random function,
      * with the seed present in the application as a user input).
+     * - "fibonacci" (in which case the bytes used in the coverImage are spread over the whole image with
+     * the golden ratio, see FibonacciUtils);
+     * - "permutation,key" (in which case all the bytes of the coverImage are used, in the order given by
+     * a keyed permutation, see PermutationUtils);
      * - "i", where i is an int (in which case we take every 'i' byte and use it when decoding).
      */
     public static byte[] decodeBytesLSB(byte[] imageBytes,
@@ -25,26 +30,39 @@ public class SteganographyDecoding {
                                         int length,
                                         int bitsUsed,
                                         String method) {
+        return decodeBytesLSB(imageBytes, offset, length, bitsUsed, method, null);
+    }
+
+    /**
+     * Same as the method above, with the sequence of the used samples (see
+     * SteganographyUtils.createSampleSequence) created by the caller, so that it can be reused
+     * between calls (null to create it from the method).
+     */
+    public static byte[] decodeBytesLSB(byte[] imageBytes,
+                                        int offset,
+                                        int length,
+                                        int bitsUsed,
+                                        String method,
+                                        LongToIntFunction sequence) {
         try {
+            // every byte, with whole decoded bytes in a whole number of cover bytes: use the (vectorized) kernel
+            if (method.equals("1") && LsbKernels.supportsBitsUsed(bitsUsed)) {
+                return LsbKernels.decodeBytes(imageBytes, (offset * 8) / bitsUsed, length, bitsUsed);
+            }
+
             // obtain the byte and bit offset according to how many bits we encoded beforehand
             int byteOffset = (offset * 8) / bitsUsed;
             int bitOffset = (offset * 8) % bitsUsed;
 
             // calculate the offset according to the current encoding method
             int byteIncrement = 1;
-            Random randomGenerator = new Random();
-            int lowerBoundRandom = 0;
-            int upperBoundRandom = 0;
-            if (method.contains("random")) {
-                String[] split = method.split(",");
-                randomGenerator.setSeed(Long.parseLong(split[1]));
-                lowerBoundRandom = Integer.parseInt(split[2]);
-                upperBoundRandom = Integer.parseInt(split[3]);
-                int value = 0;
-                for (int i = 0; i <= byteOffset; i++) {
-                    value += randomGenerator.nextInt(upperBoundRandom - lowerBoundRandom) + lowerBoundRandom;
-                }
-                byteOffset = value;
+            if (sequence == null) {
+                sequence = SteganographyUtils.createSampleSequence(method, imageBytes.length);
+            }
+            long sequenceIndex = 0;
+            if (sequence != null) {
+                sequenceIndex = byteOffset;
+                byteOffset = sequence.applyAsInt(sequenceIndex);
             } else {
                 byteIncrement = Integer.parseInt(method);
                 byteOffset *= byteIncrement;
@@ -60,8 +78,8 @@ public class SteganographyDecoding {
                     // if we decoded all the bits from the current byte,
                     // we take the next byte from the coverImage according to the used method
                     if (bitOffset == bitsUsed) {
-                        if (method.contains("random")) {
-                            byteOffset += randomGenerator.nextInt(upperBoundRandom - lowerBoundRandom) + lowerBoundRandom;
+                        if (sequence != null) {
+                            byteOffset = sequence.applyAsInt(++sequenceIndex);
                         } else {
                             byteOffset += byteIncrement;
                         }
@@ -87,6 +105,85 @@ public class SteganographyDecoding {
         }
     }
 
+    /**
+     * Same as the method above, but the cover image has 16 bits for every sample (as in 16-bit
+     * PNG or TIFF images), so up to 16 least significant bits can be used.
+     */
+    public static byte[] decodeBytesLSB(short[] imageSamples,
+                                        int offset,
+                                        int length,
+                                        int bitsUsed,
+                                        String method) {
+        return decodeBytesLSB(imageSamples, offset, length, bitsUsed, method, null);
+    }
+
+    /**
+     * Same as the method above, with the sequence of the used samples (see
+     * SteganographyUtils.createSampleSequence) created by the caller, so that it can be reused
+     * between calls (null to create it from the method).
+     */
+    public static byte[] decodeBytesLSB(short[] imageSamples,
+                                        int offset,
+                                        int length,
+                                        int bitsUsed,
+                                        String method,
+                                        LongToIntFunction sequence) {
+        try {
+            // obtain the sample and bit offset according to how many bits we encoded beforehand
+            int sampleOffset = (offset * 8) / bitsUsed;
+            int bitOffset = (offset * 8) % bitsUsed;
+
+            // calculate the offset according to the current encoding method
+            int sampleIncrement = 1;
+            if (sequence == null) {
+                sequence = SteganographyUtils.createSampleSequence(method, imageSamples.length);
+            }
+            long sequenceIndex = 0;
+            if (sequence != null) {
+                sequenceIndex = sampleOffset;
+                sampleOffset = sequence.applyAsInt(sequenceIndex);
+            } else {
+                sampleIncrement = Integer.parseInt(method);
+                sampleOffset *= sampleIncrement;
+            }
+
+            // declare an array to store our decoded result
+            byte[] result = new byte[length];
+
+            // iterate over all the result bytes
+            for (int currentResultByte = 0; currentResultByte < length; currentResultByte++) {
+                // iterate over all the result bits of the current result byte
+                for (int currentResultBit = 0; currentResultBit < 8; currentResultBit++) {
+                    // if we decoded all the bits from the current sample,
+                    // we take the next sample from the coverImage according to the used method
+                    if (bitOffset == bitsUsed) {
+                        if (sequence != null) {
+                            sampleOffset = sequence.applyAsInt(++sequenceIndex);
+                        } else {
+                            sampleOffset += sampleIncrement;
+                        }
+                        bitOffset = 0;
+                    }
+
+                    // isolate the current bit from the coverImage
+                    byte currentCoverImageBit = (byte) (imageSamples[sampleOffset] >> (bitsUsed - bitOffset - 1) & 0x01);
+
+                    // store the isolated bit in the result
+                    result[currentResultByte] = (byte) (result[currentResultByte] << 1 | currentCoverImageBit);
+
+                    // move on to the next bit in the result
+                    bitOffset++;
+                }
+            }
+
+            return result;
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+    }
+
     /**
      * This method does LSB steganography decoding, using only 1 least significant bit.
      * It is not currently used in the application.
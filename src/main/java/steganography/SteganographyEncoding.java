@@ -1,8 +1,9 @@
 package steganography;
 
 import exceptions.SteganographyException;
+import steganography.simd.LsbKernels;
 
-import java.util.Random;
+import java.util.function.LongToIntFunction;
 
 /**
  * This class contains the actual encoding steganography methods, which involve
@@ -15,8 +16,10 @@ public class SteganographyEncoding {
     /**
      * This method does LSB steganography encoding, using 'bitsUsed' least significant bits.
      * The method can be:
-     * - "fibonacci" (in which case the bytes used in the coverImage are selected using the fibonacci function:
-     * byte 0, byte 1, byte 2, byte 3, byte 5, byte 8, byte 13 etc);
+     * - "fibonacci" (in which case the bytes used in the coverImage are spread over the whole image with
+     * the golden ratio, see FibonacciUtils);
+     * - "permutation,key" (in which case all the bytes of the coverImage are used, in the order given by
+     * a keyed permutation, see PermutationUtils);
      * - "i", where i is an int (in which case we take every 'i' byte and use it in encoding).
      */
     public static void encodeBytesLSB(byte[] coverImageBytes,
@@ -24,26 +27,40 @@ public class SteganographyEncoding {
                                       int offset,
                                       int bitsUsed,
                                       String method) {
+        encodeBytesLSB(coverImageBytes, addedBytes, offset, bitsUsed, method, null);
+    }
+
+    /**
+     * Same as the method above, with the sequence of the used samples (see
+     * SteganographyUtils.createSampleSequence) created by the caller, so that it can be reused
+     * between calls (null to create it from the method).
+     */
+    public static void encodeBytesLSB(byte[] coverImageBytes,
+                                      byte[] addedBytes,
+                                      int offset,
+                                      int bitsUsed,
+                                      String method,
+                                      LongToIntFunction sequence) {
         try {
+            // every byte, with whole added bytes in a whole number of cover bytes: use the (vectorized) kernel
+            if (method.equals("1") && LsbKernels.supportsBitsUsed(bitsUsed)) {
+                LsbKernels.encodeBytes(coverImageBytes, (offset * 8) / bitsUsed, addedBytes, bitsUsed);
+                return;
+            }
+
             // obtain the byte and bit offset according to how many bits we encoded beforehand
             int byteOffset = (offset * 8) / bitsUsed;
             int bitOffset = (offset * 8) % bitsUsed;
 
             // calculate the offset according to the current encoding method
             int byteIncrement = 1;
-            Random randomGenerator = new Random();
-            int lowerBoundRandom = 0;
-            int upperBoundRandom = 0;
-            if (method.contains("random")) {
-                String[] split = method.split(",");
-                randomGenerator.setSeed(Long.parseLong(split[1]));
-                lowerBoundRandom = Integer.parseInt(split[2]);
-                upperBoundRandom = Integer.parseInt(split[3]);
-                int value = 0;
-                for (int i = 0; i <= byteOffset; i++) {
-                    value += randomGenerator.nextInt(upperBoundRandom - lowerBoundRandom) + lowerBoundRandom;
-                }
-                byteOffset = value;
+            if (sequence == null) {
+                sequence = SteganographyUtils.createSampleSequence(method, coverImageBytes.length);
+            }
+            long sequenceIndex = 0;
+            if (sequence != null) {
+                sequenceIndex = byteOffset;
+                byteOffset = sequence.applyAsInt(sequenceIndex);
             } else {
                 byteIncrement = Integer.parseInt(method);
                 byteOffset *= byteIncrement;
@@ -62,19 +79,100 @@ public class SteganographyEncoding {
                     // if we encoded the max. number of bits in the current byte,
                     // we take the next byte from the coverImage according to the used method
                     if (bitOffset == bitsUsed) {
-                        if (method.contains("random")) {
-                            byteOffset += randomGenerator.nextInt(upperBoundRandom - lowerBoundRandom) + lowerBoundRandom;
+                        if (sequence != null) {
+                            byteOffset = sequence.applyAsInt(++sequenceIndex);
                         } else {
                             byteOffset += byteIncrement;
                         }
                         bitOffset = 0;
+                    }
+
+                    // we encode the bit in its own position among the 'bitsUsed' least significant bits
+                    // (the first bit in the most significant of them, as the decoding expects), by
+                    // clearing that position and applying OR with the new bit; this way, a byte that is
+                    // only partly filled at the end of the added bytes is decoded correctly
+                    int bitPosition = bitsUsed - bitOffset - 1;
+                    coverImageBytes[byteOffset] = (byte) ((coverImageBytes[byteOffset] & ~(1 << bitPosition))
+                            | (bitToAdd << bitPosition));
+
+                    // and move on to the next one
+                    bitOffset++;
+                }
+            }
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+    }
+
+    /**
+     * Same as the method above, but the cover image has 16 bits for every sample (as in 16-bit
+     * PNG or TIFF images), so up to 16 least significant bits can be used.
+     */
+    public static void encodeBytesLSB(short[] coverImageSamples,
+                                      byte[] addedBytes,
+                                      int offset,
+                                      int bitsUsed,
+                                      String method) {
+        encodeBytesLSB(coverImageSamples, addedBytes, offset, bitsUsed, method, null);
+    }
+
+    /**
+     * Same as the method above, with the sequence of the used samples (see
+     * SteganographyUtils.createSampleSequence) created by the caller, so that it can be reused
+     * between calls (null to create it from the method).
+     */
+    public static void encodeBytesLSB(short[] coverImageSamples,
+                                      byte[] addedBytes,
+                                      int offset,
+                                      int bitsUsed,
+                                      String method,
+                                      LongToIntFunction sequence) {
+        try {
+            // obtain the sample and bit offset according to how many bits we encoded beforehand
+            int sampleOffset = (offset * 8) / bitsUsed;
+            int bitOffset = (offset * 8) % bitsUsed;
+
+            // calculate the offset according to the current encoding method
+            int sampleIncrement = 1;
+            if (sequence == null) {
+                sequence = SteganographyUtils.createSampleSequence(method, coverImageSamples.length);
+            }
+            long sequenceIndex = 0;
+            if (sequence != null) {
+                sequenceIndex = sampleOffset;
+                sampleOffset = sequence.applyAsInt(sequenceIndex);
+            } else {
+                sampleIncrement = Integer.parseInt(method);
+                sampleOffset *= sampleIncrement;
+            }
+
+            // loop through all the bytes to be added
+            for (int i = 0; i < addedBytes.length; i++) {
+                // get the current 8 bits that we must add
+                int bitsToAdd = addedBytes[i];
 
-                        // we shift the current byte to the right by 'bitsUsed' times
-                        coverImageBytes[byteOffset] = (byte) (coverImageBytes[byteOffset] >>> bitsUsed);
+                // loop through the bits of the current byte, one at a time
+                for (int currentBit = 7; currentBit >= 0; currentBit--) {
+                    // get the bit that we must add (shift by 'currentBit' bits and then isolate it)
+                    int bitToAdd = (bitsToAdd >>> currentBit) & 0x01;
+
+                    // if we encoded the max. number of bits in the current sample,
+                    // we take the next sample from the coverImage according to the used method
+                    if (bitOffset == bitsUsed) {
+                        if (sequence != null) {
+                            sampleOffset = sequence.applyAsInt(++sequenceIndex);
+                        } else {
+                            sampleOffset += sampleIncrement;
+                        }
+                        bitOffset = 0;
                     }
 
-                    // we encode a bit by shifting to the left and applying OR with the new bit
-                    coverImageBytes[byteOffset] = (byte) (coverImageBytes[byteOffset] << 1 | bitToAdd);
+                    // we encode the bit in its own position among the 'bitsUsed' least significant bits
+                    int bitPosition = bitsUsed - bitOffset - 1;
+                    coverImageSamples[sampleOffset] = (short) ((coverImageSamples[sampleOffset] & ~(1 << bitPosition))
+                            | (bitToAdd << bitPosition));
 
                     // and move on to the next one
                     bitOffset++;
@@ -1,18 +1,47 @@
 package steganography;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
 import encryption.EncryptionUtils;
 import exceptions.SteganographyException;
 import org.apache.commons.io.FilenameUtils;
+import steganography.buffer.BufferPool;
+import steganography.fibonacci.FibonacciUtils;
+import steganography.matrix.MatrixEmbeddingUtils;
+import steganography.metrics.MetricsRegistry;
+import steganography.permutation.PermutationUtils;
+import steganography.profiling.Profiler;
+import utils.StreamUtils;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import java.awt.*;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.LongToIntFunction;
+import java.util.zip.CRC32;
 
 /**
  * This class contains methods that deal with Image Least Significant Bit (LSB)
@@ -20,44 +49,115 @@ import java.nio.file.Files;
  *
  * An encoded file will be found in the Least Significant Bits of an image, with
  * the following structure:
- * - first 40 bits (5 bytes): characters ISLSB (ImageSteganographyLeastSignificantBit,
- *                            a signature to know the image actually contains a file);
+ * - first 40 bits (5 bytes): characters ISLSC (ImageSteganographyLeastSignificantbit,
+ *                            Checksummed - a signature to know the image actually
+ *                            contains a file);
  * - next 32 bits (4 bytes): the length of the file name;
  * - next bytes: all the file name bytes (according to the length previously encoded);
  * - next 32 bits (4 bytes): the length of the file in bytes (an 'int';
  *                           max. length of a file is around 2 GB);
  * - next bytes: all the file bytes (we know how many because of the file length),
- *               encoded using the selected method (either using every byte, or
- *               every n byte, or a function etc.).
+ *               split in chunks of 64 KB (the last chunk can be smaller); every
+ *               chunk is followed by 32 bits (4 bytes) containing the CRC32 checksum
+ *               of the chunk, so that a corrupted file is detected as soon as the
+ *               first corrupted chunk is decoded.
+ *
+ * All the bytes are encoded using the selected method (either using every byte, or
+ * every n byte, or a function etc.).
+ *
+ * Images encoded before the checksums were added start with the characters ISLSB
+ * (ImageSteganographyLeastSignificantBit) instead, and contain the file bytes without
+ * any chunks or checksums. They can still be decoded.
  *
  * Note that if an image was encoded with a different steganography tool,
  * the decoder will not work (as the signature will not be present).
  *
- * All the encoded bytes (signature, file length & file bytes) are encrypted first using
- * the selected encryption method (if a different encryption method / key is used when
- * decoding, it will not work).
+ * All the encoded bytes (signature, file length, file bytes & checksums) are encrypted
+ * first using the selected encryption method (if a different encryption method / key
+ * is used when decoding, it will not work).
  */
 @SuppressWarnings("DuplicatedCode")
 public class SteganographyUtils {
     private static final String SIGNATURE = "ISLSB";
+    private static final String CHECKSUM_SIGNATURE = "ISLSC";
     private static final int LENGTH_BYTES = 4;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int PALETTE_SIZE = 256;
 
     /**
-     * Loads an image (as a BufferedImage) from a file.
+     * Loads an image (as a BufferedImage) from a file. The image is decoded only once, and then
+     * obtained from the ImageCache, so it must not be modified (a copy must be created instead).
      * Throws a SteganographyException if the selected file is not an actual image.
      */
     public static BufferedImage loadImage(File imageFile) {
         BufferedImage image;
+        Object event = Profiler.begin("loadImage");
         try {
-            image = ImageIO.read(imageFile);
+            image = ImageCache.getImage(imageFile);
             if (image.getWidth() == 0 && image.getHeight() == 0) {
                 throw new Exception();
             }
+            Profiler.setCarrier(image);
             return image;
         } catch (Exception exception) {
             throw new SteganographyException(
                     "The chosen image is invalid!",
                     "Please select an image.");
+        } finally {
+            Profiler.end(event);
+        }
+    }
+
+    /**
+     * Loads an image from a stream (e.g. an uploaded carrier), without the ImageCache. The stream is
+     * cached in memory while the image is decoded (never in a temporary file), and is not closed.
+     * Throws a SteganographyException if the stream doesn't contain an actual image.
+     */
+    public static BufferedImage loadImage(InputStream imageStream) {
+        return loadImage(new MemoryCacheImageInputStream(imageStream));
+    }
+
+    /**
+     * Loads an image from the remaining bytes of a buffer (heap or direct), without copying them
+     * and without changing the position of the buffer.
+     * Throws a SteganographyException if the buffer doesn't contain an actual image.
+     */
+    public static BufferedImage loadImage(ByteBuffer imageBuffer) {
+        return loadImage(StreamUtils.asInputStream(imageBuffer));
+    }
+
+    /**
+     * Loads an image from an image input stream, from its current position. Unlike ImageIO.read,
+     * the image input stream is not closed, so it can still be used afterwards.
+     * Throws a SteganographyException if the stream doesn't contain an actual image.
+     */
+    public static BufferedImage loadImage(ImageInputStream imageStream) {
+        Object event = Profiler.begin("loadImage");
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                throw new Exception();
+            }
+            ImageReader reader = readers.next();
+            BufferedImage image;
+            try {
+                reader.setInput(imageStream, true, true);
+                image = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+            if (image.getWidth() == 0 && image.getHeight() == 0) {
+                throw new Exception();
+            }
+            Profiler.setCarrier(image);
+            return image;
+        } catch (Exception exception) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        } finally {
+            Profiler.end(event);
         }
     }
 
@@ -65,16 +165,167 @@ public class SteganographyUtils {
      * We create a copy of the cover image. The copy is required so that we
      * don't have any issues accessing and modifying the original image itself
      * (and also because we will display the original and the copy side by side).
+     *
+     * The samples of the image are kept as they are, whenever possible:
+     * - images with 16 bits per sample (16-bit PNG or TIFF images) are copied as they are;
+     * - grayscale images with 8 bits per sample are copied as they are (1 sample per pixel,
+     *   or 2 if they also have an alpha channel);
+     * - indexed (palette) images are copied as images with 8-bit indices and a palette
+     *   sorted by luminance (see createIndexedCopyOfImage);
+     * - images with an alpha channel are copied as 4-byte ABGR images (so the alpha
+     *   channel is kept, and also used when encoding);
+     * - all the other images are copied as 3-byte BGR images.
      */
     public static BufferedImage createCopyOfImage(BufferedImage image) {
-        BufferedImage coverImage = new BufferedImage(image.getWidth(), image.getHeight(),
-                BufferedImage.TYPE_3BYTE_BGR);
+        Object event = Profiler.begin("copyImage");
+        try {
+            return createCopyOfImageSamples(image);
+        } finally {
+            Profiler.end(event);
+        }
+    }
+
+    /**
+     * Creates the copy of the image, as described above.
+     */
+    private static BufferedImage createCopyOfImageSamples(BufferedImage image) {
+        if (isSixteenBitImage(image) || isGrayImage(image)) {
+            ColorModel colorModel = image.getColorModel();
+            return new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(), null);
+        }
+        if (isIndexedImage(image)) {
+            return createIndexedCopyOfImage(image);
+        }
+
+        // the pixels of the copy are stored in a byte array taken from the pool (the whole array
+        // is overwritten when the image is drawn, so its previous content doesn't matter)
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        int imageType = hasAlpha ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR;
+        int bands = hasAlpha ? 4 : 3;
+        int[] bandOffsets = hasAlpha ? new int[]{3, 2, 1, 0} : new int[]{2, 1, 0};
+        byte[] pixelBytes = BufferPool.acquireBytes(image.getWidth() * image.getHeight() * bands);
+        WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(pixelBytes, pixelBytes.length),
+                image.getWidth(), image.getHeight(), image.getWidth() * bands, bands, bandOffsets, null);
+        ColorModel colorModel = new BufferedImage(1, 1, imageType).getColorModel();
+        BufferedImage coverImage = new BufferedImage(colorModel, raster, false, null);
         Graphics2D graphics = coverImage.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
         graphics.drawRenderedImage(image, null);
         graphics.dispose();
         return coverImage;
     }
 
+    /**
+     * Gives the pixel buffer of a copy created by createCopyOfImage back to the buffer pool,
+     * so that it can be reused by the next copy of the same size. This should only be called
+     * for copies that are no longer used (e.g. after decoding a file from them); the copies
+     * that are never released are simply collected by the garbage collector.
+     */
+    public static void releaseCopyOfImage(BufferedImage coverImage) {
+        if (coverImage.getType() == BufferedImage.TYPE_3BYTE_BGR
+                || coverImage.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+            BufferPool.releaseBytes(getImageAsPixelByteArray(coverImage));
+        }
+    }
+
+    /**
+     * Creates a copy of an indexed image, in which every pixel is an 8-bit index in a palette
+     * of 256 colors. The palette is sorted by luminance, so that changing the least significant
+     * bits of an index gives a color similar to the original one (in the original palette,
+     * neighbouring indices can have completely different colors). If the original palette has
+     * less than 256 colors, it is padded with copies of its last (brightest) color, so that
+     * every index obtained while encoding is valid.
+     *
+     * Sorting an already sorted palette doesn't change it, so an encoded image is copied
+     * with exactly the same indices (and can be decoded).
+     */
+    private static BufferedImage createIndexedCopyOfImage(BufferedImage image) {
+        IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+        int mapSize = colorModel.getMapSize();
+        int[] colors = new int[mapSize];
+        colorModel.getRGBs(colors);
+
+        // sort the palette by luminance (equal luminances keep their original order)
+        Integer[] sortedIndices = new Integer[mapSize];
+        for (int i = 0; i < mapSize; i++) {
+            sortedIndices[i] = i;
+        }
+        Arrays.sort(sortedIndices, Comparator.comparingInt((Integer index) -> getLuminance(colors[index])));
+
+        // build the sorted palette (padded to 256 colors), and the new index of every original index
+        int[] sortedColors = new int[PALETTE_SIZE];
+        int[] newIndices = new int[mapSize];
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            if (i < mapSize) {
+                sortedColors[i] = colors[sortedIndices[i]];
+                newIndices[sortedIndices[i]] = i;
+            } else {
+                sortedColors[i] = sortedColors[mapSize - 1];
+            }
+        }
+        IndexColorModel sortedColorModel = new IndexColorModel(8, PALETTE_SIZE, sortedColors, 0,
+                colorModel.hasAlpha(), -1, DataBuffer.TYPE_BYTE);
+
+        // copy the pixels, one row at a time, replacing every index with its new value
+        int width = image.getWidth();
+        BufferedImage coverImage = new BufferedImage(width, image.getHeight(),
+                BufferedImage.TYPE_BYTE_INDEXED, sortedColorModel);
+        byte[] coverImageBytes = getImageAsPixelByteArray(coverImage);
+        int[] rowIndices = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRaster().getSamples(0, y, width, 1, 0, rowIndices);
+            for (int x = 0; x < width; x++) {
+                coverImageBytes[y * width + x] = (byte) newIndices[rowIndices[x]];
+            }
+        }
+        return coverImage;
+    }
+
+    /**
+     * Returns the luminance of an RGB color (multiplied by 1000, so that only integers are used).
+     */
+    private static int getLuminance(int color) {
+        int red = (color >> 16) & 0xFF;
+        int green = (color >> 8) & 0xFF;
+        int blue = color & 0xFF;
+        return 299 * red + 587 * green + 114 * blue;
+    }
+
+    /**
+     * Returns true if the image is a grayscale image (with or without alpha), with 8 bits
+     * for every sample, all of them stored in a single array of bytes.
+     */
+    public static boolean isGrayImage(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        return image.getColorModel() instanceof ComponentColorModel
+                && image.getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY
+                && raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getDataBuffer().getNumBanks() == 1
+                && raster.getSampleModel() instanceof PixelInterleavedSampleModel
+                && raster.getSampleModel().getSampleSize(0) == 8;
+    }
+
+    /**
+     * Returns true if the image is an indexed (palette) image, with at most 256 colors.
+     */
+    public static boolean isIndexedImage(BufferedImage image) {
+        return image.getColorModel() instanceof IndexColorModel
+                && ((IndexColorModel) image.getColorModel()).getMapSize() <= PALETTE_SIZE
+                && image.getRaster().getNumBands() == 1;
+    }
+
+    /**
+     * Returns true if the image has 16 bits for every sample, all of them stored in a single
+     * array of shorts (and not packed together in a single short, as in the 565 RGB images).
+     */
+    public static boolean isSixteenBitImage(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        return raster.getDataBuffer() instanceof DataBufferUShort
+                && raster.getDataBuffer().getNumBanks() == 1
+                && raster.getSampleModel() instanceof ComponentSampleModel
+                && raster.getSampleModel().getSampleSize(0) == 16;
+    }
+
     /**
      * We convert an image to a byte array using a raster. This is done so that we
      * can access the pixel values themselves (and, therefore, encode data into them).
@@ -85,11 +336,240 @@ public class SteganographyUtils {
         return buffer.getData();
     }
 
+    /**
+     * Same as the method above, but for images with 16 bits for every sample.
+     */
+    public static short[] getImageAsPixelShortArray(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        DataBufferUShort buffer = (DataBufferUShort) raster.getDataBuffer();
+        return buffer.getData();
+    }
+
+    /**
+     * Returns the number of samples of an image copy (the length of its pixel byte / short array).
+     */
+    public static int getSampleCount(BufferedImage coverImage) {
+        return coverImage.getRaster().getDataBuffer().getSize();
+    }
+
+    /**
+     * Returns the number of least significant bits used in every sample of the image. For images
+     * with 8 bits per sample, 'bitsUsed' bits are used. For images with 16 bits per sample, twice as
+     * many bits are used (a modification of the 2 * 'bitsUsed' least significant bits of a 16-bit sample
+     * is still far less visible than a modification of the 'bitsUsed' least significant bits of an 8-bit one).
+     */
+    public static int getSampleBitsUsed(BufferedImage coverImage, int bitsUsed) {
+        if (isSixteenBitImage(coverImage)) {
+            return Math.min(16, 2 * bitsUsed);
+        }
+        return bitsUsed;
+    }
+
+    /**
+     * Creates the target in which files are encoded, for the pixels of a cover image (copy),
+     * with the provided 'bitsUsed' and steganography method.
+     */
+    public static EncodingTarget createEncodingTarget(BufferedImage coverImage, int bitsUsed, String methodString) {
+        if (!isSixteenBitImage(coverImage)) {
+            return createEncodingTarget(getImageAsPixelByteArray(coverImage), bitsUsed, methodString);
+        }
+        validateEncodingMethod(methodString);
+        short[] coverImageSamples = getImageAsPixelShortArray(coverImage);
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            int blockBits = MatrixEmbeddingUtils.getBlockBits(methodString);
+            return (bytes, offset) -> MatrixEmbeddingUtils.encodeBytes(coverImageSamples, bytes, offset, blockBits);
+        }
+        // the sequence of the used samples is created once, and shared by all the calls of the target
+        int sampleBitsUsed = getSampleBitsUsed(coverImage, bitsUsed);
+        LongToIntFunction sequence = createSampleSequence(methodString, coverImageSamples.length);
+        return (bytes, offset) -> SteganographyEncoding.encodeBytesLSB(coverImageSamples, bytes, offset,
+                sampleBitsUsed, methodString, sequence);
+    }
+
+    /**
+     * Creates the target in which files are encoded, for the bytes of a cover (the samples of an
+     * image, or the coefficient bits of a JPEG image), with the provided 'bitsUsed' and steganography method.
+     */
+    public static EncodingTarget createEncodingTarget(byte[] coverBytes, int bitsUsed, String methodString) {
+        validateEncodingMethod(methodString);
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            int blockBits = MatrixEmbeddingUtils.getBlockBits(methodString);
+            return (bytes, offset) -> MatrixEmbeddingUtils.encodeBytes(coverBytes, bytes, offset, blockBits);
+        }
+        // the sequence of the used samples is created once, and shared by all the calls of the target
+        LongToIntFunction sequence = createSampleSequence(methodString, coverBytes.length);
+        return (bytes, offset) -> SteganographyEncoding.encodeBytesLSB(coverBytes, bytes, offset,
+                bitsUsed, methodString, sequence);
+    }
+
+    /**
+     * Validates a steganography method before encoding with it. The random method must not have a
+     * lower bound below 1: a jump of 0 would use the same byte twice, overwriting the bits encoded
+     * in it (images encoded like this can still be decoded, if they weren't corrupted).
+     *
+     * This method throws a SteganographyException if the method can't be used for encoding.
+     */
+    public static void validateEncodingMethod(String methodString) {
+        if (methodString.contains("random")) {
+            String[] split = methodString.split(",");
+            int lowerBoundRandom;
+            try {
+                lowerBoundRandom = Integer.parseInt(split[2]);
+            } catch (RuntimeException e) {
+                lowerBoundRandom = 0;
+            }
+            if (lowerBoundRandom < 1) {
+                throw new SteganographyException(
+                        "Random bound error!",
+                        "The bounds must be >= 1.");
+            }
+        } else if (PermutationUtils.isPermutationMethod(methodString)) {
+            PermutationUtils.getKey(methodString);
+        }
+    }
+
+    /**
+     * Returns the sequence of the samples used by the methods which don't use the samples at a fixed
+     * stride ("random,seed,lowerBound,upperBound", "fibonacci" and "permutation,key"): the function
+     * gives the index (in the cover) of the i-th used sample. Returns null for the other methods.
+     *
+     * The random sequence remembers its last sample (see RandomSampleSequence), so it should be
+     * created once for a cover, and used for all the encoded / decoded bytes.
+     */
+    public static LongToIntFunction createSampleSequence(String methodString, int coverLength) {
+        if (methodString.contains("random")) {
+            return new RandomSampleSequence(methodString, coverLength);
+        }
+        if (FibonacciUtils.isFibonacciMethod(methodString)) {
+            int step = FibonacciUtils.getStep(coverLength);
+            return index -> FibonacciUtils.getCoverIndex(index, coverLength, step);
+        }
+        if (PermutationUtils.isPermutationMethod(methodString)) {
+            return PermutationUtils.createPermutation(methodString, coverLength)::getIndex;
+        }
+        return null;
+    }
+
+    /**
+     * Creates the source from which files are decoded, for the pixels of a cover image (copy),
+     * with the provided 'bitsUsed' and steganography method.
+     */
+    public static DecodingSource createDecodingSource(BufferedImage coverImage, int bitsUsed, String methodString) {
+        if (!isSixteenBitImage(coverImage)) {
+            return createDecodingSource(getImageAsPixelByteArray(coverImage), bitsUsed, methodString);
+        }
+        short[] coverImageSamples = getImageAsPixelShortArray(coverImage);
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            int blockBits = MatrixEmbeddingUtils.getBlockBits(methodString);
+            return (offset, length) -> MatrixEmbeddingUtils.decodeBytes(coverImageSamples, offset, length,
+                    blockBits);
+        }
+        // the sequence of the used samples is created once, and shared by all the calls of the source
+        int sampleBitsUsed = getSampleBitsUsed(coverImage, bitsUsed);
+        LongToIntFunction sequence = createSampleSequence(methodString, coverImageSamples.length);
+        return (offset, length) -> SteganographyDecoding.decodeBytesLSB(coverImageSamples, offset, length,
+                sampleBitsUsed, methodString, sequence);
+    }
+
+    /**
+     * Creates the source from which files are decoded, for the bytes of a cover (the samples of an
+     * image, or the coefficient bits of a JPEG image), with the provided 'bitsUsed' and steganography method.
+     */
+    public static DecodingSource createDecodingSource(byte[] coverBytes, int bitsUsed, String methodString) {
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            int blockBits = MatrixEmbeddingUtils.getBlockBits(methodString);
+            return (offset, length) -> MatrixEmbeddingUtils.decodeBytes(coverBytes, offset, length, blockBits);
+        }
+        // the sequence of the used samples is created once, and shared by all the calls of the source
+        LongToIntFunction sequence = createSampleSequence(methodString, coverBytes.length);
+        return (offset, length) -> SteganographyDecoding.decodeBytesLSB(coverBytes, offset, length,
+                bitsUsed, methodString, sequence);
+    }
+
+    /**
+     * Returns the number of bytes that can surely be encoded in a cover image (copy),
+     * with the provided 'bitsUsed' and steganography method.
+     */
+    public static int getEncodingCapacity(BufferedImage coverImage, int bitsUsed, String methodString) {
+        return getEncodingCapacity(getSampleCount(coverImage), getSampleBitsUsed(coverImage, bitsUsed),
+                methodString);
+    }
+
+    /**
+     * Returns the maximum number of bytes that could be encoded in a cover image (copy),
+     * with the provided 'bitsUsed' and steganography method.
+     */
+    public static int getMaximumEncodingCapacity(BufferedImage coverImage, int bitsUsed, String methodString) {
+        return getMaximumEncodingCapacity(getSampleCount(coverImage), getSampleBitsUsed(coverImage, bitsUsed),
+                methodString);
+    }
+
+    /**
+     * Returns the number of bytes that can surely be encoded in 'coverImageBytesLength'
+     * bytes of a cover image, with the provided 'bitsUsed' and steganography method.
+     * For the random method, the worst case is taken into account (every jump between
+     * two used bytes is as large as possible), so the value is a lower bound.
+     */
+    public static int getEncodingCapacity(int coverImageBytesLength, int bitsUsed, String methodString) {
+        // matrix embedding uses every byte, and holds k bits in every block
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            return MatrixEmbeddingUtils.getEncodingCapacity(coverImageBytesLength, methodString);
+        }
+
+        // calculate how many bytes of the cover image are used
+        long usedBytes;
+        if (methodString.contains("random")) {
+            String[] split = methodString.split(",");
+            int upperBoundRandom = Integer.parseInt(split[3]);
+            usedBytes = (coverImageBytesLength - 1) / Math.max(1, upperBoundRandom - 1);
+        } else if (FibonacciUtils.isFibonacciMethod(methodString)
+                || PermutationUtils.isPermutationMethod(methodString)) {
+            usedBytes = coverImageBytesLength;
+        } else {
+            int byteIncrement = Integer.parseInt(methodString);
+            usedBytes = (coverImageBytesLength - 1) / byteIncrement + 1;
+        }
+
+        // every used byte holds 'bitsUsed' bits
+        return (int) (usedBytes * bitsUsed / 8);
+    }
+
+    /**
+     * Returns the maximum number of bytes that could be encoded in 'coverImageBytesLength'
+     * bytes of a cover image, with the provided 'bitsUsed' and steganography method.
+     * For the random method, the best case is taken into account (every jump between
+     * two used bytes is as small as possible), so the value is an upper bound. It is
+     * used to reject invalid lengths when decoding, before allocating anything.
+     */
+    public static int getMaximumEncodingCapacity(int coverImageBytesLength, int bitsUsed, String methodString) {
+        // matrix embedding has no random jumps, so its capacity is exact
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            return MatrixEmbeddingUtils.getEncodingCapacity(coverImageBytesLength, methodString);
+        }
+
+        // calculate how many bytes of the cover image could be used
+        long usedBytes;
+        if (methodString.contains("random")) {
+            String[] split = methodString.split(",");
+            int lowerBoundRandom = Integer.parseInt(split[2]);
+            usedBytes = coverImageBytesLength / Math.max(1, lowerBoundRandom);
+        } else if (FibonacciUtils.isFibonacciMethod(methodString)
+                || PermutationUtils.isPermutationMethod(methodString)) {
+            usedBytes = coverImageBytesLength;
+        } else {
+            int byteIncrement = Integer.parseInt(methodString);
+            usedBytes = (coverImageBytesLength - 1) / byteIncrement + 1;
+        }
+
+        // every used byte holds 'bitsUsed' bits
+        return (int) (usedBytes * bitsUsed / 8);
+    }
+
     /**
      * We convert a generic file to a byte array. This is done so that we can
      * access the bytes that we will encode into an image.
      */
-    private static byte[] getFileAsByteArray(File file) {
+    public static byte[] getFileAsByteArray(File file) {
         try {
             return Files.readAllBytes(file.toPath());
         } catch (IOException e) {
@@ -107,64 +587,193 @@ public class SteganographyUtils {
     }
 
     /**
-     * This method encodes a file into an image, with the provided
-     * 'bitsUsed' and the provided steganography method.
-     * Parameter meaning:
+     * Returns the number of bytes used by a file of 'fileLength' bytes, once it is split
+     * in chunks and a checksum is added after every chunk.
+     */
+    public static long getChecksummedLength(long fileLength) {
+        long chunkCount = (fileLength + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return fileLength + chunkCount * CHECKSUM_BYTES;
+    }
+
+    /**
+     * Returns the total number of bytes used when encoding a file (signature, file name,
+     * lengths, file bytes & checksums), using the structure described at the top of the class.
+     */
+    public static long getEncodedFileLength(String fileName, long fileLength) {
+        return CHECKSUM_SIGNATURE.getBytes().length + LENGTH_BYTES + fileName.getBytes().length
+                + LENGTH_BYTES + getChecksummedLength(fileLength);
+    }
+
+    /**
+     * Returns the maximum length of a file that can be encoded in 'capacity' bytes, with the given
+     * file name (the opposite of getEncodedFileLength).
+     */
+    public static long getMaximumFileLength(long capacity, String fileName) {
+        long availableBytes = capacity - CHECKSUM_SIGNATURE.getBytes().length - 2 * LENGTH_BYTES
+                - fileName.getBytes().length;
+        long chunkCount = (availableBytes + CHUNK_SIZE + CHECKSUM_BYTES - 1) / (CHUNK_SIZE + CHECKSUM_BYTES);
+        return Math.max(0, availableBytes - chunkCount * CHECKSUM_BYTES);
+    }
+
+    /**
+     * Validates a length decoded from a cover image: the length must not be negative, and the
+     * 'length' bytes found at 'offset' must fit in the 'capacity' of the cover image. This is done
+     * before allocating anything, so that a wrong length (a wrong key, or a corrupted image) is
+     * rejected immediately, instead of decoding a lot of garbage.
      *
+     * This method throws a SteganographyException if the length is invalid.
      */
-    public static BufferedImage encodeFileInImageLSB(File selectedImage, File selectedFile,
-                                                     int bitsUsed, String methodString,
-                                                     String encryptionMethodString) {
-        // load the image as a BufferedImage
-        BufferedImage originalImage = loadImage(selectedImage);
+    public static void validateLength(long length, int offset, int capacity) {
+        if (length < 0 || offset + length > capacity) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+    }
 
-        // create a copy of it, in which we will encode our hidden file
-        BufferedImage coverImage = createCopyOfImage(originalImage);
+    /**
+     * Encrypts an int and encodes it in the target, at the given offset.
+     * Returns the number of encoded bytes.
+     */
+    public static int encodeInt(EncodingTarget target, int value, int offset, String encryptionMethodString) {
+        byte[] valueBytes = EncryptionUtils.encryptBytes(Ints.toByteArray(value), encryptionMethodString);
+        target.encodeBytes(valueBytes, offset);
+        return valueBytes.length;
+    }
 
-        // obtain the pixels of the coverImage as a byte array
-        byte[] coverImageBytes = getImageAsPixelByteArray(coverImage);
+    /**
+     * Decodes an int from the source, from the given offset, and decrypts it.
+     */
+    public static int decodeInt(DecodingSource source, int offset, String encryptionMethodString) {
+        byte[] valueBytes = source.decodeBytes(offset, LENGTH_BYTES);
+        return Ints.fromByteArray(EncryptionUtils.decryptBytes(valueBytes, encryptionMethodString));
+    }
 
-        // obtain the content of the selectedFile as a byte array
-        byte[] selectedFileBytes = EncryptionUtils.encryptBytes(
-                getFileAsByteArray(selectedFile), encryptionMethodString);
+    /**
+     * This method encodes a file (its name, and its 'fileLength' bytes read from the 'fileStream')
+     * in the target, using the structure described at the top of the class. The file is read and
+     * encoded one chunk at a time, so it is never entirely in memory.
+     */
+    public static void encodeFile(EncodingTarget target, String fileName,
+                                  InputStream fileStream, int fileLength,
+                                  String encryptionMethodString) {
+        long startNanos = MetricsRegistry.start();
+        try {
+            encodeFileChunks(target, fileName, fileStream, fileLength, encryptionMethodString);
+        } catch (SteganographyException exception) {
+            MetricsRegistry.recordFailure(MetricsRegistry.Operation.ENCODE, startNanos, exception);
+            throw exception;
+        }
+        MetricsRegistry.recordSuccess(MetricsRegistry.Operation.ENCODE, startNanos);
+        MetricsRegistry.recordEmbeddedBytes(fileLength);
+    }
 
+    private static void encodeFileChunks(EncodingTarget target, String fileName,
+                                         InputStream fileStream, int fileLength,
+                                         String encryptionMethodString) {
         // encode the signature in the first bytes
-        byte[] signatureBytes = EncryptionUtils.encryptBytes(SIGNATURE.getBytes(), encryptionMethodString);
-        SteganographyEncoding.encodeBytesLSB(coverImageBytes, signatureBytes, 0,
-                bitsUsed, methodString);
+        byte[] signatureBytes = EncryptionUtils.encryptBytes(CHECKSUM_SIGNATURE.getBytes(), encryptionMethodString);
+        target.encodeBytes(signatureBytes, 0);
         int currentOffsetInBytes = signatureBytes.length;
 
         // encode the length of the "file name + extension"
-        String fileName = getFileName(selectedFile);
-        byte[] fileNameLengthBytes = EncryptionUtils.encryptBytes(
-                Ints.toByteArray(fileName.getBytes().length), encryptionMethodString);
-        SteganographyEncoding.encodeBytesLSB(coverImageBytes, fileNameLengthBytes, currentOffsetInBytes,
-                bitsUsed, methodString);
-        currentOffsetInBytes += fileNameLengthBytes.length;
+        currentOffsetInBytes += encodeInt(target, fileName.getBytes().length, currentOffsetInBytes,
+                encryptionMethodString);
 
         // encode the file name + extension
         byte[] fileNameBytes = EncryptionUtils.encryptBytes(fileName.getBytes(), encryptionMethodString);
-        SteganographyEncoding.encodeBytesLSB(coverImageBytes, fileNameBytes, currentOffsetInBytes,
-                bitsUsed, methodString);
+        target.encodeBytes(fileNameBytes, currentOffsetInBytes);
         currentOffsetInBytes += fileNameBytes.length;
 
         // encode the length of the file
-        byte[] fileLengthBytes = EncryptionUtils.encryptBytes(
-                Ints.toByteArray((int) selectedFile.length()), encryptionMethodString);
-        SteganographyEncoding.encodeBytesLSB(coverImageBytes, fileLengthBytes, currentOffsetInBytes,
-                bitsUsed, methodString);
-        currentOffsetInBytes += fileLengthBytes.length;
+        currentOffsetInBytes += encodeInt(target, fileLength, currentOffsetInBytes, encryptionMethodString);
+
+        // encode the file bytes themselves, one chunk at a time, each followed by its checksum
+        // (the chunk buffer is taken from the pool, and the chunks are encrypted in place)
+        byte[] chunkBytes = fileLength >= CHUNK_SIZE ? BufferPool.acquireBytes(CHUNK_SIZE) : null;
+        try {
+            CRC32 checksum = new CRC32();
+            for (int remainingBytes = fileLength; remainingBytes > 0; remainingBytes -= CHUNK_SIZE) {
+                byte[] currentChunkBytes = remainingBytes >= CHUNK_SIZE ? chunkBytes : new byte[remainingBytes];
+                ByteStreams.readFully(fileStream, currentChunkBytes);
+
+                checksum.reset();
+                checksum.update(currentChunkBytes, 0, currentChunkBytes.length);
+
+                Object encryptEvent = Profiler.begin("encrypt");
+                EncryptionUtils.encryptBytesInPlace(currentChunkBytes, encryptionMethodString);
+                Profiler.end(encryptEvent, currentChunkBytes.length);
+
+                Object embedEvent = Profiler.begin("embed");
+                target.encodeBytes(currentChunkBytes, currentOffsetInBytes);
+                Profiler.end(embedEvent, currentChunkBytes.length);
+                currentOffsetInBytes += currentChunkBytes.length;
+                currentOffsetInBytes += encodeInt(target, (int) checksum.getValue(), currentOffsetInBytes,
+                        encryptionMethodString);
+            }
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        } finally {
+            if (chunkBytes != null) {
+                BufferPool.releaseBytes(chunkBytes);
+            }
+        }
+    }
+
+    /**
+     * This method encodes a file into an image, with the provided
+     * 'bitsUsed' and the provided steganography method.
+     * Parameter meaning:
+     *
+     */
+    public static BufferedImage encodeFileInImageLSB(File selectedImage, File selectedFile,
+                                                     int bitsUsed, String methodString,
+                                                     String encryptionMethodString) {
+        Profiler.startOperation(bitsUsed, methodString, encryptionMethodString);
+        try {
+            // load the image as a BufferedImage
+            BufferedImage originalImage = loadImage(selectedImage);
 
-        // encode the file bytes themselves
-        SteganographyEncoding.encodeBytesLSB(coverImageBytes, selectedFileBytes, currentOffsetInBytes,
-                bitsUsed, methodString);
+            // encode the file in a copy of it
+            try (InputStream fileStream = Files.newInputStream(selectedFile.toPath())) {
+                return encodeFileInImageLSB(originalImage, getFileName(selectedFile), fileStream,
+                        (int) selectedFile.length(), bitsUsed, methodString, encryptionMethodString);
+            } catch (IOException e) {
+                throw new SteganographyException(
+                        "The file can not be read!",
+                        "Please select a different file.");
+            }
+        } finally {
+            Profiler.endOperation();
+        }
+    }
+
+    /**
+     * This method encodes a file ('fileLength' bytes, read from the 'fileStream') into a copy of
+     * an image that is already loaded (e.g. with loadImage, from a stream or a buffer), with the
+     * provided 'bitsUsed' and steganography method, and returns the copy.
+     */
+    public static BufferedImage encodeFileInImageLSB(BufferedImage originalImage, String fileName,
+                                                     InputStream fileStream, int fileLength,
+                                                     int bitsUsed, String methodString,
+                                                     String encryptionMethodString) {
+        // create a copy of the image, in which we will encode our hidden file
+        BufferedImage coverImage = createCopyOfImage(originalImage);
+
+        // encode the file in the pixels of the coverImage
+        encodeFile(createEncodingTarget(coverImage, bitsUsed, methodString),
+                fileName, fileStream, fileLength, encryptionMethodString);
+        MetricsRegistry.recordCapacityUtilisation(getEncodedFileLength(fileName, fileLength),
+                getMaximumEncodingCapacity(coverImage, bitsUsed, methodString));
 
         // return the image after encoding is done
         return coverImage;
     }
 
     /**
-     * Having the bytes of an image, we validate the first few encoded bits to check
+     * Having the source of an image, we validate the first few encoded bits to check
      * if they have the signature. The signature was encoded in the first bits of the
      * image, before encoding the actual file. If the signature is not present, at least
      * one of the following affirmations is true:
@@ -173,30 +782,182 @@ public class SteganographyUtils {
      * - the encoded file used a different signature (or none at all);
      * - there is no encoded file present in the image.
      *
+     * The expected signature is given as a parameter, so that other container formats
+     * (the archive, for example) can validate their own signature.
+     *
      * This method throws a SteganographyException if the signature can not be verified.
      */
-    private static void validateSignature(byte[] coverImageBytes, int bitsUsed,
-                                          String methodString, String encryptionMethodString) {
+    public static void validateSignature(DecodingSource source, String expectedSignature,
+                                         String encryptionMethodString) {
+        String signature = decodeSignature(source, encryptionMethodString);
+        if (!expectedSignature.equals(signature)) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image."
+            );
+        }
+    }
+
+    /**
+     * Decodes the signature (the first bytes of the encoded data) from the source and decrypts it.
+     */
+    private static String decodeSignature(DecodingSource source, String encryptionMethodString) {
         // encrypt the signature to obtain the number of bytes it has, encrypted
         byte[] signatureEncryptedBytes = EncryptionUtils.encryptBytes(
                 SIGNATURE.getBytes(), encryptionMethodString);
 
         // decode the bytes and decrypt them
-        byte[] signatureBytes = SteganographyDecoding.decodeBytesLSB(coverImageBytes, 0,
-                signatureEncryptedBytes.length, bitsUsed, methodString);
+        byte[] signatureBytes = source.decodeBytes(0, signatureEncryptedBytes.length);
         signatureBytes = EncryptionUtils.decryptBytes(signatureBytes, encryptionMethodString);
+        return new String(signatureBytes);
+    }
 
-        // validate if the signature is the same
+    /**
+     * Returns the first byte of the encrypted signature. It is the same for both signatures
+     * (checksummed or not), so a source whose first decoded byte is different can't contain
+     * an encoded file (with this encryption method).
+     */
+    public static byte getEncryptedSignatureFirstByte(String encryptionMethodString) {
+        return EncryptionUtils.encryptBytes(CHECKSUM_SIGNATURE.getBytes(), encryptionMethodString)[0];
+    }
+
+    /**
+     * Returns the number of samples, from the start of a cover image (copy), that could be read
+     * when decoding the signature with the provided 'bitsUsed' and steganography method (for the
+     * random method, every jump is considered as large as possible; the fibonacci and permutation
+     * methods may read the whole image). Only these samples are needed to check if an image contains an encoded file
+     * (see hasEncodedFile).
+     */
+    public static long getSignatureSampleCount(int bitsUsed, String methodString) {
+        if (MatrixEmbeddingUtils.isMatrixEmbeddingMethod(methodString)) {
+            return MatrixEmbeddingUtils.getSampleCount(SIGNATURE.getBytes().length, methodString);
+        }
+        if (FibonacciUtils.isFibonacciMethod(methodString) || PermutationUtils.isPermutationMethod(methodString)) {
+            // the signature is spread over the whole image
+            return Integer.MAX_VALUE;
+        }
+        long usedSamples = (SIGNATURE.getBytes().length * 8L + bitsUsed - 1) / bitsUsed;
+        long maximumJump;
+        if (methodString.contains("random")) {
+            maximumJump = Math.max(1, Integer.parseInt(methodString.split(",")[3]) - 1);
+        } else {
+            maximumJump = Integer.parseInt(methodString);
+        }
+        return usedSamples * maximumJump + 1;
+    }
+
+    /**
+     * Returns true if the source contains an encoded file (checksummed or not), checking only
+     * its signature. Nothing else is decoded.
+     */
+    public static boolean hasEncodedFile(DecodingSource source, String encryptionMethodString) {
+        long startNanos = MetricsRegistry.start();
         try {
-            String signature = new String(signatureBytes);
-            if (!SIGNATURE.equals(signature)) {
-                throw new RuntimeException();
-            }
-        } catch (Exception e) {
+            String signature = decodeSignature(source, encryptionMethodString);
+            return CHECKSUM_SIGNATURE.equals(signature) || SIGNATURE.equals(signature);
+        } catch (SteganographyException exception) {
+            return false;
+        } finally {
+            MetricsRegistry.recordSuccess(MetricsRegistry.Operation.PROBE, startNanos);
+        }
+    }
+
+    /**
+     * This method decodes a file from the source, using the structure described at the top of
+     * the class, and writes the file bytes to the output. The 'capacity' of the source (in bytes)
+     * is used to validate the decoded lengths, before decoding anything else. The file is decoded
+     * one chunk at a time, and every chunk is verified using its checksum, so the decoding stops
+     * at the first corrupted chunk.
+     * Returns the name of the decoded file.
+     */
+    public static String decodeFile(DecodingSource source, int capacity, OutputStream output,
+                                    String encryptionMethodString) {
+        long startNanos = MetricsRegistry.start();
+        String fileName;
+        try {
+            fileName = decodeFileChunks(source, capacity, output, encryptionMethodString);
+        } catch (SteganographyException exception) {
+            MetricsRegistry.recordFailure(MetricsRegistry.Operation.DECODE, startNanos, exception);
+            throw exception;
+        }
+        MetricsRegistry.recordSuccess(MetricsRegistry.Operation.DECODE, startNanos);
+        return fileName;
+    }
+
+    private static String decodeFileChunks(DecodingSource source, int capacity, OutputStream output,
+                                           String encryptionMethodString) {
+        // obtain and validate the signature (checksummed or not)
+        String signature = decodeSignature(source, encryptionMethodString);
+        boolean checksummed = CHECKSUM_SIGNATURE.equals(signature);
+        if (!checksummed && !SIGNATURE.equals(signature)) {
             throw new SteganographyException(
                     "Decoding error!",
-                    "There is no encoded file in the provided image."
-            );
+                    "There is no encoded file in the provided image.");
+        }
+        int offsetInBytes = signature.getBytes().length;
+
+        // obtain the file name length
+        int fileNameLength = decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        validateLength(fileNameLength, offsetInBytes, capacity);
+
+        // obtain the file name
+        byte[] fileNameBytes = source.decodeBytes(offsetInBytes, fileNameLength);
+        fileNameBytes = EncryptionUtils.decryptBytes(fileNameBytes, encryptionMethodString);
+        String fileName = new String(fileNameBytes);
+        offsetInBytes += fileNameBytes.length;
+
+        // obtain the file length
+        int fileLength = decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        validateLength(checksummed ? getChecksummedLength(fileLength) : fileLength, offsetInBytes, capacity);
+
+        try {
+            if (!checksummed) {
+                // obtain the content of the file, all at once
+                Object extractEvent = Profiler.begin("extract");
+                byte[] fileBytes = source.decodeBytes(offsetInBytes, fileLength);
+                Profiler.end(extractEvent, fileLength);
+
+                Object decryptEvent = Profiler.begin("decrypt");
+                fileBytes = EncryptionUtils.decryptBytes(fileBytes, encryptionMethodString);
+                Profiler.end(decryptEvent, fileLength);
+                output.write(fileBytes);
+                MetricsRegistry.recordExtractedBytes(fileLength);
+                return fileName;
+            }
+
+            // obtain the content of the file one chunk at a time, verifying every chunk
+            CRC32 checksum = new CRC32();
+            for (int remainingBytes = fileLength; remainingBytes > 0; remainingBytes -= CHUNK_SIZE) {
+                int chunkLength = Math.min(CHUNK_SIZE, remainingBytes);
+                Object extractEvent = Profiler.begin("extract");
+                byte[] chunkBytes = source.decodeBytes(offsetInBytes, chunkLength);
+                Profiler.end(extractEvent, chunkLength);
+
+                Object decryptEvent = Profiler.begin("decrypt");
+                EncryptionUtils.decryptBytesInPlace(chunkBytes, encryptionMethodString);
+                Profiler.end(decryptEvent, chunkLength);
+                offsetInBytes += chunkLength;
+
+                int expectedChecksum = decodeInt(source, offsetInBytes, encryptionMethodString);
+                offsetInBytes += CHECKSUM_BYTES;
+
+                checksum.reset();
+                checksum.update(chunkBytes, 0, chunkLength);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    throw new SteganographyException(
+                            "Decoding error!",
+                            "The encoded file is corrupted.");
+                }
+                output.write(chunkBytes);
+            }
+            MetricsRegistry.recordExtractedBytes(fileLength);
+            return fileName;
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "Saving error!",
+                    "The decoded file could not be saved.");
         }
     }
 
@@ -209,47 +970,107 @@ public class SteganographyUtils {
     public static RawDecodedFile decodeFileFromImageLSB(File selectedImage,
                                                         int bitsUsed, String methodString,
                                                         String encryptionMethodString) {
-        // load the image as a BufferedImage
-        BufferedImage originalImage = loadImage(selectedImage);
+        Profiler.startOperation(bitsUsed, methodString, encryptionMethodString);
+        try {
+            // load the image as a BufferedImage
+            BufferedImage originalImage = loadImage(selectedImage);
+
+            // decode the file from a copy of it
+            ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+            String fileName = decodeFileFromImageLSB(originalImage, fileBytes,
+                    bitsUsed, methodString, encryptionMethodString);
+
+            // return the file name & file bytes as a RawDecodedFile
+            return new RawDecodedFile(fileName, fileBytes.toByteArray());
+        } finally {
+            Profiler.endOperation();
+        }
+    }
 
-        // create a copy of it, which we will attempt to parse
+    /**
+     * This method decodes a file from an image that is already loaded (e.g. with loadImage, from a
+     * stream or a buffer), with the provided 'bitsUsed' and steganography method, and writes the
+     * file bytes to the output as they are decoded (so the file is never entirely in memory).
+     * Returns the name of the decoded file.
+     */
+    public static String decodeFileFromImageLSB(BufferedImage originalImage, OutputStream output,
+                                                int bitsUsed, String methodString,
+                                                String encryptionMethodString) {
+        // create a copy of the image, which we will attempt to parse
         BufferedImage coverImage = createCopyOfImage(originalImage);
 
-        // obtain the pixels of the coverImage as a byte array
-        byte[] coverImageBytes = getImageAsPixelByteArray(coverImage);
+        // decode the file from the pixels of the coverImage (the copy is no longer needed afterwards)
+        try {
+            return decodeFile(createDecodingSource(coverImage, bitsUsed, methodString),
+                    getMaximumEncodingCapacity(coverImage, bitsUsed, methodString),
+                    output, encryptionMethodString);
+        } finally {
+            releaseCopyOfImage(coverImage);
+        }
+    }
+
+    /**
+     * Opens a read-only channel over the file encoded in the source (see EncodedFileChannel), so that
+     * parts of the file can be read without decoding all of it. Only the signature, the file name and
+     * the file length are decoded (and validated against the 'capacity' of the source) here.
+     */
+    public static EncodedFileChannel openEncodedFile(DecodingSource source, int capacity,
+                                                     String encryptionMethodString) {
+        return openEncodedFile(source, capacity, encryptionMethodString, null);
+    }
 
-        // obtain and validate the signature
-        byte[] signatureEncryptedBytes = EncryptionUtils.encryptBytes(SIGNATURE.getBytes(), encryptionMethodString);
-        validateSignature(coverImageBytes, bitsUsed, methodString, encryptionMethodString);
-        int offsetInBytes = signatureEncryptedBytes.length;
+    /**
+     * Opens a read-only channel over the file encoded in a copy of an image, with the provided
+     * 'bitsUsed' and steganography method. The copy is released when the channel is closed.
+     */
+    public static EncodedFileChannel openEncodedFileInImageLSB(BufferedImage originalImage,
+                                                               int bitsUsed, String methodString,
+                                                               String encryptionMethodString) {
+        BufferedImage coverImage = createCopyOfImage(originalImage);
+        try {
+            return openEncodedFile(createDecodingSource(coverImage, bitsUsed, methodString),
+                    getMaximumEncodingCapacity(coverImage, bitsUsed, methodString),
+                    encryptionMethodString, () -> releaseCopyOfImage(coverImage));
+        } catch (SteganographyException exception) {
+            releaseCopyOfImage(coverImage);
+            throw exception;
+        }
+    }
 
-        // obtain the file name length
-        byte[] fileNameLengthBytes = SteganographyDecoding.decodeBytesLSB(coverImageBytes, offsetInBytes, LENGTH_BYTES,
-                bitsUsed, methodString);
-        fileNameLengthBytes = EncryptionUtils.decryptBytes(fileNameLengthBytes, encryptionMethodString);
-        int fileNameLength = Ints.fromByteArray(fileNameLengthBytes);
-        offsetInBytes += fileNameLengthBytes.length;
+    /**
+     * Same as the method above, with a 'closeAction' run when the channel is closed.
+     */
+    public static EncodedFileChannel openEncodedFile(DecodingSource source, int capacity,
+                                                     String encryptionMethodString, Runnable closeAction) {
+        // obtain and validate the signature (checksummed or not)
+        String signature = decodeSignature(source, encryptionMethodString);
+        boolean checksummed = CHECKSUM_SIGNATURE.equals(signature);
+        if (!checksummed && !SIGNATURE.equals(signature)) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+        int offsetInBytes = signature.getBytes().length;
 
         // obtain the file name
-        byte[] fileNameBytes = SteganographyDecoding.decodeBytesLSB(coverImageBytes, offsetInBytes, fileNameLength,
-                bitsUsed, methodString);
-        fileNameBytes = EncryptionUtils.decryptBytes(fileNameBytes, encryptionMethodString);
-        String fileName = new String(fileNameBytes);
-        offsetInBytes += fileNameBytes.length;
+        int fileNameLength = decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        validateLength(fileNameLength, offsetInBytes, capacity);
+        byte[] fileNameBytes = source.decodeBytes(offsetInBytes, fileNameLength);
+        String fileName = new String(EncryptionUtils.decryptBytes(fileNameBytes, encryptionMethodString));
+        offsetInBytes += fileNameLength;
 
         // obtain the file length
-        byte[] fileLengthBytes = SteganographyDecoding.decodeBytesLSB(coverImageBytes, offsetInBytes, LENGTH_BYTES,
-                bitsUsed, methodString);
-        fileLengthBytes = EncryptionUtils.decryptBytes(fileLengthBytes, encryptionMethodString);
-        int fileLength = Ints.fromByteArray(fileLengthBytes);
-        offsetInBytes += fileLengthBytes.length;
-
-        // obtain the content of the selectedFile as a byte array
-        byte[] fileBytes = SteganographyDecoding.decodeBytesLSB(coverImageBytes, offsetInBytes, fileLength,
-                bitsUsed, methodString);
-        fileBytes = EncryptionUtils.decryptBytes(fileBytes, encryptionMethodString);
-
-        // return the file name & file bytes as a RawDecodedFile
-        return new RawDecodedFile(fileName, fileBytes);
+        int fileLength = decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        validateLength(checksummed ? getChecksummedLength(fileLength) : fileLength, offsetInBytes, capacity);
+
+        // a file without checksums is encrypted as a single chunk
+        if (checksummed) {
+            return new EncodedFileChannel(source, fileName, fileLength, offsetInBytes,
+                    CHUNK_SIZE, CHECKSUM_BYTES, encryptionMethodString, closeAction);
+        }
+        return new EncodedFileChannel(source, fileName, fileLength, offsetInBytes,
+                Math.max(1, fileLength), 0, encryptionMethodString, closeAction);
     }
 }
@@ -0,0 +1,144 @@
+package steganography.adaptive;
+
+import exceptions.SteganographyException;
+import steganography.DecodingSource;
+import steganography.EncodingTarget;
+
+/**
+ * This class encodes and decodes bytes in the pixels of a cover image, using a different
+ * number of least significant bits for every region of the image, as given by a ComplexityMap.
+ *
+ * The bits are placed one after the other, in all the bytes of the image (in order), the first
+ * bit of every byte being placed in the most significant of its used bits (just like in
+ * SteganographyEncoding). To find where a given offset is placed, we store the number of bits
+ * found before every row of pixels, so we only have to walk through the blocks of a single row.
+ */
+public class AdaptiveBitStream implements EncodingTarget, DecodingSource {
+    private final byte[] coverImageBytes;
+    private final ComplexityMap complexityMap;
+    private final int width;
+    private final int channels;
+    private final int rowLength;
+    private final long[] rowStartBits;
+
+    // the current position in the stream: the cover byte, the bits used in it,
+    // and the number of bits already encoded / decoded in it
+    private int byteIndex;
+    private int bitsUsed;
+    private int bitOffset;
+
+    public AdaptiveBitStream(byte[] coverImageBytes, int width, int height, ComplexityMap complexityMap) {
+        this.coverImageBytes = coverImageBytes;
+        this.complexityMap = complexityMap;
+        this.width = width;
+        this.channels = coverImageBytes.length / (width * height);
+        this.rowLength = width * channels;
+
+        // count the bits found before every row of pixels
+        this.rowStartBits = new long[height + 1];
+        for (int y = 0; y < height; y++) {
+            long rowBits = 0;
+            for (int x = 0; x < width; x += ComplexityMap.BLOCK_SIZE) {
+                int blockWidth = Math.min(ComplexityMap.BLOCK_SIZE, width - x);
+                rowBits += (long) complexityMap.getBitsUsed(x, y) * blockWidth * channels;
+            }
+            rowStartBits[y + 1] = rowStartBits[y] + rowBits;
+        }
+    }
+
+    /**
+     * Returns the number of bytes that can be encoded in the cover image.
+     */
+    public int getCapacity() {
+        return (int) Math.min(Integer.MAX_VALUE, rowStartBits[rowStartBits.length - 1] / 8);
+    }
+
+    /**
+     * Moves the current position to the given bit of the stream.
+     */
+    private void seek(long bitIndex) {
+        // find the row containing the bit (the last row starting before it)
+        int low = 0;
+        int high = rowStartBits.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (rowStartBits[middle] <= bitIndex) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int y = low;
+
+        // walk through the blocks of the row until we find the one containing the bit
+        long remainingBits = bitIndex - rowStartBits[y];
+        for (int x = 0; x < width; x += ComplexityMap.BLOCK_SIZE) {
+            int blockBitsUsed = complexityMap.getBitsUsed(x, y);
+            long blockBits = (long) blockBitsUsed * Math.min(ComplexityMap.BLOCK_SIZE, width - x) * channels;
+            if (remainingBits < blockBits) {
+                byteIndex = (int) (y * rowLength + x * channels + remainingBits / blockBitsUsed);
+                bitsUsed = blockBitsUsed;
+                bitOffset = (int) (remainingBits % blockBitsUsed);
+                return;
+            }
+            remainingBits -= blockBits;
+        }
+    }
+
+    /**
+     * Moves the current position to the next bit of the stream.
+     */
+    private void advance() {
+        bitOffset++;
+        if (bitOffset == bitsUsed) {
+            byteIndex++;
+            bitOffset = 0;
+            if (byteIndex < coverImageBytes.length) {
+                bitsUsed = complexityMap.getBitsUsed((byteIndex % rowLength) / channels, byteIndex / rowLength);
+            }
+        }
+    }
+
+    @Override
+    public void encodeBytes(byte[] bytes, int offset) {
+        if (offset + (long) bytes.length > getCapacity()) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+
+        seek(offset * 8L);
+        for (byte currentByte : bytes) {
+            for (int currentBit = 7; currentBit >= 0; currentBit--) {
+                // place the bit in its position among the used bits of the current byte
+                int bitToAdd = (currentByte >>> currentBit) & 0x01;
+                int bitPosition = bitsUsed - bitOffset - 1;
+                coverImageBytes[byteIndex] = (byte) ((coverImageBytes[byteIndex] & ~(1 << bitPosition))
+                        | (bitToAdd << bitPosition));
+                advance();
+            }
+        }
+    }
+
+    @Override
+    public byte[] decodeBytes(int offset, int length) {
+        if (length < 0 || offset + (long) length > getCapacity()) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+
+        seek(offset * 8L);
+        byte[] result = new byte[length];
+        for (int currentResultByte = 0; currentResultByte < length; currentResultByte++) {
+            for (int currentResultBit = 0; currentResultBit < 8; currentResultBit++) {
+                // isolate the bit from its position among the used bits of the current byte
+                int bitPosition = bitsUsed - bitOffset - 1;
+                int currentBit = (coverImageBytes[byteIndex] >> bitPosition) & 0x01;
+                result[currentResultByte] = (byte) (result[currentResultByte] << 1 | currentBit);
+                advance();
+            }
+        }
+        return result;
+    }
+}
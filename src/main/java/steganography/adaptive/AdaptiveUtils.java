@@ -0,0 +1,99 @@
+package steganography.adaptive;
+
+import exceptions.SteganographyException;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * This class contains methods that deal with adaptive LSB steganography: instead of using the
+ * same number of least significant bits in the whole image, the number of bits used in every
+ * region of the image depends on how complex that region is (see ComplexityMap), with
+ * 'maxBitsUsed' as the upper limit. This way, busy regions hold more data, while flat regions
+ * (where modifications are easily seen) are barely modified.
+ *
+ * The encoded file has exactly the same structure as in SteganographyUtils, and every byte of
+ * the image is used (the steganography method is not taken into account).
+ */
+public class AdaptiveUtils {
+    /**
+     * The largest 'maxBitsUsed': the complexity of the regions is computed from the bits that are
+     * never modified (see ComplexityMap), so at least the most significant bit must be left.
+     */
+    public static final int MAX_BITS_USED = 7;
+
+    /**
+     * Creates the adaptive bit stream for the pixels of a cover image.
+     */
+    private static AdaptiveBitStream createBitStream(BufferedImage coverImage, int maxBitsUsed) {
+        if (maxBitsUsed < 1 || maxBitsUsed > MAX_BITS_USED) {
+            throw new SteganographyException(
+                    "Invalid number of bits!",
+                    "Adaptive encoding uses between 1 and " + MAX_BITS_USED + " bits.");
+        }
+        if (SteganographyUtils.isSixteenBitImage(coverImage)) {
+            throw new SteganographyException(
+                    "The chosen image is not supported!",
+                    "Adaptive encoding only supports images with 8 bits per sample.");
+        }
+        byte[] coverImageBytes = SteganographyUtils.getImageAsPixelByteArray(coverImage);
+        ComplexityMap complexityMap = new ComplexityMap(coverImageBytes,
+                coverImage.getWidth(), coverImage.getHeight(), maxBitsUsed);
+        return new AdaptiveBitStream(coverImageBytes, coverImage.getWidth(), coverImage.getHeight(), complexityMap);
+    }
+
+    /**
+     * Returns the number of bytes that can be encoded in an image, using at most 'maxBitsUsed' bits.
+     */
+    public static int getEncodingCapacity(File selectedImage, int maxBitsUsed) {
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        return createBitStream(coverImage, maxBitsUsed).getCapacity();
+    }
+
+    /**
+     * This method encodes a file into an image, using at most 'maxBitsUsed' bits in every byte
+     * of the image (depending on the complexity of every region).
+     */
+    public static BufferedImage encodeFileInImageLSB(File selectedImage, File selectedFile,
+                                                     int maxBitsUsed, String encryptionMethodString) {
+        // load the image and create a copy of it, in which we will encode our hidden file
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        AdaptiveBitStream bitStream = createBitStream(coverImage, maxBitsUsed);
+
+        // encode the file in the pixels of the coverImage
+        try (InputStream fileStream = Files.newInputStream(selectedFile.toPath())) {
+            SteganographyUtils.encodeFile(bitStream, SteganographyUtils.getFileName(selectedFile),
+                    fileStream, (int) selectedFile.length(), encryptionMethodString);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+
+        // return the image after encoding is done
+        return coverImage;
+    }
+
+    /**
+     * This method decodes a file from an image, using at most 'maxBitsUsed' bits in every byte
+     * of the image (the same value used when encoding must be provided).
+     */
+    public static RawDecodedFile decodeFileFromImageLSB(File selectedImage,
+                                                        int maxBitsUsed, String encryptionMethodString) {
+        // load the image and create a copy of it, which we will attempt to parse
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        AdaptiveBitStream bitStream = createBitStream(coverImage, maxBitsUsed);
+
+        // decode the file from the pixels of the coverImage
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+        String fileName = SteganographyUtils.decodeFile(bitStream, bitStream.getCapacity(),
+                fileBytes, encryptionMethodString);
+        return new RawDecodedFile(fileName, fileBytes.toByteArray());
+    }
+}
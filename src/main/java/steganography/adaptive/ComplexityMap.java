@@ -0,0 +1,72 @@
+package steganography.adaptive;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class computes how many least significant bits can be used in every region of an image,
+ * based on how complex the region is. The image is split in blocks of 8 x 8 pixels, and for every
+ * block we compute the variance of all its samples (all the channels of all the pixels). Flat
+ * blocks (small variance) only get 1 bit, because modifications are easily seen there; busy
+ * blocks (large variance) get more bits, up to 'maxBitsUsed'.
+ *
+ * A block gets 'b' bits if the standard deviation of its samples is at least 2^b, so the
+ * modifications (at most 2^b - 1) stay below the natural variation of the block.
+ *
+ * The variance is computed only from the bits that are never modified by the encoding (the
+ * 'maxBitsUsed' least significant bits of every sample are ignored), so the decoder computes
+ * exactly the same map from the cover image (so 'maxBitsUsed' must be at most 7, see AdaptiveUtils).
+ * Only integer arithmetic is used, for the same reason.
+ * The blocks are computed in parallel.
+ */
+public class ComplexityMap {
+    public static final int BLOCK_SIZE = 8;
+
+    private final int blocksPerRow;
+    private final byte[] blockBitsUsed;
+
+    public ComplexityMap(byte[] pixelBytes, int width, int height, int maxBitsUsed) {
+        int channels = pixelBytes.length / (width * height);
+        int mask = ~((1 << maxBitsUsed) - 1) & 0xFF;
+
+        this.blocksPerRow = (width + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int blockRows = (height + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.blockBitsUsed = new byte[blocksPerRow * blockRows];
+
+        // compute the bits used of every block, one row of blocks per task
+        IntStream.range(0, blockRows).parallel().forEach(blockY -> {
+            for (int blockX = 0; blockX < blocksPerRow; blockX++) {
+                // sum the masked samples and their squares
+                long sum = 0;
+                long sumOfSquares = 0;
+                long count = 0;
+                int endY = Math.min(height, (blockY + 1) * BLOCK_SIZE);
+                int endX = Math.min(width, (blockX + 1) * BLOCK_SIZE);
+                for (int y = blockY * BLOCK_SIZE; y < endY; y++) {
+                    int rowStart = y * width * channels;
+                    for (int i = rowStart + blockX * BLOCK_SIZE * channels; i < rowStart + endX * channels; i++) {
+                        int sample = pixelBytes[i] & mask;
+                        sum += sample;
+                        sumOfSquares += sample * sample;
+                    }
+                    count += (endX - blockX * BLOCK_SIZE) * channels;
+                }
+
+                // variance * count^2 = count * sum(x^2) - sum(x)^2; we look for the largest
+                // 'bits' for which variance >= 4^bits (standard deviation >= 2^bits)
+                long scaledVariance = count * sumOfSquares - sum * sum;
+                int bitsUsed = 1;
+                while (bitsUsed < maxBitsUsed && scaledVariance >= (1L << (2 * (bitsUsed + 1))) * count * count) {
+                    bitsUsed++;
+                }
+                blockBitsUsed[blockY * blocksPerRow + blockX] = (byte) bitsUsed;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of least significant bits used for the pixel found at (x, y).
+     */
+    public int getBitsUsed(int x, int y) {
+        return blockBitsUsed[(y / BLOCK_SIZE) * blocksPerRow + x / BLOCK_SIZE];
+    }
+}
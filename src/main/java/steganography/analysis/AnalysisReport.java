@@ -0,0 +1,106 @@
+package steganography.analysis;
+
+import utils.JsonUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The steganalysis results of a single image: the statistics of every channel of the whole image,
+ * and the chi-square probability of every tile (the largest one of its channels), which shows
+ * where the encoded data is (a file encoded with the "1" method only fills the first tiles).
+ */
+public class AnalysisReport {
+    // an image is suspicious if a channel has a chi-square probability or an RS estimate above these
+    public static final double CHI_SQUARE_THRESHOLD = 0.95;
+    public static final double RS_THRESHOLD = 0.1;
+
+    private final File imageFile;
+    private final List<String> channelNames;
+    private final List<ChannelStatistics> channels;
+    private final double[] tileChiSquareProbabilities;
+
+    public AnalysisReport(File imageFile, List<String> channelNames, List<ChannelStatistics> channels,
+                          double[] tileChiSquareProbabilities) {
+        this.imageFile = imageFile;
+        this.channelNames = Collections.unmodifiableList(channelNames);
+        this.channels = Collections.unmodifiableList(channels);
+        this.tileChiSquareProbabilities = tileChiSquareProbabilities;
+    }
+
+    public File getImageFile() {
+        return imageFile;
+    }
+
+    public List<ChannelStatistics> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Returns the largest chi-square probability of all the channels.
+     */
+    public double getMaxChiSquareProbability() {
+        double maxProbability = 0;
+        for (ChannelStatistics channel : channels) {
+            maxProbability = Math.max(maxProbability, channel.getChiSquareProbability());
+        }
+        return maxProbability;
+    }
+
+    /**
+     * Returns the largest RS estimate of all the channels.
+     */
+    public double getMaxRsEstimate() {
+        double maxEstimate = 0;
+        for (ChannelStatistics channel : channels) {
+            maxEstimate = Math.max(maxEstimate, channel.getRsEstimate());
+        }
+        return maxEstimate;
+    }
+
+    /**
+     * Returns the fraction of tiles whose chi-square probability is above CHI_SQUARE_THRESHOLD.
+     */
+    public double getSuspiciousTileFraction() {
+        if (tileChiSquareProbabilities.length == 0) {
+            return 0;
+        }
+        int suspiciousTiles = 0;
+        for (double probability : tileChiSquareProbabilities) {
+            if (probability > CHI_SQUARE_THRESHOLD) {
+                suspiciousTiles++;
+            }
+        }
+        return (double) suspiciousTiles / tileChiSquareProbabilities.length;
+    }
+
+    public boolean isSuspicious() {
+        return getMaxChiSquareProbability() > CHI_SQUARE_THRESHOLD || getMaxRsEstimate() > RS_THRESHOLD;
+    }
+
+    /**
+     * Returns the report as a single line of JSON.
+     */
+    public String toJsonLine() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"file\":").append(JsonUtils.quote(imageFile.getPath()));
+        json.append(",\"suspicious\":").append(isSuspicious());
+        json.append(",\"channels\":[");
+        for (int i = 0; i < channels.size(); i++) {
+            ChannelStatistics channel = channels.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":").append(JsonUtils.quote(channelNames.get(i)))
+                    .append(",\"lsbZeros\":").append(channel.getLsbZeroCount())
+                    .append(",\"lsbOnes\":").append(channel.getLsbOneCount())
+                    .append(",\"chiSquare\":").append(JsonUtils.number(channel.getChiSquareProbability()))
+                    .append(",\"rs\":").append(JsonUtils.number(channel.getRsEstimate()))
+                    .append('}');
+        }
+        json.append("],\"tiles\":").append(tileChiSquareProbabilities.length);
+        json.append(",\"suspiciousTiles\":").append(JsonUtils.number(getSuspiciousTileFraction()));
+        return json.append('}').toString();
+    }
+}
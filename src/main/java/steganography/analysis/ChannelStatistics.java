@@ -0,0 +1,135 @@
+package steganography.analysis;
+
+/**
+ * The statistics of a single channel (of a tile, or of a whole image), from which the chance that
+ * the channel contains LSB-encoded data is estimated:
+ * - the histogram of the sample values (used by the chi-square attack, see getChiSquareProbability);
+ * - the number of regular and singular groups of samples (used by the RS analysis, see getRsEstimate).
+ *
+ * Only primitive arrays are used, so that the statistics of many tiles can be computed in parallel
+ * without allocations, and then merged.
+ */
+public class ChannelStatistics {
+    public static final int VALUE_COUNT = 256;
+
+    // the chi-square attack ignores the pairs of values that appear less than this (in total)
+    private static final int MIN_PAIR_COUNT = 5;
+
+    // indices in the RS counts: the regular / singular groups with the mask M and with -M,
+    // for the samples as they are, and for the samples with all their least significant bits flipped
+    static final int REGULAR = 0;
+    static final int SINGULAR = 1;
+    static final int NEGATIVE_REGULAR = 2;
+    static final int NEGATIVE_SINGULAR = 3;
+    static final int FLIPPED = 4;
+
+    private final long[] histogram = new long[VALUE_COUNT];
+    private final long[] rsCounts = new long[2 * FLIPPED];
+
+    long[] getHistogram() {
+        return histogram;
+    }
+
+    long[] getRsCounts() {
+        return rsCounts;
+    }
+
+    /**
+     * Adds the statistics of another tile to these statistics.
+     */
+    public void merge(ChannelStatistics other) {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        for (int i = 0; i < rsCounts.length; i++) {
+            rsCounts[i] += other.rsCounts[i];
+        }
+    }
+
+    public long getSampleCount() {
+        long sampleCount = 0;
+        for (long count : histogram) {
+            sampleCount += count;
+        }
+        return sampleCount;
+    }
+
+    /**
+     * Returns the number of samples whose least significant bit is 1 (the LSB histogram).
+     */
+    public long getLsbOneCount() {
+        long oneCount = 0;
+        for (int i = 1; i < VALUE_COUNT; i += 2) {
+            oneCount += histogram[i];
+        }
+        return oneCount;
+    }
+
+    public long getLsbZeroCount() {
+        return getSampleCount() - getLsbOneCount();
+    }
+
+    /**
+     * The chi-square attack (Westfeld & Pfitzmann): encoding random bits in the least significant bits
+     * makes the values of every pair (2k, 2k + 1) equally frequent. The chi-square statistic compares
+     * the frequency of 2k with the mean frequency of the pair; the returned value is the probability
+     * of getting a statistic at least this large if the pairs were indeed equalised, so values close
+     * to 1 mean that the channel most likely contains encoded data (and values close to 0 that it doesn't).
+     * Returns 0 if there aren't enough samples to decide.
+     */
+    public double getChiSquareProbability() {
+        double chiSquare = 0;
+        int pairCount = 0;
+        for (int i = 0; i < VALUE_COUNT; i += 2) {
+            double expected = (histogram[i] + histogram[i + 1]) / 2.0;
+            if (2 * expected >= MIN_PAIR_COUNT) {
+                double difference = histogram[i] - expected;
+                chiSquare += difference * difference / expected;
+                pairCount++;
+            }
+        }
+        if (pairCount < 2) {
+            return 0;
+        }
+        return SteganalysisUtils.chiSquareSurvival(chiSquare, pairCount - 1);
+    }
+
+    /**
+     * The RS analysis (Fridrich, Goljan & Du): the groups of samples are classified as regular or singular,
+     * depending on whether flipping the least significant bits of some of their samples makes them more or
+     * less noisy. In a natural image, the proportions of regular and singular groups are the same for
+     * the mask M and its negation -M; encoding makes them diverge, in a way that gives the fraction
+     * of samples that were modified.
+     *
+     * Returns the estimated fraction of samples used for encoding (between 0 and 1), or 0 if there
+     * aren't enough groups to decide.
+     */
+    public double getRsEstimate() {
+        double d0 = rsCounts[REGULAR] - rsCounts[SINGULAR];
+        double d1 = rsCounts[FLIPPED + REGULAR] - rsCounts[FLIPPED + SINGULAR];
+        double negativeD0 = rsCounts[NEGATIVE_REGULAR] - rsCounts[NEGATIVE_SINGULAR];
+        double negativeD1 = rsCounts[FLIPPED + NEGATIVE_REGULAR] - rsCounts[FLIPPED + NEGATIVE_SINGULAR];
+
+        // solve 2 (d1 + d0) z^2 + (d-0 - d-1 - d1 - 3 d0) z + d0 - d-0 = 0, taking the root closest to 0
+        double a = 2 * (d1 + d0);
+        double b = negativeD0 - negativeD1 - d1 - 3 * d0;
+        double c = d0 - negativeD0;
+        double z;
+        if (Math.abs(a) < 1e-9) {
+            if (Math.abs(b) < 1e-9) {
+                return 0;
+            }
+            z = -c / b;
+        } else {
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant < 0) {
+                return 0;
+            }
+            double root1 = (-b + Math.sqrt(discriminant)) / (2 * a);
+            double root2 = (-b - Math.sqrt(discriminant)) / (2 * a);
+            z = Math.abs(root1) < Math.abs(root2) ? root1 : root2;
+        }
+        double estimate = z / (z - 0.5);
+        return Double.isNaN(estimate) ? 0 : Math.max(0, Math.min(1, estimate));
+    }
+}
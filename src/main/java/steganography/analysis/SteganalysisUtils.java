@@ -0,0 +1,267 @@
+package steganography.analysis;
+
+import exceptions.SteganographyException;
+import steganography.SteganographyUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class contains steganalysis methods, which estimate how likely it is that an image contains
+ * LSB-encoded data (so that cover images can be checked before they are used).
+ *
+ * The image is split in tiles of TILE_SIZE x TILE_SIZE pixels, and the statistics of every channel
+ * (see ChannelStatistics) are computed for every tile, in parallel; the statistics of the whole image
+ * are obtained by merging the statistics of its tiles.
+ */
+public class SteganalysisUtils {
+    public static final int TILE_SIZE = 64;
+
+    // the RS analysis uses groups of 4 neighbouring samples, with the mask [0, 1, 1, 0]
+    private static final int GROUP_SIZE = 4;
+
+    /**
+     * Analyses an image file. The image is analysed as it is stored by the steganography methods
+     * (see SteganographyUtils.createCopyOfImage), so every channel is a channel that could be encoded.
+     */
+    public static AnalysisReport analyzeImage(File imageFile) {
+        // the image is decoded directly, not through the ImageCache (when a whole directory is
+        // analysed, every image is used only once, so caching them would only fill the memory)
+        BufferedImage image;
+        try {
+            image = ImageIO.read(imageFile);
+        } catch (IOException e) {
+            image = null;
+        }
+        if (image == null) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(image);
+        try {
+            return analyzeImage(imageFile, coverImage);
+        } finally {
+            SteganographyUtils.releaseCopyOfImage(coverImage);
+        }
+    }
+
+    /**
+     * Analyses a cover image (copy); the tiles are analysed in parallel.
+     */
+    public static AnalysisReport analyzeImage(File imageFile, BufferedImage coverImage) {
+        if (SteganographyUtils.isSixteenBitImage(coverImage)) {
+            throw new SteganographyException(
+                    "The chosen image is not supported!",
+                    "Steganalysis only supports images with 8 bits per sample.");
+        }
+        byte[] samples = SteganographyUtils.getImageAsPixelByteArray(coverImage);
+        int width = coverImage.getWidth();
+        int height = coverImage.getHeight();
+        int channelCount = samples.length / (width * height);
+
+        // analyse every tile (one row of tiles per task)
+        int tilesPerRow = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        ChannelStatistics[][] tileStatistics = new ChannelStatistics[tilesPerRow * tileRows][];
+        IntStream.range(0, tileRows).parallel().forEach(tileY -> {
+            for (int tileX = 0; tileX < tilesPerRow; tileX++) {
+                tileStatistics[tileY * tilesPerRow + tileX] = analyzeTile(samples, width, channelCount,
+                        tileX * TILE_SIZE, tileY * TILE_SIZE,
+                        Math.min(width, (tileX + 1) * TILE_SIZE), Math.min(height, (tileY + 1) * TILE_SIZE));
+            }
+        });
+
+        // merge the tiles, in order (so the result doesn't depend on the order in which they were analysed)
+        List<ChannelStatistics> channels = new ArrayList<>();
+        for (int channel = 0; channel < channelCount; channel++) {
+            channels.add(new ChannelStatistics());
+        }
+        double[] tileChiSquareProbabilities = new double[tileStatistics.length];
+        for (int tile = 0; tile < tileStatistics.length; tile++) {
+            for (int channel = 0; channel < channelCount; channel++) {
+                ChannelStatistics statistics = tileStatistics[tile][channel];
+                channels.get(channel).merge(statistics);
+                tileChiSquareProbabilities[tile] = Math.max(tileChiSquareProbabilities[tile],
+                        statistics.getChiSquareProbability());
+            }
+        }
+        return new AnalysisReport(imageFile, getChannelNames(coverImage, channelCount), channels,
+                tileChiSquareProbabilities);
+    }
+
+    /**
+     * Computes the statistics of every channel of a tile (the pixels from (startX, startY),
+     * inclusive, to (endX, endY), exclusive).
+     */
+    private static ChannelStatistics[] analyzeTile(byte[] samples, int width, int channelCount,
+                                                   int startX, int startY, int endX, int endY) {
+        ChannelStatistics[] statistics = new ChannelStatistics[channelCount];
+        for (int channel = 0; channel < channelCount; channel++) {
+            statistics[channel] = new ChannelStatistics();
+            long[] histogram = statistics[channel].getHistogram();
+            long[] rsCounts = statistics[channel].getRsCounts();
+
+            for (int y = startY; y < endY; y++) {
+                int rowStart = y * width * channelCount + channel;
+
+                // the histogram
+                for (int x = startX; x < endX; x++) {
+                    histogram[samples[rowStart + x * channelCount] & 0xFF]++;
+                }
+
+                // the RS groups: 4 horizontally neighbouring samples of the channel
+                for (int x = startX; x + GROUP_SIZE <= endX; x += GROUP_SIZE) {
+                    int index = rowStart + x * channelCount;
+                    int sample0 = samples[index] & 0xFF;
+                    int sample1 = samples[index + channelCount] & 0xFF;
+                    int sample2 = samples[index + 2 * channelCount] & 0xFF;
+                    int sample3 = samples[index + 3 * channelCount] & 0xFF;
+                    classifyGroup(rsCounts, 0, sample0, sample1, sample2, sample3);
+                    classifyGroup(rsCounts, ChannelStatistics.FLIPPED,
+                            sample0 ^ 1, sample1 ^ 1, sample2 ^ 1, sample3 ^ 1);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Classifies a group of samples as regular or singular, for the mask [0, 1, 1, 0] and its negation:
+     * the group is regular if flipping the masked samples makes it noisier, and singular if it makes it
+     * smoother. The counts are stored starting from 'countsOffset'.
+     */
+    private static void classifyGroup(long[] rsCounts, int countsOffset,
+                                      int sample0, int sample1, int sample2, int sample3) {
+        int noise = getNoise(sample0, sample1, sample2, sample3);
+
+        int positiveNoise = getNoise(sample0, flipPositive(sample1), flipPositive(sample2), sample3);
+        if (positiveNoise > noise) {
+            rsCounts[countsOffset + ChannelStatistics.REGULAR]++;
+        } else if (positiveNoise < noise) {
+            rsCounts[countsOffset + ChannelStatistics.SINGULAR]++;
+        }
+
+        int negativeNoise = getNoise(sample0, flipNegative(sample1), flipNegative(sample2), sample3);
+        if (negativeNoise > noise) {
+            rsCounts[countsOffset + ChannelStatistics.NEGATIVE_REGULAR]++;
+        } else if (negativeNoise < noise) {
+            rsCounts[countsOffset + ChannelStatistics.NEGATIVE_SINGULAR]++;
+        }
+    }
+
+    /**
+     * Returns the noise of a group: the sum of the differences between neighbouring samples.
+     */
+    private static int getNoise(int sample0, int sample1, int sample2, int sample3) {
+        return Math.abs(sample1 - sample0) + Math.abs(sample2 - sample1) + Math.abs(sample3 - sample2);
+    }
+
+    /**
+     * The flipping done by LSB encoding: 0 <-> 1, 2 <-> 3 etc.
+     */
+    private static int flipPositive(int sample) {
+        return sample ^ 1;
+    }
+
+    /**
+     * The shifted flipping: -1 <-> 0, 1 <-> 2, 3 <-> 4 etc.
+     */
+    private static int flipNegative(int sample) {
+        return ((sample + 1) ^ 1) - 1;
+    }
+
+    /**
+     * Returns the names of the channels of a cover image (copy), in the order of its samples.
+     */
+    private static List<String> getChannelNames(BufferedImage coverImage, int channelCount) {
+        if (SteganographyUtils.isIndexedImage(coverImage)) {
+            return Arrays.asList("index");
+        }
+        switch (channelCount) {
+            case 1:
+                return Arrays.asList("gray");
+            case 2:
+                return Arrays.asList("gray", "alpha");
+            case 3:
+                return Arrays.asList("blue", "green", "red");
+            case 4:
+                return Arrays.asList("alpha", "blue", "green", "red");
+            default:
+                List<String> channelNames = new ArrayList<>();
+                for (int channel = 0; channel < channelCount; channel++) {
+                    channelNames.add("channel" + channel);
+                }
+                return channelNames;
+        }
+    }
+
+    /**
+     * Returns the probability that a chi-square distributed variable, with 'degreesOfFreedom'
+     * degrees of freedom, is at least 'chiSquare' (the upper regularized incomplete gamma function
+     * Q(degreesOfFreedom / 2, chiSquare / 2)).
+     */
+    static double chiSquareSurvival(double chiSquare, int degreesOfFreedom) {
+        double a = degreesOfFreedom / 2.0;
+        double x = chiSquare / 2.0;
+        if (x <= 0) {
+            return 1;
+        }
+        double logPrefix = -x + a * Math.log(x) - logGamma(a);
+
+        if (x < a + 1) {
+            // series expansion of the lower function P(a, x); Q = 1 - P
+            double term = 1 / a;
+            double sum = term;
+            for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return Math.max(0, 1 - sum * Math.exp(logPrefix));
+        }
+
+        // continued fraction for Q(a, x) (modified Lentz's method)
+        double tiny = 1e-300;
+        double b = x + 1 - a;
+        double c = 1 / tiny;
+        double d = 1 / b;
+        double result = d;
+        for (int i = 1; i < 1000; i++) {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            d = Math.abs(d) < tiny ? tiny : d;
+            c = b + an / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            d = 1 / d;
+            double delta = d * c;
+            result *= delta;
+            if (Math.abs(delta - 1) < 1e-15) {
+                break;
+            }
+        }
+        return Math.min(1, result * Math.exp(logPrefix));
+    }
+
+    /**
+     * Returns the logarithm of the gamma function (Lanczos approximation).
+     */
+    private static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
@@ -0,0 +1,34 @@
+package steganography.archive;
+
+/**
+ * This class describes a single file stored in an archive encoded in a cover image.
+ * We store all the information found in the archive's entry table, which are:
+ * - the entry name (the path relative to the encoded directory, using '/' as a separator);
+ * - the offset of the entry bytes, in bytes, from the start of the encoded data;
+ * - the length of the entry in bytes.
+ *
+ * Using the offset, an entry can be decoded directly, without decoding any of the other entries.
+ */
+public class ArchiveEntry {
+    private String name;
+    private int offset;
+    private int length;
+
+    public ArchiveEntry(String name, int offset, int length) {
+        this.name = name;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,256 @@
+package steganography.archive;
+
+import encryption.EncryptionUtils;
+import exceptions.SteganographyException;
+import steganography.DecodingSource;
+import steganography.EncodingTarget;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class contains methods that encode a whole directory into an image, as an
+ * indexed archive, and decode single entries from it.
+ *
+ * An encoded archive will be found in the Least Significant Bits of an image, with
+ * the following structure:
+ * - first 40 bits (5 bytes): characters ISARC (ImageSteganographyARChive, a signature
+ *                            to know the image actually contains an archive);
+ * - next 32 bits (4 bytes): the number of entries in the archive;
+ * - for every entry (the entry table):
+ *      - next 32 bits (4 bytes): the length of the entry name;
+ *      - next bytes: all the entry name bytes;
+ *      - next 32 bits (4 bytes): the offset of the entry bytes (from the start of the encoded data);
+ *      - next 32 bits (4 bytes): the length of the entry in bytes;
+ * - next bytes: the bytes of all the entries, one after the other.
+ *
+ * Because the entry table contains the offset of every entry, a single entry can be
+ * decoded by seeking directly to its offset, without decoding the entries before it.
+ *
+ * Just like in SteganographyUtils, every field is encrypted separately, using the
+ * selected encryption method.
+ */
+@SuppressWarnings("DuplicatedCode")
+public class ArchiveUtils {
+    private static final String SIGNATURE = "ISARC";
+    private static final int LENGTH_BYTES = 4;
+
+    /**
+     * Returns all the regular files found in a directory (and its subdirectories),
+     * sorted by their path, so that the entry table is always built in the same order.
+     */
+    private static List<Path> getDirectoryFiles(File directory) {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The directory can not be read!",
+                    "Please select a different directory.");
+        }
+    }
+
+    /**
+     * Returns the entry name of a file: its path relative to the encoded directory,
+     * always using '/' as a separator (so that it doesn't depend on the operating system).
+     */
+    private static String getEntryName(File directory, Path file) {
+        return directory.toPath().relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * This method encodes all the files from a directory into an image, as an archive,
+     * with the provided 'bitsUsed' and the provided steganography method.
+     */
+    public static BufferedImage encodeDirectoryInImageLSB(File selectedImage, File selectedDirectory,
+                                                          int bitsUsed, String methodString,
+                                                          String encryptionMethodString) {
+        // load the image and create a copy of it, in which we will encode our archive
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        EncodingTarget target = SteganographyUtils.createEncodingTarget(coverImage, bitsUsed, methodString);
+
+        // obtain the files of the archive, their entry names and their lengths (the lengths are read
+        // only once, since the entry table is encoded before the entries themselves)
+        List<Path> files = getDirectoryFiles(selectedDirectory);
+        List<byte[]> entryNames = new ArrayList<>();
+        long[] entryLengths = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            String entryName = getEntryName(selectedDirectory, files.get(i));
+            entryNames.add(entryName.getBytes());
+            entryLengths[i] = files.get(i).toFile().length();
+            if (entryLengths[i] > Integer.MAX_VALUE) {
+                throw new SteganographyException(
+                        "The loaded file size is too big!",
+                        "The file '" + entryName + "' is too big to be encoded.");
+            }
+        }
+
+        // calculate the size of the header (signature, entry count & entry table),
+        // so that we know the offset of the first entry
+        long currentEntryOffset = SIGNATURE.getBytes().length + LENGTH_BYTES;
+        for (byte[] entryName : entryNames) {
+            currentEntryOffset += LENGTH_BYTES + entryName.length + LENGTH_BYTES + LENGTH_BYTES;
+        }
+
+        // check that the whole archive fits in the image (so that the offsets also fit in an int)
+        long archiveLength = currentEntryOffset;
+        for (long entryLength : entryLengths) {
+            archiveLength += entryLength;
+        }
+        if (archiveLength > SteganographyUtils.getMaximumEncodingCapacity(coverImage, bitsUsed, methodString)) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the directory or the encoding method.");
+        }
+
+        // encode the signature in the first bytes
+        byte[] signatureBytes = EncryptionUtils.encryptBytes(SIGNATURE.getBytes(), encryptionMethodString);
+        target.encodeBytes(signatureBytes, 0);
+        int currentOffsetInBytes = signatureBytes.length;
+
+        // encode the number of entries
+        currentOffsetInBytes += SteganographyUtils.encodeInt(target, files.size(), currentOffsetInBytes,
+                encryptionMethodString);
+
+        // encode the entry table (name length, name, offset and length of every entry)
+        for (int i = 0; i < files.size(); i++) {
+            byte[] entryName = entryNames.get(i);
+
+            currentOffsetInBytes += SteganographyUtils.encodeInt(target, entryName.length, currentOffsetInBytes,
+                    encryptionMethodString);
+
+            byte[] entryNameBytes = EncryptionUtils.encryptBytes(entryName, encryptionMethodString);
+            target.encodeBytes(entryNameBytes, currentOffsetInBytes);
+            currentOffsetInBytes += entryNameBytes.length;
+
+            currentOffsetInBytes += SteganographyUtils.encodeInt(target, (int) currentEntryOffset,
+                    currentOffsetInBytes, encryptionMethodString);
+            currentOffsetInBytes += SteganographyUtils.encodeInt(target, (int) entryLengths[i],
+                    currentOffsetInBytes, encryptionMethodString);
+            currentEntryOffset += entryLengths[i];
+        }
+
+        // encode the entries themselves, one at a time (so that only one entry is in memory),
+        // checking that every file still has the length written in the entry table
+        for (int i = 0; i < files.size(); i++) {
+            byte[] fileBytes = SteganographyUtils.getFileAsByteArray(files.get(i).toFile());
+            if (fileBytes.length != entryLengths[i]) {
+                throw new SteganographyException(
+                        "The directory can not be read!",
+                        "The file '" + new String(entryNames.get(i)) + "' was modified while it was encoded.");
+            }
+            byte[] entryBytes = EncryptionUtils.encryptBytes(fileBytes, encryptionMethodString);
+            target.encodeBytes(entryBytes, currentOffsetInBytes);
+            currentOffsetInBytes += entryBytes.length;
+        }
+
+        // return the image after encoding is done
+        return coverImage;
+    }
+
+    /**
+     * This method decodes the entry table of an archive from the pixels of an image.
+     * Only the header is decoded; the entries themselves are not touched.
+     */
+    public static List<ArchiveEntry> decodeArchiveEntries(BufferedImage coverImage,
+                                                          int bitsUsed, String methodString,
+                                                          String encryptionMethodString) {
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+
+        // validate the signature
+        SteganographyUtils.validateSignature(source, SIGNATURE, encryptionMethodString);
+        int offsetInBytes = SIGNATURE.getBytes().length;
+        int capacity = SteganographyUtils.getMaximumEncodingCapacity(coverImage, bitsUsed, methodString);
+
+        // obtain the number of entries (every entry uses at least 3 lengths in the entry table)
+        int entryCount = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        SteganographyUtils.validateLength(3L * LENGTH_BYTES * entryCount, offsetInBytes, capacity);
+
+        // obtain every entry from the entry table
+        List<ArchiveEntry> entries = new ArrayList<>();
+        for (int i = 0; i < entryCount; i++) {
+            int entryNameLength = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+            offsetInBytes += LENGTH_BYTES;
+            SteganographyUtils.validateLength(entryNameLength, offsetInBytes, capacity);
+
+            byte[] entryNameBytes = source.decodeBytes(offsetInBytes, entryNameLength);
+            String entryName = new String(EncryptionUtils.decryptBytes(entryNameBytes, encryptionMethodString));
+            offsetInBytes += entryNameLength;
+
+            int entryOffset = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+            offsetInBytes += LENGTH_BYTES;
+            int entryLength = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+            offsetInBytes += LENGTH_BYTES;
+            SteganographyUtils.validateLength(entryLength, entryOffset, capacity);
+
+            entries.add(new ArchiveEntry(entryName, entryOffset, entryLength));
+        }
+        return entries;
+    }
+
+    /**
+     * This method decodes the entry table of an archive from an image, with the
+     * provided 'bitsUsed' and the provided steganography method.
+     */
+    public static List<ArchiveEntry> decodeArchiveEntriesFromImageLSB(File selectedImage,
+                                                                      int bitsUsed, String methodString,
+                                                                      String encryptionMethodString) {
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        return decodeArchiveEntries(coverImage, bitsUsed, methodString, encryptionMethodString);
+    }
+
+    /**
+     * This method decodes a single entry of an archive from the pixels of an image.
+     * The entry bytes are decoded starting directly from the entry offset.
+     */
+    public static RawDecodedFile decodeArchiveEntry(BufferedImage coverImage, ArchiveEntry entry,
+                                                    int bitsUsed, String methodString,
+                                                    String encryptionMethodString) {
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+        byte[] entryBytes = source.decodeBytes(entry.getOffset(), entry.getLength());
+        entryBytes = EncryptionUtils.decryptBytes(entryBytes, encryptionMethodString);
+
+        // only keep the file name itself, without the directories
+        String entryName = entry.getName();
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return new RawDecodedFile(fileName, entryBytes);
+    }
+
+    /**
+     * This method decodes a single entry of an archive from an image, with the
+     * provided 'bitsUsed' and the provided steganography method.
+     */
+    public static RawDecodedFile decodeArchiveEntryFromImageLSB(File selectedImage, ArchiveEntry entry,
+                                                                int bitsUsed, String methodString,
+                                                                String encryptionMethodString) {
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        return decodeArchiveEntry(coverImage, entry, bitsUsed, methodString, encryptionMethodString);
+    }
+
+    /**
+     * This method decodes all the entries of an archive from the pixels of an image,
+     * in the order of the entry table.
+     */
+    public static List<RawDecodedFile> decodeArchive(BufferedImage coverImage,
+                                                     int bitsUsed, String methodString,
+                                                     String encryptionMethodString) {
+        List<RawDecodedFile> decodedFiles = new ArrayList<>();
+        for (ArchiveEntry entry : decodeArchiveEntries(coverImage, bitsUsed,
+                methodString, encryptionMethodString)) {
+            decodedFiles.add(decodeArchiveEntry(coverImage, entry,
+                    bitsUsed, methodString, encryptionMethodString));
+        }
+        return decodedFiles;
+    }
+}
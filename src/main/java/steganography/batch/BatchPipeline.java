@@ -0,0 +1,298 @@
+package steganography.batch;
+
+import exceptions.SteganographyException;
+import org.apache.commons.io.FilenameUtils;
+import steganography.SteganographyUtils;
+import steganography.engine.Carrier;
+import steganography.engine.EncodedCarrier;
+import steganography.engine.EngineParameters;
+import steganography.engine.LsbEngine;
+import steganography.engine.SteganographyEngine;
+import steganography.engine.SteganographyEngines;
+import steganography.metrics.MetricsRegistry;
+import steganography.profiling.Profiler;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class encodes the same file in many carriers (images), writing every encoded carrier
+ * in an output directory, in the format of the engine picked for it (see
+ * SteganographyEngines.findFastestEngine): a PNG image for LsbEngine, a JPEG image for JpegDctEngine.
+ *
+ * Processing a carrier is split in 5 stages: reading the carrier file, decoding it to pixels,
+ * encoding the file in the pixels (LSB, see SteganographyUtils), compressing the pixels as a PNG
+ * image and writing it. Every stage has its own threads, and the stages are connected by bounded
+ * queues, so while a carrier is compressed (which is the slowest stage), the next carriers are
+ * already being read, decoded and encoded. When a queue is full, the stage before it waits
+ * (so at most a few carriers are kept in memory, no matter how many carriers there are).
+ * The carriers of the other engines (which don't work on the pixels, e.g. JPEG images) are not
+ * decoded: they are encoded by their engine in the encoding stage, and skip the compressing stage.
+ *
+ * A carrier that fails in a stage skips the remaining stages, and its error is reported in its
+ * BatchResult; the other carriers are not affected.
+ */
+public class BatchPipeline {
+    private static final String LSB_OUTPUT_FORMAT = "png";
+
+    private final int bitsUsed;
+    private final String methodString;
+    private final String encryptionMethodString;
+    private final int cpuThreadCount;
+    private final int ioThreadCount;
+    private final int queueCapacity;
+
+    /**
+     * The carriers moving through the pipeline; the fields are filled in stage by stage,
+     * and released as soon as they are no longer needed.
+     */
+    private static class BatchItem {
+        private final File carrierFile;
+        private byte[] carrierBytes;
+        private Carrier carrier;
+        private SteganographyEngine engine;
+        private BufferedImage coverImage;
+        private byte[] outputBytes;
+        private String outputFormat;
+        private File outputFile;
+        private String errorMessage;
+
+        private BatchItem(File carrierFile) {
+            this.carrierFile = carrierFile;
+        }
+    }
+
+    /**
+     * A stage of the pipeline: the work done on a single carrier.
+     */
+    private interface Stage {
+        void process(BatchItem item) throws IOException;
+    }
+
+    // marks the end of the carriers in a queue
+    private static final BatchItem END_OF_ITEMS = new BatchItem(null);
+
+    /**
+     * Creates a pipeline that uses 'cpuThreadCount' threads for each CPU-heavy stage (decoding,
+     * encoding and compressing), 'ioThreadCount' threads for each I/O stage (reading and writing),
+     * and queues of 'queueCapacity' carriers between the stages.
+     */
+    public BatchPipeline(int bitsUsed, String methodString, String encryptionMethodString,
+                         int cpuThreadCount, int ioThreadCount, int queueCapacity) {
+        if (cpuThreadCount < 1 || ioThreadCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The thread counts and the queue capacity must be positive.");
+        }
+        this.bitsUsed = bitsUsed;
+        this.methodString = methodString;
+        this.encryptionMethodString = encryptionMethodString;
+        this.cpuThreadCount = cpuThreadCount;
+        this.ioThreadCount = ioThreadCount;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Creates a pipeline with a thread for each core in the CPU-heavy stages.
+     */
+    public BatchPipeline(int bitsUsed, String methodString, String encryptionMethodString) {
+        this(bitsUsed, methodString, encryptionMethodString,
+                Runtime.getRuntime().availableProcessors(), 2, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Encodes the selected file in every carrier, and writes the encoded carriers in the output
+     * directory (with the name of the carrier and the extension of their format). Returns the result of every
+     * carrier, in the order in which the carriers were finished.
+     */
+    public List<BatchResult> encodeFileInImages(List<File> carrierFiles, File selectedFile, File outputDirectory) {
+        // the file is read only once, and then encoded from memory in every carrier
+        byte[] fileBytes;
+        try {
+            fileBytes = Files.readAllBytes(selectedFile.toPath());
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+        String fileName = SteganographyUtils.getFileName(selectedFile);
+        EngineParameters parameters = new EngineParameters(bitsUsed, methodString, encryptionMethodString);
+
+        // create the queues between the stages (the first queue holds all the carriers)
+        BlockingQueue<BatchItem> readQueue = new ArrayBlockingQueue<>(carrierFiles.size() + 1);
+        BlockingQueue<BatchItem> decodeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<BatchItem> embedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<BatchItem> compressQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<BatchItem> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<BatchItem> doneQueue = new ArrayBlockingQueue<>(carrierFiles.size() + 1);
+        for (File carrierFile : carrierFiles) {
+            readQueue.add(new BatchItem(carrierFile));
+        }
+        readQueue.add(END_OF_ITEMS);
+
+        // start the stages
+        List<ExecutorService> executors = new ArrayList<>();
+        executors.add(startStage("read", ioThreadCount, readQueue, decodeQueue, item -> {
+            item.carrierBytes = Files.readAllBytes(item.carrierFile.toPath());
+        }));
+        executors.add(startStage("decode", cpuThreadCount, decodeQueue, embedQueue, item -> {
+            // pick the engine of the carrier; only the carriers of LsbEngine are decoded to pixels
+            // (which LsbEngine.supports already did, and the carrier kept)
+            Carrier carrier = new Carrier(ByteBuffer.wrap(item.carrierBytes));
+            item.carrierBytes = null;
+            item.engine = SteganographyEngines.findFastestEngine(carrier);
+            if (!LsbEngine.NAME.equals(item.engine.getName())) {
+                item.carrier = carrier;
+                return;
+            }
+            BufferedImage image = carrier.getImage();
+            Profiler.setCarrier(image);
+            item.coverImage = SteganographyUtils.createCopyOfImage(image);
+        }));
+        executors.add(startStage("embed", cpuThreadCount, embedQueue, compressQueue, item -> {
+            if (item.carrier != null) {
+                EncodedCarrier encodedCarrier = item.engine.encode(item.carrier, fileName,
+                        new ByteArrayInputStream(fileBytes), fileBytes.length, parameters);
+                item.carrier = null;
+                ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+                encodedCarrier.writeTo(outputBytes);
+                item.outputBytes = outputBytes.toByteArray();
+                item.outputFormat = encodedCarrier.getFormatName();
+                return;
+            }
+            SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(item.coverImage,
+                            bitsUsed, methodString),
+                    fileName, new ByteArrayInputStream(fileBytes), fileBytes.length, encryptionMethodString);
+            MetricsRegistry.recordCapacityUtilisation(
+                    SteganographyUtils.getEncodedFileLength(fileName, fileBytes.length),
+                    SteganographyUtils.getMaximumEncodingCapacity(item.coverImage, bitsUsed, methodString));
+        }));
+        executors.add(startStage("compress", cpuThreadCount, compressQueue, writeQueue, item -> {
+            if (item.coverImage == null) {
+                // already encoded by its engine
+                return;
+            }
+            ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+            Object event = Profiler.begin("writeImage");
+            try {
+                ImageIO.write(item.coverImage, LSB_OUTPUT_FORMAT, outputBytes);
+            } finally {
+                Profiler.end(event);
+            }
+            SteganographyUtils.releaseCopyOfImage(item.coverImage);
+            item.coverImage = null;
+            item.outputBytes = outputBytes.toByteArray();
+            item.outputFormat = LSB_OUTPUT_FORMAT;
+        }));
+        executors.add(startStage("write", ioThreadCount, writeQueue, doneQueue, item -> {
+            File outputFile = new File(outputDirectory,
+                    FilenameUtils.getBaseName(item.carrierFile.getName()) + "." + item.outputFormat);
+            Files.write(outputFile.toPath(), item.outputBytes);
+            item.outputBytes = null;
+            item.outputFile = outputFile;
+        }));
+
+        // wait for the carriers to reach the end of the pipeline
+        List<BatchResult> results = new ArrayList<>();
+        try {
+            for (BatchItem item = doneQueue.take(); item != END_OF_ITEMS; item = doneQueue.take()) {
+                results.add(new BatchResult(item.carrierFile, item.outputFile, item.errorMessage));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (ExecutorService executor : executors) {
+                executor.shutdownNow();
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Starts the threads of a stage. Every thread takes carriers from the input queue, processes
+     * them and puts them in the output queue (waiting while the output queue is full). The carriers
+     * that already failed are passed on without processing them.
+     *
+     * When a thread finds the end marker, it puts it back for the other threads of the stage;
+     * the last thread that ends (normally or not) puts it in the output queue.
+     */
+    private ExecutorService startStage(String stageName, int threadCount,
+                                              BlockingQueue<BatchItem> inputQueue,
+                                              BlockingQueue<BatchItem> outputQueue, Stage stage) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        AtomicInteger runningThreads = new AtomicInteger(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + stageName + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(() -> {
+                try {
+                    for (BatchItem item = inputQueue.take(); item != END_OF_ITEMS; item = inputQueue.take()) {
+                        if (item.errorMessage == null) {
+                            processItem(stage, item);
+                        }
+                        outputQueue.put(item);
+                    }
+                    inputQueue.put(END_OF_ITEMS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    // even if the thread failed, the last one must pass the end marker on (otherwise
+                    // the next stages, and encodeFileInImages, would wait for it forever)
+                    if (runningThreads.decrementAndGet() == 0) {
+                        try {
+                            outputQueue.put(END_OF_ITEMS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        return executor;
+    }
+
+    /**
+     * Processes a carrier in a stage, recording the error (and releasing the carrier's data) if it fails.
+     */
+    private void processItem(Stage stage, BatchItem item) {
+        Profiler.startOperation(bitsUsed, methodString, encryptionMethodString);
+        if (item.coverImage != null) {
+            Profiler.setCarrier(item.coverImage);
+        }
+        try {
+            stage.process(item);
+        } catch (SteganographyException e) {
+            item.errorMessage = e.getTitle() + " " + e.getMessage();
+        } catch (Throwable e) {
+            // any failure, even an Error (e.g. an OutOfMemoryError for a very large carrier), only fails the carrier
+            item.errorMessage = e.toString();
+        } finally {
+            Profiler.endOperation();
+        }
+        if (item.errorMessage != null) {
+            if (item.coverImage != null) {
+                SteganographyUtils.releaseCopyOfImage(item.coverImage);
+            }
+            item.carrierBytes = null;
+            item.carrier = null;
+            item.coverImage = null;
+            item.outputBytes = null;
+        }
+    }
+}
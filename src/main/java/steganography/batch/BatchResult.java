@@ -0,0 +1,35 @@
+package steganography.batch;
+
+import java.io.File;
+
+/**
+ * The result of processing a single carrier in a batch: the carrier, the file that was written
+ * (null if the carrier failed) and the error message (null if the carrier succeeded).
+ */
+public class BatchResult {
+    private final File carrierFile;
+    private final File outputFile;
+    private final String errorMessage;
+
+    public BatchResult(File carrierFile, File outputFile, String errorMessage) {
+        this.carrierFile = carrierFile;
+        this.outputFile = outputFile;
+        this.errorMessage = errorMessage;
+    }
+
+    public File getCarrierFile() {
+        return carrierFile;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isSuccessful() {
+        return errorMessage == null;
+    }
+}
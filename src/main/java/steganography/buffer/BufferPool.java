@@ -0,0 +1,122 @@
+package steganography.buffer;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps the large buffers (pixel buffers of the cover images, payload chunks etc.)
+ * that are no longer used, so that they can be reused instead of allocating new ones. When many
+ * carriers are processed one after the other (usually having the same size), almost no new
+ * buffers have to be allocated.
+ *
+ * The buffers (byte arrays) are grouped by their exact length, because the steganography
+ * methods use the whole array (e.g. all the pixels of an image).
+ *
+ * The pool keeps at most 'maximumRetainedBytes' bytes of buffers; the buffers released after
+ * that are simply dropped (and collected by the garbage collector). The buffers obtained from
+ * the pool are NOT cleared, so they must be completely overwritten before use.
+ *
+ * The number of hits (buffers reused from the pool) and misses (buffers allocated) is counted,
+ * so that the efficiency of the pool can be checked.
+ */
+public class BufferPool {
+    private static final Map<Integer, ArrayDeque<byte[]>> HEAP_BUFFERS = new HashMap<>();
+    private static long maximumRetainedBytes = Runtime.getRuntime().maxMemory() / 8;
+    private static long retainedHeapBytes;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong RELEASES = new AtomicLong();
+    private static final AtomicLong DROPS = new AtomicLong();
+
+    /**
+     * Returns a byte array of exactly 'length' bytes (with undefined content).
+     */
+    public static byte[] acquireBytes(int length) {
+        synchronized (HEAP_BUFFERS) {
+            ArrayDeque<byte[]> buffers = HEAP_BUFFERS.get(length);
+            if (buffers != null && !buffers.isEmpty()) {
+                retainedHeapBytes -= length;
+                HITS.incrementAndGet();
+                return buffers.pop();
+            }
+        }
+        MISSES.incrementAndGet();
+        return new byte[length];
+    }
+
+    /**
+     * Gives a byte array back to the pool. The array must not be used after it is released.
+     */
+    public static void releaseBytes(byte[] buffer) {
+        RELEASES.incrementAndGet();
+        synchronized (HEAP_BUFFERS) {
+            if (retainedHeapBytes + buffer.length > maximumRetainedBytes) {
+                DROPS.incrementAndGet();
+                return;
+            }
+            HEAP_BUFFERS.computeIfAbsent(buffer.length, length -> new ArrayDeque<>()).push(buffer);
+            retainedHeapBytes += buffer.length;
+        }
+    }
+
+    /**
+     * Sets the maximum number of bytes kept by the pool. The buffers already kept are all dropped.
+     */
+    public static void setMaximumRetainedBytes(long maximumRetainedBytes) {
+        synchronized (HEAP_BUFFERS) {
+            BufferPool.maximumRetainedBytes = maximumRetainedBytes;
+            HEAP_BUFFERS.clear();
+            retainedHeapBytes = 0;
+        }
+    }
+
+    /**
+     * Returns the number of buffers that were reused from the pool.
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the number of buffers that had to be allocated.
+     */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns the number of buffers given back to the pool.
+     */
+    public static long getReleaseCount() {
+        return RELEASES.get();
+    }
+
+    /**
+     * Returns the number of released buffers that were dropped, because the pool was full.
+     */
+    public static long getDropCount() {
+        return DROPS.get();
+    }
+
+    /**
+     * Returns the fraction of the requested buffers that were reused from the pool (between 0 and 1).
+     */
+    public static double getHitRatio() {
+        long hits = HITS.get();
+        long requests = hits + MISSES.get();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Resets all the statistics of the pool.
+     */
+    public static void resetStatistics() {
+        HITS.set(0);
+        MISSES.set(0);
+        RELEASES.set(0);
+        DROPS.set(0);
+    }
+}
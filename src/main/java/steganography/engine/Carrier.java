@@ -0,0 +1,229 @@
+package steganography.engine;
+
+import com.google.common.io.ByteStreams;
+import exceptions.SteganographyException;
+import steganography.SteganographyUtils;
+import utils.StreamUtils;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * A carrier is the file in which a payload is encoded (usually an image). The bytes of the
+ * file and the decoded image are only read when an engine needs them, and are then kept,
+ * so that probing the carrier with several engines doesn't read it several times.
+ *
+ * A carrier can also be in memory (e.g. uploaded, or read from a database), so that it never has
+ * to be written to a temporary file: in a byte buffer (heap or direct, whose remaining bytes are
+ * used as they are, without being copied, unless an engine needs them as an array), in an image
+ * input stream (which is read from its current position, every time it is needed), or read
+ * from an input stream (which can only be read once, so it is read at once).
+ */
+public class Carrier {
+    private final File file;
+    private final ByteBuffer buffer;
+    private final ImageInputStream imageStream;
+    private final long imageStreamStart;
+    private byte[] bytes;
+    private BufferedImage image;
+
+    public Carrier(File file) {
+        this.file = file;
+        this.buffer = null;
+        this.imageStream = null;
+        this.imageStreamStart = 0;
+    }
+
+    /**
+     * Creates a carrier from the remaining bytes of the buffer (the buffer must not be modified
+     * while the carrier is used; its position is not changed).
+     */
+    public Carrier(ByteBuffer buffer) {
+        this.file = null;
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.imageStream = null;
+        this.imageStreamStart = 0;
+    }
+
+    /**
+     * Creates a carrier from an image input stream, starting at its current position. The image
+     * input stream is not closed.
+     */
+    public Carrier(ImageInputStream imageStream) {
+        this.file = null;
+        this.buffer = null;
+        this.imageStream = imageStream;
+        try {
+            this.imageStreamStart = imageStream.getStreamPosition();
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+    }
+
+    /**
+     * Creates a carrier from all the bytes of the input stream, which are read at once. The input
+     * stream is not closed.
+     */
+    public Carrier(InputStream stream) {
+        this.file = null;
+        this.buffer = null;
+        this.imageStream = null;
+        this.imageStreamStart = 0;
+        try {
+            this.bytes = ByteStreams.toByteArray(stream);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+    }
+
+    /**
+     * Returns the carrier file, or null if the carrier is in memory.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the bytes of the carrier file, as they are stored on the disk.
+     */
+    public synchronized byte[] getBytes() {
+        if (bytes == null) {
+            try {
+                if (file != null) {
+                    bytes = Files.readAllBytes(file.toPath());
+                } else if (buffer != null) {
+                    bytes = new byte[buffer.remaining()];
+                    buffer.duplicate().get(bytes);
+                } else {
+                    imageStream.seek(imageStreamStart);
+                    bytes = ByteStreams.toByteArray(StreamUtils.asInputStream(imageStream));
+                }
+            } catch (IOException e) {
+                throw new SteganographyException(
+                        "The chosen image is invalid!",
+                        "Please select an image.");
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the carrier decoded as an image.
+     */
+    public synchronized BufferedImage getImage() {
+        if (image == null) {
+            if (file != null) {
+                image = SteganographyUtils.loadImage(file);
+            } else if (bytes != null) {
+                image = SteganographyUtils.loadImage(ByteBuffer.wrap(bytes));
+            } else if (buffer != null) {
+                image = SteganographyUtils.loadImage(buffer);
+            } else {
+                image = SteganographyUtils.loadImage(new UnflushedImageInputStream(imageStream, imageStreamStart));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns true if the carrier file starts with the given bytes (checking only the file header).
+     */
+    public boolean startsWith(int... headerBytes) {
+        // the header of a carrier in memory is checked without copying the carrier
+        byte[] carrierBytes = new byte[headerBytes.length];
+        int length;
+        synchronized (this) {
+            if (bytes != null || file != null) {
+                byte[] allBytes = getBytes();
+                length = Math.min(allBytes.length, carrierBytes.length);
+                System.arraycopy(allBytes, 0, carrierBytes, 0, length);
+            } else if (buffer != null) {
+                length = Math.min(buffer.remaining(), carrierBytes.length);
+                buffer.duplicate().get(carrierBytes, 0, length);
+            } else {
+                seekImageStreamStart();
+                try {
+                    length = Math.max(0, ByteStreams.read(StreamUtils.asInputStream(imageStream),
+                            carrierBytes, 0, carrierBytes.length));
+                } catch (IOException e) {
+                    length = 0;
+                }
+            }
+        }
+        if (length < headerBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < headerBytes.length; i++) {
+            if ((carrierBytes[i] & 0xFF) != headerBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A view of an image input stream (from a given position) that never flushes it: the image
+     * readers flush the bytes they have read, but the carrier must be able to read them again.
+     */
+    private static class UnflushedImageInputStream extends ImageInputStreamImpl {
+        private final ImageInputStream stream;
+        private final long start;
+
+        private UnflushedImageInputStream(ImageInputStream stream, long start) {
+            this.stream = stream;
+            this.start = start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            bitOffset = 0;
+            stream.seek(start + streamPos);
+            int value = stream.read();
+            if (value >= 0) {
+                streamPos++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            bitOffset = 0;
+            stream.seek(start + streamPos);
+            int readLength = stream.read(bytes, offset, length);
+            if (readLength > 0) {
+                streamPos += readLength;
+            }
+            return readLength;
+        }
+
+        @Override
+        public long length() {
+            try {
+                long length = stream.length();
+                return length < 0 ? -1 : length - start;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+
+    private void seekImageStreamStart() {
+        try {
+            imageStream.seek(imageStreamStart);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+    }
+}
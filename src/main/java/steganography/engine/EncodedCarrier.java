@@ -0,0 +1,104 @@
+package steganography.engine;
+
+import exceptions.SteganographyException;
+import steganography.profiling.Profiler;
+import utils.StreamUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The result of encoding a payload in a carrier: either an image (which is written in the
+ * given format, e.g. PNG for LSB steganography), or the bytes of the resulting file (when the
+ * engine works directly on the file, e.g. for JPEG images).
+ */
+public class EncodedCarrier {
+    private final String formatName;
+    private BufferedImage image;
+    private final byte[] bytes;
+
+    public EncodedCarrier(String formatName, BufferedImage image) {
+        this.formatName = formatName;
+        this.image = image;
+        this.bytes = null;
+    }
+
+    public EncodedCarrier(String formatName, byte[] bytes) {
+        this.formatName = formatName;
+        this.image = null;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the format of the encoded carrier (also used as the file extension).
+     */
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Returns the encoded carrier as an image (so that it can be displayed).
+     */
+    public BufferedImage getImage() {
+        if (image == null) {
+            try {
+                image = ImageIO.read(new ByteArrayInputStream(bytes));
+            } catch (IOException e) {
+                throw new SteganographyException(
+                        "Encoding error!",
+                        "The cover image can not be displayed.");
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes the encoded carrier, in its format, to the output. The image is written through a
+     * memory cache, so nothing is written to a temporary file (which ImageIO does by default).
+     * Throws a SteganographyException if there is no ImageIO writer for the format (and image).
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        Object event = Profiler.begin("writeImage");
+        try {
+            if (bytes != null) {
+                output.write(bytes);
+            } else {
+                try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+                    if (!ImageIO.write(image, formatName, imageOutput)) {
+                        throw new SteganographyException(
+                                "Saving error!",
+                                "The cover image can not be written as " + formatName.toUpperCase() + ".");
+                    }
+                }
+            }
+        } finally {
+            Profiler.end(event);
+        }
+    }
+
+    /**
+     * Writes the encoded carrier, in its format, to the channel (which is not closed).
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        if (bytes != null) {
+            Object event = Profiler.begin("writeImage");
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                Profiler.end(event);
+            }
+        } else {
+            writeTo(StreamUtils.asOutputStream(channel));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package steganography.engine;
+
+/**
+ * The parameters used by an engine when encoding / decoding a payload: the number of least
+ * significant bits used, the steganography method ("n" for every n bytes,
+ * "random,seed,lowerBound,upperBound", "fibonacci", "permutation,key" or "hamming,k"), and the
+ * encryption method. Engines that don't use some of the parameters (e.g. 'bitsUsed' for JPEG
+ * images) simply ignore them.
+ */
+public class EngineParameters {
+    private final int bitsUsed;
+    private final String methodString;
+    private final String encryptionMethodString;
+
+    public EngineParameters(int bitsUsed, String methodString, String encryptionMethodString) {
+        this.bitsUsed = bitsUsed;
+        this.methodString = methodString;
+        this.encryptionMethodString = encryptionMethodString;
+    }
+
+    public int getBitsUsed() {
+        return bitsUsed;
+    }
+
+    public String getMethodString() {
+        return methodString;
+    }
+
+    public String getEncryptionMethodString() {
+        return encryptionMethodString;
+    }
+}
@@ -0,0 +1,80 @@
+package steganography.engine;
+
+import exceptions.SteganographyException;
+import steganography.SteganographyUtils;
+import steganography.jpeg.JpegCoefficients;
+import steganography.jpeg.JpegUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The engine for DCT steganography in the coefficients of baseline JPEG images (see JpegUtils).
+ * The image is never decoded to pixels, and the encoded carrier is a JPEG image as well.
+ * The 'bitsUsed' parameter is ignored (every usable coefficient holds a single bit).
+ */
+public class JpegDctEngine implements SteganographyEngine {
+    public static final String NAME = "jpeg-dct";
+
+    // before LsbEngine: only the entropy-coded data is parsed and patched, without any pixel decoding
+    // (and the carrier stays a JPEG image)
+    private static final int PRIORITY = 10;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(Carrier carrier) {
+        if (!carrier.startsWith(0xFF, 0xD8)) {
+            return false;
+        }
+        try {
+            new JpegCoefficients(carrier.getBytes());
+            return true;
+        } catch (SteganographyException exception) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public long getCapacity(Carrier carrier, EngineParameters parameters) {
+        int coefficientCount = new JpegCoefficients(carrier.getBytes()).getCoefficientCount();
+        int capacity = SteganographyUtils.getEncodingCapacity(coefficientCount, 1, parameters.getMethodString());
+        return SteganographyUtils.getMaximumFileLength(capacity, "");
+    }
+
+    @Override
+    public boolean probe(Carrier carrier, EngineParameters parameters) {
+        return JpegUtils.hasEncodedFile(new JpegCoefficients(carrier.getBytes()),
+                parameters.getMethodString(), parameters.getEncryptionMethodString());
+    }
+
+    @Override
+    public EncodedCarrier encode(Carrier carrier, String payloadName, InputStream payload, long payloadLength,
+                                 EngineParameters parameters) {
+        if (payloadLength > Integer.MAX_VALUE) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+
+        // parse a fresh copy of the coefficients, in which we will encode the payload
+        JpegCoefficients coefficients = new JpegCoefficients(carrier.getBytes());
+        JpegUtils.encodeFile(coefficients, payloadName, payload, (int) payloadLength,
+                parameters.getMethodString(), parameters.getEncryptionMethodString());
+        return new EncodedCarrier("jpg", coefficients.toByteArray());
+    }
+
+    @Override
+    public String decode(Carrier carrier, OutputStream payload, EngineParameters parameters) {
+        return JpegUtils.decodeFile(new JpegCoefficients(carrier.getBytes()), payload,
+                parameters.getMethodString(), parameters.getEncryptionMethodString());
+    }
+}
@@ -0,0 +1,115 @@
+package steganography.engine;
+
+import exceptions.SteganographyException;
+import steganography.SteganographyUtils;
+import steganography.metrics.MetricsRegistry;
+import steganography.profiling.Profiler;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The engine for LSB steganography in the pixels of an image (see SteganographyUtils).
+ * Any image that can be read is supported; the encoded carrier is always a PNG image.
+ */
+public class LsbEngine implements SteganographyEngine {
+    public static final String NAME = "lsb";
+
+    // the lowest priority: the pixels are decoded, modified and compressed again as a PNG image
+    // (but any image is supported)
+    private static final int PRIORITY = 0;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(Carrier carrier) {
+        try {
+            carrier.getImage();
+            return true;
+        } catch (SteganographyException exception) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public long getCapacity(Carrier carrier, EngineParameters parameters) {
+        // the layout of the copy is found from a copy of a single pixel, so the image isn't copied
+        BufferedImage image = carrier.getImage();
+        BufferedImage pixelCopy = SteganographyUtils.createCopyOfImage(image.getSubimage(0, 0, 1, 1));
+        // (the samples of the copy, and the capacity, are limited by the length of an array)
+        long sampleCount = (long) SteganographyUtils.getSampleCount(pixelCopy) * image.getWidth() * image.getHeight();
+        int capacity = SteganographyUtils.getEncodingCapacity((int) Math.min(sampleCount, Integer.MAX_VALUE),
+                SteganographyUtils.getSampleBitsUsed(pixelCopy, parameters.getBitsUsed()),
+                parameters.getMethodString());
+        return SteganographyUtils.getMaximumFileLength(capacity, "");
+    }
+
+    @Override
+    public boolean probe(Carrier carrier, EngineParameters parameters) {
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(carrier.getImage());
+        try {
+            return SteganographyUtils.hasEncodedFile(SteganographyUtils.createDecodingSource(coverImage,
+                            parameters.getBitsUsed(), parameters.getMethodString()),
+                    parameters.getEncryptionMethodString());
+        } finally {
+            SteganographyUtils.releaseCopyOfImage(coverImage);
+        }
+    }
+
+    @Override
+    public EncodedCarrier encode(Carrier carrier, String payloadName, InputStream payload, long payloadLength,
+                                 EngineParameters parameters) {
+        if (payloadLength > Integer.MAX_VALUE) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+
+        Profiler.startOperation(parameters.getBitsUsed(), parameters.getMethodString(),
+                parameters.getEncryptionMethodString());
+        try {
+            // create a copy of the image, in which we will encode the payload
+            BufferedImage image = carrier.getImage();
+            Profiler.setCarrier(image);
+            BufferedImage coverImage = SteganographyUtils.createCopyOfImage(image);
+            SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(coverImage,
+                            parameters.getBitsUsed(), parameters.getMethodString()),
+                    payloadName, payload, (int) payloadLength, parameters.getEncryptionMethodString());
+            MetricsRegistry.recordCapacityUtilisation(
+                    SteganographyUtils.getEncodedFileLength(payloadName, payloadLength),
+                    SteganographyUtils.getMaximumEncodingCapacity(coverImage,
+                            parameters.getBitsUsed(), parameters.getMethodString()));
+            return new EncodedCarrier("png", coverImage);
+        } finally {
+            Profiler.endOperation();
+        }
+    }
+
+    @Override
+    public String decode(Carrier carrier, OutputStream payload, EngineParameters parameters) {
+        Profiler.startOperation(parameters.getBitsUsed(), parameters.getMethodString(),
+                parameters.getEncryptionMethodString());
+        BufferedImage image = carrier.getImage();
+        Profiler.setCarrier(image);
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(image);
+        try {
+            return SteganographyUtils.decodeFile(SteganographyUtils.createDecodingSource(coverImage,
+                            parameters.getBitsUsed(), parameters.getMethodString()),
+                    SteganographyUtils.getMaximumEncodingCapacity(coverImage,
+                            parameters.getBitsUsed(), parameters.getMethodString()),
+                    payload, parameters.getEncryptionMethodString());
+        } finally {
+            SteganographyUtils.releaseCopyOfImage(coverImage);
+            Profiler.endOperation();
+        }
+    }
+}
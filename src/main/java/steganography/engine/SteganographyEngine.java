@@ -0,0 +1,58 @@
+package steganography.engine;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An engine encodes payloads in carriers (and decodes them back), using a certain technique
+ * (LSB steganography in the pixels of an image, DCT steganography in the coefficients of a
+ * JPEG image etc.).
+ *
+ * The engines are discovered using a ServiceLoader (see SteganographyEngines): to add a new
+ * engine, implement this interface (with a public constructor without parameters) and add its
+ * class name to META-INF/services/steganography.engine.SteganographyEngine.
+ */
+public interface SteganographyEngine {
+    /**
+     * Returns the name of the engine, used to select it (e.g. "lsb").
+     */
+    String getName();
+
+    /**
+     * Returns true if the engine can encode payloads in the carrier (and decode them from it).
+     */
+    boolean supports(Carrier carrier);
+
+    /**
+     * Returns the priority of the engine: of the engines that support a carrier, the one with the
+     * highest priority is used (see SteganographyEngines.findFastestEngine). The priorities are a
+     * static ranking of the engines by the work they do for a carrier (e.g. an engine that doesn't
+     * decode the pixels of an image comes before one that does), not measured throughputs.
+     */
+    int getPriority();
+
+    /**
+     * Returns the number of payload bytes that can surely be encoded in the carrier.
+     */
+    long getCapacity(Carrier carrier, EngineParameters parameters);
+
+    /**
+     * Returns true if the carrier contains a payload encoded by this engine (with the given
+     * parameters). Only the beginning of the payload is checked.
+     */
+    boolean probe(Carrier carrier, EngineParameters parameters);
+
+    /**
+     * Encodes a payload of 'payloadLength' bytes (read from 'payload') in the carrier, and
+     * returns the encoded carrier. The carrier file itself is not modified.
+     * Throws a SteganographyException if the payload can't be encoded.
+     */
+    EncodedCarrier encode(Carrier carrier, String payloadName, InputStream payload, long payloadLength,
+                          EngineParameters parameters);
+
+    /**
+     * Decodes a payload from the carrier, writes it to the output, and returns its name.
+     * Throws a SteganographyException if there is no payload, or if it is corrupted.
+     */
+    String decode(Carrier carrier, OutputStream payload, EngineParameters parameters);
+}
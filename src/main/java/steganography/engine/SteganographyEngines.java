@@ -0,0 +1,152 @@
+package steganography.engine;
+
+import exceptions.SteganographyException;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+import utils.StreamUtils;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * This class contains the engines discovered using a ServiceLoader (all the engines listed in
+ * META-INF/services/steganography.engine.SteganographyEngine), and methods that select an engine
+ * and use it with files.
+ */
+public class SteganographyEngines {
+    private static final List<SteganographyEngine> ENGINES = loadEngines();
+
+    private static List<SteganographyEngine> loadEngines() {
+        List<SteganographyEngine> engines = new ArrayList<>();
+        for (SteganographyEngine engine : ServiceLoader.load(SteganographyEngine.class,
+                SteganographyEngine.class.getClassLoader())) {
+            engines.add(engine);
+        }
+        // by decreasing priority, so that findFastestEngine can stop at the first engine that supports a carrier
+        engines.sort(Comparator.comparingInt(SteganographyEngine::getPriority).reversed());
+        return Collections.unmodifiableList(engines);
+    }
+
+    /**
+     * Returns all the available engines, by decreasing priority.
+     */
+    public static List<SteganographyEngine> getEngines() {
+        return ENGINES;
+    }
+
+    /**
+     * Returns the engine with the given name.
+     * Throws a SteganographyException if there is no such engine.
+     */
+    public static SteganographyEngine getEngine(String name) {
+        for (SteganographyEngine engine : ENGINES) {
+            if (engine.getName().equals(name)) {
+                return engine;
+            }
+        }
+        throw new SteganographyException(
+                "Unknown engine!",
+                "There is no engine named '" + name + "'.");
+    }
+
+    /**
+     * Returns the fastest engine (the one with the highest priority) that supports the carrier.
+     * The engines with a lower priority are not checked (e.g. a JPEG image is not decoded to
+     * pixels, only to check that LsbEngine supports it as well).
+     * Throws a SteganographyException if no engine supports the carrier.
+     */
+    public static SteganographyEngine findFastestEngine(Carrier carrier) {
+        for (SteganographyEngine engine : ENGINES) {
+            if (engine.supports(carrier)) {
+                return engine;
+            }
+        }
+        throw new SteganographyException(
+                "The chosen image is invalid!",
+                "No engine supports the selected image.");
+    }
+
+    /**
+     * Encodes a file in the carrier, using the given engine. The file is streamed into the engine.
+     */
+    public static EncodedCarrier encodeFile(SteganographyEngine engine, Carrier carrier, File selectedFile,
+                                            EngineParameters parameters) {
+        try (InputStream fileStream = Files.newInputStream(selectedFile.toPath())) {
+            return engine.encode(carrier, SteganographyUtils.getFileName(selectedFile), fileStream,
+                    selectedFile.length(), parameters);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+    }
+
+    /**
+     * Encodes a payload of 'payloadLength' bytes (read from the 'payload' stream) in the carrier, using
+     * the given engine, and writes the encoded carrier to the output channel (which is not closed).
+     * Together with the carriers in memory (see Carrier), nothing is written to the disk.
+     */
+    public static void encodeFile(SteganographyEngine engine, Carrier carrier, String payloadName,
+                                  InputStream payload, long payloadLength, EngineParameters parameters,
+                                  WritableByteChannel output) {
+        EncodedCarrier encodedCarrier = engine.encode(carrier, payloadName, payload, payloadLength, parameters);
+        try {
+            encodedCarrier.writeTo(output);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "Saving error!",
+                    "The encoded image could not be saved.");
+        }
+    }
+
+    /**
+     * Encodes the remaining bytes of the 'payload' buffer (heap or direct, whose position is not
+     * changed) in the carrier, and writes the encoded carrier to the output channel.
+     */
+    public static void encodeFile(SteganographyEngine engine, Carrier carrier, String payloadName,
+                                  ByteBuffer payload, EngineParameters parameters, WritableByteChannel output) {
+        encodeFile(engine, carrier, payloadName, StreamUtils.asInputStream(payload), payload.remaining(),
+                parameters, output);
+    }
+
+    /**
+     * Encodes 'payloadLength' bytes of the 'payload' image input stream (from its current position)
+     * in the carrier, and writes the encoded carrier to the output channel.
+     */
+    public static void encodeFile(SteganographyEngine engine, Carrier carrier, String payloadName,
+                                  ImageInputStream payload, long payloadLength, EngineParameters parameters,
+                                  WritableByteChannel output) {
+        encodeFile(engine, carrier, payloadName, StreamUtils.asInputStream(payload), payloadLength,
+                parameters, output);
+    }
+
+    /**
+     * Decodes a file from the carrier, using the given engine, and writes it to the output channel
+     * (which is not closed) as it is decoded. Returns the name of the decoded file.
+     */
+    public static String decodeFile(SteganographyEngine engine, Carrier carrier, EngineParameters parameters,
+                                    WritableByteChannel output) {
+        return engine.decode(carrier, StreamUtils.asOutputStream(output), parameters);
+    }
+
+    /**
+     * Decodes a file from the carrier, using the given engine.
+     */
+    public static RawDecodedFile decodeFile(SteganographyEngine engine, Carrier carrier,
+                                            EngineParameters parameters) {
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+        String fileName = engine.decode(carrier, fileBytes, parameters);
+        return new RawDecodedFile(fileName, fileBytes.toByteArray());
+    }
+}
@@ -0,0 +1,237 @@
+package steganography.fec;
+
+import com.google.common.primitives.Ints;
+import encryption.EncryptionUtils;
+import exceptions.SteganographyException;
+import steganography.DecodingSource;
+import steganography.EncodingTarget;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * This class adds a forward error correction (FEC) layer to LSB steganography, using a
+ * Reed-Solomon code, so that an encoded file survives some modified bits in the cover image.
+ *
+ * The file is first encoded exactly as in SteganographyUtils (signature, file name, lengths,
+ * file bytes & checksums), in memory. These bytes are then split in blocks of
+ * '255 - paritySymbols' bytes, and every block is encoded as a Reed-Solomon codeword of 255 bytes.
+ * The codewords are interleaved (the first byte of every codeword, then the second byte of every
+ * codeword etc.), so that consecutive modified bytes in the cover image are spread across many
+ * codewords. The blocks are encoded and decoded in parallel.
+ *
+ * The encoded data has the following structure:
+ * - the header, as a single Reed-Solomon codeword with 16 parity bytes, containing:
+ *      - 40 bits (5 bytes): characters ISFEC (ImageSteganographyForwardErrorCorrection,
+ *                           a signature to know the image actually contains a protected file);
+ *      - 32 bits (4 bytes): the number of parity bytes of every codeword (the redundancy);
+ *      - 32 bits (4 bytes): the length of the protected bytes;
+ * - the interleaved codewords.
+ *
+ * Having 'paritySymbols' parity bytes, every codeword can have up to 'paritySymbols / 2'
+ * wrong bytes.
+ */
+public class FecUtils {
+    public static final int MIN_PARITY_SYMBOLS = 2;
+    public static final int MAX_PARITY_SYMBOLS = 128;
+
+    private static final String SIGNATURE = "ISFEC";
+    private static final int LENGTH_BYTES = 4;
+    private static final int HEADER_PARITY_SYMBOLS = 16;
+    private static final int HEADER_DATA_LENGTH = SIGNATURE.getBytes().length + 2 * LENGTH_BYTES;
+    private static final int HEADER_LENGTH = HEADER_DATA_LENGTH + HEADER_PARITY_SYMBOLS;
+
+    /**
+     * Validates the number of parity bytes. Throws a SteganographyException if it is not valid.
+     */
+    private static void validateParitySymbols(int paritySymbols) {
+        if (paritySymbols < MIN_PARITY_SYMBOLS || paritySymbols > MAX_PARITY_SYMBOLS) {
+            throw new SteganographyException(
+                    "Error correction error!",
+                    "The redundancy must be between " + MIN_PARITY_SYMBOLS
+                            + " and " + MAX_PARITY_SYMBOLS + " bytes.");
+        }
+    }
+
+    /**
+     * Returns the number of bytes obtained after protecting 'dataLength' bytes
+     * with 'paritySymbols' parity bytes for every codeword.
+     */
+    public static long getProtectedLength(long dataLength, int paritySymbols) {
+        int blockDataLength = ReedSolomon.MAX_CODEWORD_LENGTH - paritySymbols;
+        long blockCount = (dataLength + blockDataLength - 1) / blockDataLength;
+        return blockCount * ReedSolomon.MAX_CODEWORD_LENGTH;
+    }
+
+    /**
+     * Protects the given bytes using Reed-Solomon codewords with 'paritySymbols' parity bytes,
+     * and returns the interleaved codewords. The last block is padded with zeros.
+     */
+    public static byte[] protectBytes(byte[] bytes, int paritySymbols) {
+        ReedSolomon reedSolomon = new ReedSolomon(paritySymbols);
+        int blockDataLength = ReedSolomon.MAX_CODEWORD_LENGTH - paritySymbols;
+        int blockCount = (int) (getProtectedLength(bytes.length, paritySymbols) / ReedSolomon.MAX_CODEWORD_LENGTH);
+        byte[] protectedBytes = new byte[blockCount * ReedSolomon.MAX_CODEWORD_LENGTH];
+
+        // encode every block in parallel, and place its bytes in their interleaved positions
+        IntStream.range(0, blockCount).parallel().forEach(block -> {
+            byte[] codeword = new byte[ReedSolomon.MAX_CODEWORD_LENGTH];
+            int blockStart = block * blockDataLength;
+            System.arraycopy(bytes, blockStart, codeword, 0, Math.min(blockDataLength, bytes.length - blockStart));
+            reedSolomon.encode(codeword, blockDataLength);
+            for (int i = 0; i < codeword.length; i++) {
+                protectedBytes[i * blockCount + block] = codeword[i];
+            }
+        });
+        return protectedBytes;
+    }
+
+    /**
+     * Corrects the interleaved codewords (protected with 'paritySymbols' parity bytes) and returns
+     * the first 'length' bytes of data found in them.
+     * Throws a SteganographyException if a codeword has too many errors to be corrected.
+     */
+    public static byte[] recoverBytes(byte[] protectedBytes, int length, int paritySymbols) {
+        ReedSolomon reedSolomon = new ReedSolomon(paritySymbols);
+        int blockDataLength = ReedSolomon.MAX_CODEWORD_LENGTH - paritySymbols;
+        int blockCount = protectedBytes.length / ReedSolomon.MAX_CODEWORD_LENGTH;
+        byte[] bytes = new byte[length];
+
+        // gather and correct every codeword in parallel, and copy its data bytes in the result
+        AtomicBoolean uncorrectable = new AtomicBoolean(false);
+        IntStream.range(0, blockCount).parallel().forEach(block -> {
+            if (uncorrectable.get()) {
+                return;
+            }
+            byte[] codeword = new byte[ReedSolomon.MAX_CODEWORD_LENGTH];
+            for (int i = 0; i < codeword.length; i++) {
+                codeword[i] = protectedBytes[i * blockCount + block];
+            }
+            if (!reedSolomon.decode(codeword)) {
+                uncorrectable.set(true);
+                return;
+            }
+            int blockStart = block * blockDataLength;
+            System.arraycopy(codeword, 0, bytes, blockStart, Math.min(blockDataLength, length - blockStart));
+        });
+
+        if (uncorrectable.get()) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "The encoded file is too damaged to be recovered.");
+        }
+        return bytes;
+    }
+
+    /**
+     * This method encodes a file into an image, with the provided 'bitsUsed' and the provided
+     * steganography method, protecting it with 'paritySymbols' parity bytes for every 255 bytes.
+     */
+    public static BufferedImage encodeFileInImageLSB(File selectedImage, File selectedFile,
+                                                     int bitsUsed, String methodString,
+                                                     String encryptionMethodString, int paritySymbols) {
+        validateParitySymbols(paritySymbols);
+
+        // load the image and create a copy of it, in which we will encode our hidden file
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        EncodingTarget target = SteganographyUtils.createEncodingTarget(coverImage, bitsUsed, methodString);
+
+        // encode the file in memory, as it would be encoded without the error correction
+        String fileName = SteganographyUtils.getFileName(selectedFile);
+        long encodedFileLength = SteganographyUtils.getEncodedFileLength(fileName, selectedFile.length());
+        if (encodedFileLength > Integer.MAX_VALUE - ReedSolomon.MAX_CODEWORD_LENGTH) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+        byte[] encodedFileBytes = new byte[(int) encodedFileLength];
+        try (InputStream fileStream = Files.newInputStream(selectedFile.toPath())) {
+            SteganographyUtils.encodeFile((bytes, offset) -> System.arraycopy(bytes, 0,
+                            encodedFileBytes, offset, bytes.length),
+                    fileName, fileStream, (int) selectedFile.length(), encryptionMethodString);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+
+        // encode the header: signature, number of parity bytes and length, protected by its own parity bytes
+        byte[] header = new byte[HEADER_LENGTH];
+        System.arraycopy(EncryptionUtils.encryptBytes(SIGNATURE.getBytes(), encryptionMethodString),
+                0, header, 0, SIGNATURE.getBytes().length);
+        System.arraycopy(EncryptionUtils.encryptBytes(Ints.toByteArray(paritySymbols), encryptionMethodString),
+                0, header, SIGNATURE.getBytes().length, LENGTH_BYTES);
+        System.arraycopy(EncryptionUtils.encryptBytes(Ints.toByteArray(encodedFileBytes.length), encryptionMethodString),
+                0, header, SIGNATURE.getBytes().length + LENGTH_BYTES, LENGTH_BYTES);
+        new ReedSolomon(HEADER_PARITY_SYMBOLS).encode(header, HEADER_DATA_LENGTH);
+        target.encodeBytes(header, 0);
+
+        // encode the protected bytes, after the header
+        target.encodeBytes(protectBytes(encodedFileBytes, paritySymbols), HEADER_LENGTH);
+
+        // return the image after encoding is done
+        return coverImage;
+    }
+
+    /**
+     * This method decodes a file protected with error correction from an image, with the provided
+     * 'bitsUsed' and the provided steganography method. The number of parity bytes is read from the
+     * encoded header.
+     */
+    public static RawDecodedFile decodeFileFromImageLSB(File selectedImage,
+                                                        int bitsUsed, String methodString,
+                                                        String encryptionMethodString) {
+        // load the image and create the source of its pixels
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+        int capacity = SteganographyUtils.getMaximumEncodingCapacity(coverImage, bitsUsed, methodString);
+
+        // decode and correct the header
+        byte[] header = source.decodeBytes(0, HEADER_LENGTH);
+        if (!new ReedSolomon(HEADER_PARITY_SYMBOLS).decode(header)) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+
+        // validate the signature, the number of parity bytes and the length
+        int signatureLength = SIGNATURE.getBytes().length;
+        String signature = new String(EncryptionUtils.decryptBytes(
+                Arrays.copyOfRange(header, 0, signatureLength), encryptionMethodString));
+        int paritySymbols = Ints.fromByteArray(EncryptionUtils.decryptBytes(
+                Arrays.copyOfRange(header, signatureLength, signatureLength + LENGTH_BYTES), encryptionMethodString));
+        int encodedFileLength = Ints.fromByteArray(EncryptionUtils.decryptBytes(
+                Arrays.copyOfRange(header, signatureLength + LENGTH_BYTES, HEADER_DATA_LENGTH), encryptionMethodString));
+        if (!SIGNATURE.equals(signature)
+                || paritySymbols < MIN_PARITY_SYMBOLS || paritySymbols > MAX_PARITY_SYMBOLS) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+        SteganographyUtils.validateLength(encodedFileLength, 0, capacity);
+        long protectedLength = getProtectedLength(encodedFileLength, paritySymbols);
+        SteganographyUtils.validateLength(protectedLength, HEADER_LENGTH, capacity);
+
+        // decode and correct the protected bytes
+        byte[] protectedBytes = source.decodeBytes(HEADER_LENGTH, (int) protectedLength);
+        byte[] encodedFileBytes = recoverBytes(protectedBytes, encodedFileLength, paritySymbols);
+
+        // decode the file from the corrected bytes, as it would be decoded without the error correction
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+        String fileName = SteganographyUtils.decodeFile((offset, length) -> {
+                    SteganographyUtils.validateLength(length, offset, encodedFileBytes.length);
+                    return Arrays.copyOfRange(encodedFileBytes, offset, offset + length);
+                },
+                encodedFileBytes.length, fileBytes, encryptionMethodString);
+        return new RawDecodedFile(fileName, fileBytes.toByteArray());
+    }
+}
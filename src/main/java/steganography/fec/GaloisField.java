@@ -0,0 +1,83 @@
+package steganography.fec;
+
+/**
+ * This class contains the arithmetic of the GF(256) finite field (the field of the bytes),
+ * used by the Reed-Solomon code. Every operation is done using precomputed tables, so that
+ * no loop or modulo is needed when encoding or decoding.
+ *
+ * The field is generated by the primitive polynomial x^8 + x^4 + x^3 + x^2 + 1 (0x11D),
+ * with the generator element (alpha) equal to 2.
+ */
+public class GaloisField {
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+
+    /**
+     * EXP[i] = alpha^i. The table is doubled in size, so that EXP[LOG[a] + LOG[b]]
+     * never needs a modulo.
+     */
+    private static final int[] EXP = new int[512];
+
+    /**
+     * LOG[alpha^i] = i. LOG[0] is not defined (and never used).
+     */
+    private static final int[] LOG = new int[256];
+
+    /**
+     * MULTIPLICATION[(a << 8) | b] = a * b, for all the 256 * 256 pairs of bytes.
+     */
+    private static final byte[] MULTIPLICATION = new byte[256 * 256];
+
+    static {
+        // compute the powers of alpha and their logarithms
+        int value = 1;
+        for (int i = 0; i < 255; i++) {
+            EXP[i] = value;
+            LOG[value] = i;
+            value <<= 1;
+            if ((value & 0x100) != 0) {
+                value ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+        for (int i = 255; i < EXP.length; i++) {
+            EXP[i] = EXP[i - 255];
+        }
+
+        // compute the multiplication table
+        for (int a = 1; a < 256; a++) {
+            for (int b = 1; b < 256; b++) {
+                MULTIPLICATION[(a << 8) | b] = (byte) EXP[LOG[a] + LOG[b]];
+            }
+        }
+    }
+
+    /**
+     * Returns alpha^power (the power can be any non-negative int).
+     */
+    public static int exp(int power) {
+        return EXP[power % 255];
+    }
+
+    /**
+     * Returns a * b, in GF(256).
+     */
+    public static int multiply(int a, int b) {
+        return MULTIPLICATION[(a << 8) | b] & 0xFF;
+    }
+
+    /**
+     * Returns a / b, in GF(256). The divisor must not be 0.
+     */
+    public static int divide(int a, int b) {
+        if (a == 0) {
+            return 0;
+        }
+        return EXP[LOG[a] + 255 - LOG[b]];
+    }
+
+    /**
+     * Returns the inverse of a (1 / a), in GF(256). The value must not be 0.
+     */
+    public static int inverse(int a) {
+        return EXP[255 - LOG[a]];
+    }
+}
@@ -0,0 +1,193 @@
+package steganography.fec;
+
+/**
+ * A Reed-Solomon code over GF(256), with a configurable number of parity bytes.
+ * A codeword contains at most 255 bytes: the data bytes, followed by the parity bytes.
+ * Shorter codewords (less data bytes) are also supported.
+ *
+ * Having 'paritySymbols' parity bytes, up to 'paritySymbols / 2' wrong bytes (anywhere
+ * in the codeword) can be corrected.
+ *
+ * The polynomials are stored as int arrays. The generator polynomial and the codewords
+ * have the highest degree coefficient first; the error locator and the error evaluator
+ * polynomials have the lowest degree coefficient first.
+ */
+public class ReedSolomon {
+    public static final int MAX_CODEWORD_LENGTH = 255;
+
+    private final int paritySymbols;
+    private final int[] generator;
+
+    public ReedSolomon(int paritySymbols) {
+        this.paritySymbols = paritySymbols;
+
+        // the generator polynomial is (x - alpha^0) * (x - alpha^1) * ... * (x - alpha^(paritySymbols - 1))
+        int[] polynomial = {1};
+        for (int i = 0; i < paritySymbols; i++) {
+            int[] product = new int[polynomial.length + 1];
+            for (int j = 0; j < polynomial.length; j++) {
+                product[j] ^= polynomial[j];
+                product[j + 1] ^= GaloisField.multiply(polynomial[j], GaloisField.exp(i));
+            }
+            polynomial = product;
+        }
+        this.generator = polynomial;
+    }
+
+    public int getParitySymbols() {
+        return paritySymbols;
+    }
+
+    /**
+     * Encodes the first 'dataLength' bytes of the codeword: the parity bytes are computed
+     * and written in the codeword, right after the data bytes. The codeword must have
+     * exactly 'dataLength + paritySymbols' bytes.
+     */
+    public void encode(byte[] codeword, int dataLength) {
+        // the parity bytes are the remainder of the division of the data by the generator
+        // polynomial, computed with a shift register
+        int[] parity = new int[paritySymbols];
+        for (int i = 0; i < dataLength; i++) {
+            int feedback = (codeword[i] & 0xFF) ^ parity[0];
+            for (int j = 0; j < paritySymbols - 1; j++) {
+                parity[j] = parity[j + 1] ^ GaloisField.multiply(feedback, generator[j + 1]);
+            }
+            parity[paritySymbols - 1] = GaloisField.multiply(feedback, generator[paritySymbols]);
+        }
+
+        // write the parity bytes after the data bytes
+        for (int j = 0; j < paritySymbols; j++) {
+            codeword[dataLength + j] = (byte) parity[j];
+        }
+    }
+
+    /**
+     * Computes the syndromes of a codeword (the values of the codeword polynomial in the
+     * roots of the generator polynomial). All the syndromes are 0 if the codeword has no errors.
+     * Returns true if at least one syndrome is not 0.
+     */
+    private boolean computeSyndromes(byte[] codeword, int[] syndromes) {
+        boolean hasErrors = false;
+        for (int i = 0; i < paritySymbols; i++) {
+            int root = GaloisField.exp(i);
+            int value = 0;
+            for (byte codewordByte : codeword) {
+                value = GaloisField.multiply(value, root) ^ (codewordByte & 0xFF);
+            }
+            syndromes[i] = value;
+            hasErrors |= value != 0;
+        }
+        return hasErrors;
+    }
+
+    /**
+     * Corrects the errors of a codeword, in place (the codeword can be shorter than 255 bytes).
+     * Returns false if the codeword has too many errors to be corrected.
+     */
+    public boolean decode(byte[] codeword) {
+        // compute the syndromes; if they are all 0, there is nothing to correct
+        int[] syndromes = new int[paritySymbols];
+        if (!computeSyndromes(codeword, syndromes)) {
+            return true;
+        }
+
+        // find the error locator polynomial, using the Berlekamp-Massey algorithm
+        int[] locator = new int[paritySymbols + 1];
+        int[] previousLocator = new int[paritySymbols + 1];
+        locator[0] = 1;
+        previousLocator[0] = 1;
+        int errorCount = 0;
+        int shift = 1;
+        int previousDiscrepancy = 1;
+        for (int n = 0; n < paritySymbols; n++) {
+            // compute the discrepancy between the syndrome and the current locator's prediction
+            int discrepancy = syndromes[n];
+            for (int i = 1; i <= errorCount; i++) {
+                discrepancy ^= GaloisField.multiply(locator[i], syndromes[n - i]);
+            }
+
+            if (discrepancy == 0) {
+                shift++;
+                continue;
+            }
+
+            // adjust the locator: locator -= (discrepancy / previousDiscrepancy) * x^shift * previousLocator
+            int[] oldLocator = locator.clone();
+            int coefficient = GaloisField.divide(discrepancy, previousDiscrepancy);
+            for (int i = 0; i + shift <= paritySymbols; i++) {
+                locator[i + shift] ^= GaloisField.multiply(coefficient, previousLocator[i]);
+            }
+            if (2 * errorCount <= n) {
+                errorCount = n + 1 - errorCount;
+                previousLocator = oldLocator;
+                previousDiscrepancy = discrepancy;
+                shift = 1;
+            } else {
+                shift++;
+            }
+        }
+        if (2 * errorCount > paritySymbols) {
+            return false;
+        }
+
+        // compute the error evaluator polynomial: (syndromes * locator) mod x^paritySymbols
+        int[] evaluator = new int[paritySymbols];
+        for (int i = 0; i < paritySymbols; i++) {
+            for (int j = 0; j <= Math.min(i, errorCount); j++) {
+                evaluator[i] ^= GaloisField.multiply(syndromes[i - j], locator[j]);
+            }
+        }
+
+        // find the error positions (the roots of the locator, using a Chien search),
+        // and the error values (using the Forney algorithm)
+        int foundErrors = 0;
+        for (int position = 0; position < codeword.length; position++) {
+            // the byte at 'position' corresponds to the power 'degree' of the codeword polynomial
+            int degree = codeword.length - 1 - position;
+            int locatorValue = GaloisField.exp(degree);
+            int inverseLocatorValue = GaloisField.inverse(locatorValue);
+
+            // evaluate the locator and its formal derivative in the inverse of the locator value
+            int value = 0;
+            int derivative = 0;
+            int power = 1;
+            for (int i = 0; i <= errorCount; i++) {
+                int term = GaloisField.multiply(locator[i], power);
+                value ^= term;
+                if ((i & 1) == 1) {
+                    // the odd terms of the locator give the derivative (divided by x)
+                    derivative ^= term;
+                }
+                power = GaloisField.multiply(power, inverseLocatorValue);
+            }
+            if (value != 0) {
+                continue;
+            }
+
+            // the derivative was computed as x * locator'(x), so we divide it by x
+            derivative = GaloisField.multiply(derivative, locatorValue);
+            if (derivative == 0) {
+                return false;
+            }
+
+            // evaluate the error evaluator in the inverse of the locator value
+            int evaluatorValue = 0;
+            power = 1;
+            for (int i = 0; i < paritySymbols; i++) {
+                evaluatorValue ^= GaloisField.multiply(evaluator[i], power);
+                power = GaloisField.multiply(power, inverseLocatorValue);
+            }
+
+            // error value = locatorValue * evaluator(1 / locatorValue) / locator'(1 / locatorValue)
+            int errorValue = GaloisField.divide(GaloisField.multiply(locatorValue, evaluatorValue), derivative);
+            codeword[position] ^= (byte) errorValue;
+            foundErrors++;
+        }
+        if (foundErrors != errorCount) {
+            return false;
+        }
+
+        // make sure the corrected codeword is a valid one
+        return !computeSyndromes(codeword, syndromes);
+    }
+}
@@ -1,49 +1,76 @@
 package steganography.fibonacci;
 
 /**
- * Not currently used. An attempted encoding using the fibonacci function was present,
- * but the quick increasing of the fibonacci function values made it unusable without
- * any other modifications.
+ * This class contains the "fibonacci" steganography method. An attempted encoding using the
+ * fibonacci numbers themselves as offsets (byte 0, byte 1, byte 2, byte 3, byte 5, byte 8 etc.)
+ * was present, but the quick increasing of the fibonacci function values made it unusable: only
+ * about 30 bytes of a large image could be reached.
+ *
+ * Instead, the used bytes are spread over the whole cover with the golden ratio (as in fibonacci
+ * hashing): the i-th used byte is (i * step) modulo the number of bytes of the cover, where the step
+ * is the integer closest to (cover length / golden ratio) that is coprime with the cover length.
+ * Since the step is coprime with the cover length, the sequence wraps around the cover and visits
+ * every byte exactly once (so the capacity is the same as with the method "1"), and since the step
+ * is a golden ratio of the cover length, consecutive bytes are always far apart, and every prefix of
+ * the sequence is spread evenly over the cover (like the fibonacci lattices).
+ *
+ * The step is computed once for every encoding / decoding (in a few GCDs), and every index of the
+ * sequence is computed in O(1), so the encoding and the decoding can start at any offset (for the
+ * chunks of a file).
  */
 public class FibonacciUtils {
+    public static final String METHOD_NAME = "fibonacci";
+
     /**
      * The golden ratio, stored in a constant so that we calculate it only once.
      */
     private static final double GOLDEN_RATIO = (1 + Math.sqrt(5)) / 2.0;
 
     /**
-     * This method returns the next fibonacci number after a given fibonacci number.
-     * It uses one of the properties of fibonacci numbers: when multiplied with the
-     * golden ratio = 1.618..., and rounded, the next fibonacci number is obtained.
-     * Complexity: O(1).
+     * Returns true if the steganography method is the fibonacci method.
      */
-    public static int getNextFibonacciNumber(int currentNumber) {
-        return (int) Math.round(currentNumber * GOLDEN_RATIO);
+    public static boolean isFibonacciMethod(String methodString) {
+        return methodString.equals(METHOD_NAME);
     }
 
     /**
-     * This method returns the nth fibonacci number, n given as a parameter.
-     * Complexity: O(n).
+     * Returns the step of the sequence for a cover of 'coverLength' bytes: the integer closest to
+     * coverLength / golden ratio which is coprime with coverLength (so that the sequence visits all
+     * the bytes).
      */
-    public static int getNthFibonacciNumber(int n) {
-        // initialization
-        int f1 = 1;
-        int f2 = 2;
-        int f3;
-
-        // if our n is 0 (the first number), we return 1
-        if (n == 0) {
-            return f1;
+    public static int getStep(int coverLength) {
+        if (coverLength <= 2) {
+            return 1;
         }
+        // search around coverLength / golden ratio: for every distance, the step above it is tried first
+        int goldenStep = (int) Math.round(coverLength / GOLDEN_RATIO);
+        for (int distance = 0; ; distance++) {
+            if (isCoprime(goldenStep + distance, coverLength)) {
+                return goldenStep + distance;
+            }
+            if (isCoprime(goldenStep - distance, coverLength)) {
+                return goldenStep - distance;
+            }
+        }
+    }
 
-        // if our n is >= 2, we compute the next fibonacci numbers
-        for (int i = 2; i <= n; i++) {
-            f3 = f1 + f2;
-            f1 = f2;
-            f2 = f3;
+    /**
+     * Returns the index (in the cover) of the byte used for the 'sequenceIndex'-th encoded bits.
+     * Throws an ArrayIndexOutOfBoundsException if the sequence has already visited all the bytes.
+     */
+    public static int getCoverIndex(long sequenceIndex, int coverLength, int step) {
+        if (sequenceIndex < 0 || sequenceIndex >= coverLength) {
+            throw new ArrayIndexOutOfBoundsException("Sequence index " + sequenceIndex + " out of " + coverLength);
         }
+        return (int) (sequenceIndex * step % coverLength);
+    }
 
-        // we return f2 (as that will be the nth number).
-        return f2;
+    private static boolean isCoprime(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a == 1;
     }
 }
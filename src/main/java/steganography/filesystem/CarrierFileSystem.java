@@ -0,0 +1,347 @@
+package steganography.filesystem;
+
+import exceptions.SteganographyException;
+import steganography.DecodingSource;
+import steganography.EncodedFileChannel;
+import steganography.SteganographyUtils;
+import steganography.archive.ArchiveEntry;
+import steganography.archive.ArchiveUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A read-only file system containing the files encoded in a carrier image: either the single file
+ * encoded by SteganographyUtils (in the root directory, with its encoded name), or all the entries
+ * of an archive encoded by ArchiveUtils (in the directories given by their entry names).
+ *
+ * Nothing is decoded when the file system is created: the image is loaded and the header (the file
+ * name, or the entry table) is decoded the first time the file system is used, and the files are
+ * decoded only when they are read, only the bytes that are read (see EncodedFileChannel).
+ */
+public class CarrierFileSystem extends FileSystem {
+    private final CarrierFileSystemProvider provider;
+    private final Path carrierFile;
+    private final int bitsUsed;
+    private final String methodString;
+    private final String encryptionMethodString;
+    private volatile boolean open = true;
+    private Map<String, Node> nodes;
+    private BufferedImage coverImage;
+    private final Set<EncodedFileChannel> openChannels = new HashSet<>();
+
+    /**
+     * A file or a directory of the file system.
+     */
+    static class Node {
+        final boolean directory;
+        final long size;
+        final Function<Runnable, EncodedFileChannel> channelOpener;
+        final Set<String> children = new TreeSet<>();
+
+        Node(boolean directory, long size, Function<Runnable, EncodedFileChannel> channelOpener) {
+            this.directory = directory;
+            this.size = size;
+            this.channelOpener = channelOpener;
+        }
+    }
+
+    CarrierFileSystem(CarrierFileSystemProvider provider, Path carrierFile, int bitsUsed, String methodString,
+                      String encryptionMethodString) {
+        this.provider = provider;
+        this.carrierFile = carrierFile;
+        this.bitsUsed = bitsUsed;
+        this.methodString = methodString;
+        this.encryptionMethodString = encryptionMethodString;
+    }
+
+    /**
+     * Returns the carrier image file.
+     */
+    public Path getCarrierFile() {
+        return carrierFile;
+    }
+
+    /**
+     * Returns the node found at the path, or null if there is none.
+     */
+    Node getNode(CarrierPath path) throws IOException {
+        return getNodes().get(path.toAbsolutePath().normalize().toString());
+    }
+
+    boolean exists(CarrierPath path) throws IOException {
+        return getNode(path) != null;
+    }
+
+    /**
+     * Returns the nodes of the file system, by their absolute path, decoding the header of the
+     * carrier the first time.
+     */
+    private synchronized Map<String, Node> getNodes() throws IOException {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+        if (nodes == null) {
+            // load the carrier and create the copy from which the files are decoded (kept until the
+            // file system is closed, unless there is nothing to decode from it)
+            BufferedImage decodedImage = null;
+            try {
+                decodedImage = SteganographyUtils.createCopyOfImage(
+                        SteganographyUtils.loadImage(carrierFile.toFile()));
+                nodes = decodeNodes(decodedImage);
+                coverImage = decodedImage;
+            } catch (SteganographyException e) {
+                throw new IOException(e.getTitle() + " " + e.getMessage(), e);
+            } finally {
+                if (nodes == null && decodedImage != null) {
+                    SteganographyUtils.releaseCopyOfImage(decodedImage);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private Map<String, Node> decodeNodes(BufferedImage coverImage) throws IOException {
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+        int capacity = SteganographyUtils.getMaximumEncodingCapacity(coverImage, bitsUsed, methodString);
+
+        Map<String, Node> decodedNodes = new HashMap<>();
+        decodedNodes.put("/", new Node(true, 0, null));
+        if (SteganographyUtils.hasEncodedFile(source, encryptionMethodString)) {
+            // a single encoded file (every channel decodes its header again, which is only a few bytes)
+            try (EncodedFileChannel channel = SteganographyUtils.openEncodedFile(source, capacity,
+                    encryptionMethodString)) {
+                addNode(decodedNodes, channel.getFileName(), new Node(false, channel.size(),
+                        closeAction -> SteganographyUtils.openEncodedFile(source, capacity,
+                                encryptionMethodString, closeAction)));
+            }
+        } else {
+            // an archive (throws a SteganographyException if there is no archive either)
+            for (ArchiveEntry entry : ArchiveUtils.decodeArchiveEntries(coverImage, bitsUsed,
+                    methodString, encryptionMethodString)) {
+                addNode(decodedNodes, entry.getName(), new Node(false, entry.getLength(),
+                        closeAction -> new EncodedFileChannel(source, entry.getName(), entry.getLength(),
+                                entry.getOffset(), Math.max(1, entry.getLength()), 0, encryptionMethodString,
+                                closeAction)));
+            }
+        }
+        return decodedNodes;
+    }
+
+    /**
+     * Opens a channel over a file node. The channel is closed when the file system is closed, and
+     * the copy of the carrier is only given back to the buffer pool once all the channels are closed.
+     */
+    synchronized EncodedFileChannel newChannel(Node node) {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+        // the close action only runs after the channel is created, so it can refer to it
+        EncodedFileChannel[] channel = new EncodedFileChannel[1];
+        channel[0] = node.channelOpener.apply(() -> channelClosed(channel[0]));
+        openChannels.add(channel[0]);
+        return channel[0];
+    }
+
+    private synchronized void channelClosed(EncodedFileChannel channel) {
+        openChannels.remove(channel);
+        releaseCoverImageIfUnused();
+    }
+
+    /**
+     * Gives the copy of the carrier back to the buffer pool, once the file system and all its
+     * channels are closed.
+     */
+    private synchronized void releaseCoverImageIfUnused() {
+        if (!open && openChannels.isEmpty() && coverImage != null) {
+            SteganographyUtils.releaseCopyOfImage(coverImage);
+            coverImage = null;
+        }
+    }
+
+    /**
+     * Adds a file node, and the directories containing it.
+     */
+    private void addNode(Map<String, Node> decodedNodes, String name, Node node) {
+        CarrierPath path = new CarrierPath(this, "/" + name).normalize();
+        if (path.getNameCount() == 0 || decodedNodes.containsKey(path.toString())) {
+            return;
+        }
+        decodedNodes.put(path.toString(), node);
+        for (CarrierPath child = path, parent = path.getParent(); parent != null;
+             child = parent, parent = parent.getParent()) {
+            Node parentNode = decodedNodes.computeIfAbsent(parent.toString(), key -> new Node(true, 0, null));
+            parentNode.children.add(child.getFileName().toString());
+        }
+    }
+
+    @Override
+    public FileSystemProvider provider() {
+        return provider;
+    }
+
+    /**
+     * Closes the file system and the channels opened from it, and gives the copy of the carrier back
+     * to the buffer pool. A channel that is being read is closed (and the copy released) when the read
+     * ends.
+     */
+    @Override
+    public void close() {
+        // the channels are closed without holding the lock of the file system, since a channel that
+        // is closed by another thread (holding its own lock) needs it to be removed
+        EncodedFileChannel[] channels;
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            nodes = null;
+            channels = openChannels.toArray(new EncodedFileChannel[0]);
+            provider.removeFileSystem(carrierFile);
+        }
+        for (EncodedFileChannel channel : channels) {
+            channel.close();
+        }
+        releaseCoverImageIfUnused();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String getSeparator() {
+        return "/";
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return Collections.singletonList(new CarrierPath(this, "/"));
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return Collections.singleton("basic");
+    }
+
+    @Override
+    public CarrierPath getPath(String first, String... more) {
+        StringBuilder path = new StringBuilder(first);
+        for (String name : more) {
+            if (!name.isEmpty()) {
+                path.append('/').append(name);
+            }
+        }
+        return new CarrierPath(this, path.toString());
+    }
+
+    /**
+     * Returns a matcher for "glob:" patterns (with '*', '**', '?', '[...]' and '{...}', like the
+     * default file system) or "regex:" patterns, matched against the string of the paths.
+     */
+    @Override
+    public PathMatcher getPathMatcher(String syntaxAndPattern) {
+        int separator = syntaxAndPattern.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("The pattern should be 'syntax:pattern'.");
+        }
+        String syntax = syntaxAndPattern.substring(0, separator);
+        String pattern = syntaxAndPattern.substring(separator + 1);
+        Pattern regex;
+        if (syntax.equalsIgnoreCase("regex")) {
+            regex = Pattern.compile(pattern);
+        } else if (syntax.equalsIgnoreCase("glob")) {
+            regex = Pattern.compile(convertGlobToRegex(pattern));
+        } else {
+            throw new UnsupportedOperationException("Unsupported pattern syntax: " + syntax);
+        }
+        return path -> regex.matcher(path.toString()).matches();
+    }
+
+    private static String convertGlobToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char character = glob.charAt(i);
+            switch (character) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Missing ']' in the glob pattern.");
+                    }
+                    String characters = glob.substring(i + 1, end).replace("\\", "\\\\");
+                    regex.append('[').append(characters.startsWith("!") ? "^" + characters.substring(1) : characters)
+                            .append(']');
+                    i = end;
+                    break;
+                case '{':
+                    regex.append("(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    regex.append(')');
+                    inGroup = false;
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                case '\\':
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(character)));
+            }
+        }
+        return regex.toString();
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        throw new UnsupportedOperationException("A carrier file system has no users.");
+    }
+
+    @Override
+    public WatchService newWatchService() {
+        throw new UnsupportedOperationException("A carrier file system can not be watched.");
+    }
+}
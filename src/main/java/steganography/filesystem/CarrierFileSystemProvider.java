@@ -0,0 +1,399 @@
+package steganography.filesystem;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The provider of the carrier file systems (see CarrierFileSystem), for the "islsb" URI scheme.
+ * The URIs contain the URI of the carrier image and a path in it, separated by "!", like the URIs
+ * of the zip file systems, e.g. "islsb:file:///home/user/carrier.png!/secret.txt".
+ *
+ * A file system is created for a carrier with FileSystems.newFileSystem(uri, env), where env contains
+ * the parameters used when encoding: "bits" (the number of least significant bits used, 1 by default),
+ * "method" (the steganography method, "1" by default) and "encryption" (the encryption method string,
+ * as built by the GUI, e.g. "  caesar3" or "vigenereKEY"; no encryption by default). Afterwards, the
+ * usual NIO methods can be used on its paths (Files.newByteChannel, Files.copy, Files.list,
+ * Files.walk, Files.readAttributes etc.); the file system is read-only.
+ */
+public class CarrierFileSystemProvider extends FileSystemProvider {
+    public static final String SCHEME = "islsb";
+
+    private final Map<Path, CarrierFileSystem> fileSystems = new HashMap<>();
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+        Path carrierFile = getCarrierFile(uri);
+        if (!isImage(carrierFile)) {
+            throw new IOException("'" + carrierFile + "' is not an image.");
+        }
+        return createFileSystem(carrierFile, env);
+    }
+
+    /**
+     * Creates the file system of a carrier image file (with the same parameters as above). Since this
+     * provider is installed, FileSystems.newFileSystem(path, ...) also tries it for any file, so it
+     * throws an UnsupportedOperationException if the file is not an image (and the next provider is tried).
+     */
+    @Override
+    public FileSystem newFileSystem(Path carrierFile, Map<String, ?> env) throws IOException {
+        if (!isImage(carrierFile)) {
+            throw new UnsupportedOperationException("'" + carrierFile + "' is not an image.");
+        }
+        return createFileSystem(carrierFile, env);
+    }
+
+    private FileSystem createFileSystem(Path carrierFile, Map<String, ?> env) throws IOException {
+        Path carrierRealPath = carrierFile.toRealPath();
+        Object bitsUsed = env.get("bits");
+        Object methodString = env.get("method");
+        Object encryptionMethodString = env.get("encryption");
+        synchronized (fileSystems) {
+            if (fileSystems.containsKey(carrierRealPath)) {
+                throw new FileSystemAlreadyExistsException(carrierRealPath.toString());
+            }
+            CarrierFileSystem fileSystem = new CarrierFileSystem(this, carrierRealPath,
+                    bitsUsed == null ? 1 : Integer.parseInt(bitsUsed.toString()),
+                    methodString == null ? "1" : methodString.toString(),
+                    encryptionMethodString == null ? "" : encryptionMethodString.toString());
+            fileSystems.put(carrierRealPath, fileSystem);
+            return fileSystem;
+        }
+    }
+
+    @Override
+    public FileSystem getFileSystem(URI uri) {
+        Path carrierFile = getCarrierFile(uri);
+        synchronized (fileSystems) {
+            CarrierFileSystem fileSystem = null;
+            try {
+                fileSystem = fileSystems.get(carrierFile.toRealPath());
+            } catch (IOException e) {
+                // no file, so no file system either
+            }
+            if (fileSystem == null) {
+                throw new FileSystemNotFoundException(carrierFile.toString());
+            }
+            return fileSystem;
+        }
+    }
+
+    @Override
+    public Path getPath(URI uri) {
+        String schemeSpecificPart = uri.getSchemeSpecificPart();
+        int separator = schemeSpecificPart.indexOf("!/");
+        return getFileSystem(uri).getPath(separator < 0 ? "/" : schemeSpecificPart.substring(separator + 1));
+    }
+
+    /**
+     * Returns true if the file is a readable file, which can be read by one of the ImageIO readers.
+     */
+    private static boolean isImage(Path file) {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return false;
+        }
+        try (ImageInputStream imageStream = ImageIO.createImageInputStream(file.toFile())) {
+            return imageStream != null && ImageIO.getImageReaders(imageStream).hasNext();
+        } catch (IOException | UnsupportedOperationException e) {
+            // not a file of the default file system, or it can't be read
+            return false;
+        }
+    }
+
+    void removeFileSystem(Path carrierFile) {
+        synchronized (fileSystems) {
+            fileSystems.remove(carrierFile);
+        }
+    }
+
+    /**
+     * Returns the carrier image file of a URI (the part between the scheme and "!").
+     */
+    private static Path getCarrierFile(URI uri) {
+        if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("The URI scheme should be '" + SCHEME + "'.");
+        }
+        String schemeSpecificPart = uri.getSchemeSpecificPart();
+        int separator = schemeSpecificPart.indexOf("!/");
+        return Paths.get(URI.create(separator < 0 ? schemeSpecificPart : schemeSpecificPart.substring(0, separator)));
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options,
+                                              FileAttribute<?>... attributes) throws IOException {
+        for (OpenOption option : options) {
+            if (option != StandardOpenOption.READ && option != LinkOption.NOFOLLOW_LINKS) {
+                throw new ReadOnlyFileSystemException();
+            }
+        }
+        CarrierFileSystem.Node node = getExistingNode(path);
+        if (node.directory) {
+            throw new IOException("'" + path + "' is a directory.");
+        }
+        return ((CarrierFileSystem) path.getFileSystem()).newChannel(node);
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path directory, DirectoryStream.Filter<? super Path> filter)
+            throws IOException {
+        CarrierFileSystem.Node node = getExistingNode(directory);
+        if (!node.directory) {
+            throw new NotDirectoryException(directory.toString());
+        }
+
+        // the children are filtered when the stream is created, so that every filter error is thrown here
+        List<Path> children = new ArrayList<>();
+        for (String name : node.children) {
+            Path child = directory.resolve(name);
+            if (filter.accept(child)) {
+                children.add(child);
+            }
+        }
+        return new DirectoryStream<Path>() {
+            private boolean iterated;
+
+            @Override
+            public Iterator<Path> iterator() {
+                if (iterated) {
+                    throw new IllegalStateException("The directory stream can only be iterated once.");
+                }
+                iterated = true;
+                return children.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public void createDirectory(Path directory, FileAttribute<?>... attributes) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void delete(Path path) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    /**
+     * Copies between two paths of carrier file systems are not possible (they are read-only); copies
+     * to other file systems are done by Files.copy itself, by reading the file.
+     */
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path otherPath) throws IOException {
+        return toCarrierPath(path).toRealPath().equals(toCarrierPath(otherPath).toRealPath());
+    }
+
+    @Override
+    public boolean isHidden(Path path) {
+        return false;
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) {
+        throw new UnsupportedOperationException("A carrier file system has no file stores.");
+    }
+
+    @Override
+    public void checkAccess(Path path, AccessMode... modes) throws IOException {
+        getExistingNode(path);
+        for (AccessMode mode : modes) {
+            if (mode != AccessMode.READ) {
+                throw new AccessDeniedException(path.toString());
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        if (type != BasicFileAttributeView.class) {
+            return null;
+        }
+        return (V) new BasicFileAttributeView() {
+            @Override
+            public String name() {
+                return "basic";
+            }
+
+            @Override
+            public BasicFileAttributes readAttributes() throws IOException {
+                return CarrierFileSystemProvider.this.readAttributes(path, BasicFileAttributes.class);
+            }
+
+            @Override
+            public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+                throw new ReadOnlyFileSystemException();
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options)
+            throws IOException {
+        if (type != BasicFileAttributes.class) {
+            throw new UnsupportedOperationException("Only the basic attributes are supported.");
+        }
+        CarrierFileSystem.Node node = getExistingNode(path);
+        FileTime lastModifiedTime = Files.getLastModifiedTime(
+                toCarrierPath(path).getFileSystem().getCarrierFile());
+        return (A) new BasicFileAttributes() {
+            @Override
+            public FileTime lastModifiedTime() {
+                return lastModifiedTime;
+            }
+
+            @Override
+            public FileTime lastAccessTime() {
+                return lastModifiedTime;
+            }
+
+            @Override
+            public FileTime creationTime() {
+                return lastModifiedTime;
+            }
+
+            @Override
+            public boolean isRegularFile() {
+                return !node.directory;
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return node.directory;
+            }
+
+            @Override
+            public boolean isSymbolicLink() {
+                return false;
+            }
+
+            @Override
+            public boolean isOther() {
+                return false;
+            }
+
+            @Override
+            public long size() {
+                return node.size;
+            }
+
+            @Override
+            public Object fileKey() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns the requested basic attributes ("*", or a list of names separated by commas, with
+     * an optional "basic:" prefix), by their names.
+     */
+    @Override
+    public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options)
+            throws IOException {
+        String names = attributes;
+        int separator = attributes.indexOf(':');
+        if (separator >= 0) {
+            if (!attributes.substring(0, separator).equals("basic")) {
+                throw new UnsupportedOperationException("Only the basic attributes are supported.");
+            }
+            names = attributes.substring(separator + 1);
+        }
+
+        BasicFileAttributes basicAttributes = readAttributes(path, BasicFileAttributes.class);
+        Map<String, Object> allAttributes = new HashMap<>();
+        allAttributes.put("lastModifiedTime", basicAttributes.lastModifiedTime());
+        allAttributes.put("lastAccessTime", basicAttributes.lastAccessTime());
+        allAttributes.put("creationTime", basicAttributes.creationTime());
+        allAttributes.put("size", basicAttributes.size());
+        allAttributes.put("isRegularFile", basicAttributes.isRegularFile());
+        allAttributes.put("isDirectory", basicAttributes.isDirectory());
+        allAttributes.put("isSymbolicLink", basicAttributes.isSymbolicLink());
+        allAttributes.put("isOther", basicAttributes.isOther());
+        allAttributes.put("fileKey", basicAttributes.fileKey());
+        if (names.equals("*")) {
+            return allAttributes;
+        }
+
+        Map<String, Object> requestedAttributes = new HashMap<>();
+        for (String name : names.split(",")) {
+            if (!allAttributes.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown attribute: " + name);
+            }
+            requestedAttributes.put(name, allAttributes.get(name));
+        }
+        return requestedAttributes;
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    private static CarrierFileSystem.Node getExistingNode(Path path) throws IOException {
+        CarrierPath carrierPath = toCarrierPath(path);
+        CarrierFileSystem.Node node = carrierPath.getFileSystem().getNode(carrierPath);
+        if (node == null) {
+            throw new NoSuchFileException(path.toString());
+        }
+        return node;
+    }
+
+    private static CarrierPath toCarrierPath(Path path) {
+        if (!(path instanceof CarrierPath)) {
+            throw new ProviderMismatchException();
+        }
+        return (CarrierPath) path;
+    }
+}
@@ -0,0 +1,302 @@
+package steganography.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A path in a carrier file system (see CarrierFileSystem). The paths use '/' as a separator,
+ * and the absolute paths start with the root, "/".
+ */
+public class CarrierPath implements Path {
+    private final CarrierFileSystem fileSystem;
+    private final String path;
+    private final String[] names;
+
+    CarrierPath(CarrierFileSystem fileSystem, String path) {
+        this.fileSystem = fileSystem;
+
+        // remove the repeated and the trailing separators
+        StringBuilder normalizedPath = new StringBuilder();
+        for (int i = 0; i < path.length(); i++) {
+            char character = path.charAt(i);
+            if (character != '/' || normalizedPath.length() == 0
+                    || normalizedPath.charAt(normalizedPath.length() - 1) != '/') {
+                normalizedPath.append(character);
+            }
+        }
+        if (normalizedPath.length() > 1 && normalizedPath.charAt(normalizedPath.length() - 1) == '/') {
+            normalizedPath.setLength(normalizedPath.length() - 1);
+        }
+        this.path = normalizedPath.toString();
+
+        // the empty path has a single (empty) name, and the root has none
+        if (this.path.isEmpty()) {
+            this.names = new String[]{""};
+        } else if (this.path.equals("/")) {
+            this.names = new String[0];
+        } else {
+            this.names = (isAbsolute() ? this.path.substring(1) : this.path).split("/");
+        }
+    }
+
+    private CarrierPath(CarrierFileSystem fileSystem, boolean absolute, List<String> names) {
+        this(fileSystem, (absolute ? "/" : "") + String.join("/", names));
+    }
+
+    @Override
+    public CarrierFileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return path.startsWith("/");
+    }
+
+    @Override
+    public CarrierPath getRoot() {
+        return isAbsolute() ? new CarrierPath(fileSystem, "/") : null;
+    }
+
+    @Override
+    public CarrierPath getFileName() {
+        if (names.length == 0) {
+            return null;
+        }
+        return names.length == 1 && !isAbsolute() ? this : new CarrierPath(fileSystem, names[names.length - 1]);
+    }
+
+    @Override
+    public CarrierPath getParent() {
+        if (names.length == 0 || (names.length == 1 && !isAbsolute())) {
+            return null;
+        }
+        return new CarrierPath(fileSystem, isAbsolute(), Arrays.asList(names).subList(0, names.length - 1));
+    }
+
+    @Override
+    public int getNameCount() {
+        return names.length;
+    }
+
+    @Override
+    public CarrierPath getName(int index) {
+        if (index < 0 || index >= names.length) {
+            throw new IllegalArgumentException("Invalid name index: " + index);
+        }
+        return new CarrierPath(fileSystem, names[index]);
+    }
+
+    @Override
+    public CarrierPath subpath(int beginIndex, int endIndex) {
+        if (beginIndex < 0 || endIndex > names.length || beginIndex >= endIndex) {
+            throw new IllegalArgumentException("Invalid subpath: " + beginIndex + "-" + endIndex);
+        }
+        return new CarrierPath(fileSystem, false, Arrays.asList(names).subList(beginIndex, endIndex));
+    }
+
+    @Override
+    public boolean startsWith(Path other) {
+        CarrierPath otherPath = toCarrierPath(other);
+        if (otherPath.isAbsolute() != isAbsolute() || otherPath.names.length > names.length) {
+            return false;
+        }
+        for (int i = 0; i < otherPath.names.length; i++) {
+            if (!otherPath.names[i].equals(names[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean startsWith(String other) {
+        return startsWith(fileSystem.getPath(other));
+    }
+
+    @Override
+    public boolean endsWith(Path other) {
+        CarrierPath otherPath = toCarrierPath(other);
+        if (otherPath.isAbsolute()) {
+            return equals(otherPath);
+        }
+        if (otherPath.names.length > names.length) {
+            return false;
+        }
+        for (int i = 1; i <= otherPath.names.length; i++) {
+            if (!otherPath.names[otherPath.names.length - i].equals(names[names.length - i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endsWith(String other) {
+        return endsWith(fileSystem.getPath(other));
+    }
+
+    /**
+     * Returns the path without the "." names and the ".." names (with the names before them);
+     * the ".." names at the start of an absolute path are removed, since the root has no parent.
+     */
+    @Override
+    public CarrierPath normalize() {
+        List<String> normalizedNames = new ArrayList<>();
+        for (String name : names) {
+            if (name.equals(".")) {
+                continue;
+            }
+            if (name.equals("..")) {
+                if (!normalizedNames.isEmpty() && !normalizedNames.get(normalizedNames.size() - 1).equals("..")) {
+                    normalizedNames.remove(normalizedNames.size() - 1);
+                    continue;
+                }
+                if (isAbsolute()) {
+                    continue;
+                }
+            }
+            normalizedNames.add(name);
+        }
+        return new CarrierPath(fileSystem, isAbsolute(), normalizedNames);
+    }
+
+    @Override
+    public CarrierPath resolve(Path other) {
+        CarrierPath otherPath = toCarrierPath(other);
+        if (otherPath.isAbsolute() || path.isEmpty()) {
+            return otherPath;
+        }
+        if (otherPath.path.isEmpty()) {
+            return this;
+        }
+        return new CarrierPath(fileSystem, path + "/" + otherPath.path);
+    }
+
+    @Override
+    public CarrierPath resolve(String other) {
+        return resolve(fileSystem.getPath(other));
+    }
+
+    @Override
+    public CarrierPath resolveSibling(Path other) {
+        CarrierPath parent = getParent();
+        return parent == null ? toCarrierPath(other) : parent.resolve(other);
+    }
+
+    @Override
+    public CarrierPath resolveSibling(String other) {
+        return resolveSibling(fileSystem.getPath(other));
+    }
+
+    @Override
+    public CarrierPath relativize(Path other) {
+        CarrierPath otherPath = toCarrierPath(other);
+        if (otherPath.isAbsolute() != isAbsolute()) {
+            throw new IllegalArgumentException("Only paths of the same type can be relativized.");
+        }
+        int commonCount = 0;
+        while (commonCount < names.length && commonCount < otherPath.names.length
+                && names[commonCount].equals(otherPath.names[commonCount])) {
+            commonCount++;
+        }
+        List<String> relativeNames = new ArrayList<>();
+        for (int i = commonCount; i < names.length; i++) {
+            relativeNames.add("..");
+        }
+        relativeNames.addAll(Arrays.asList(otherPath.names).subList(commonCount, otherPath.names.length));
+        return new CarrierPath(fileSystem, false, relativeNames);
+    }
+
+    /**
+     * Returns the URI of the path: "islsb:" followed by the URI of the carrier, "!" and the absolute path.
+     */
+    @Override
+    public URI toUri() {
+        try {
+            return new URI(CarrierFileSystemProvider.SCHEME,
+                    fileSystem.getCarrierFile().toUri() + "!" + toAbsolutePath().path, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public CarrierPath toAbsolutePath() {
+        return isAbsolute() ? this : new CarrierPath(fileSystem, "/" + path);
+    }
+
+    @Override
+    public CarrierPath toRealPath(LinkOption... options) throws IOException {
+        CarrierPath realPath = toAbsolutePath().normalize();
+        if (!fileSystem.exists(realPath)) {
+            throw new NoSuchFileException(toString());
+        }
+        return realPath;
+    }
+
+    @Override
+    public File toFile() {
+        throw new UnsupportedOperationException("The paths of a carrier are not files.");
+    }
+
+    @Override
+    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
+        throw new UnsupportedOperationException("A carrier file system can not be watched.");
+    }
+
+    @Override
+    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) {
+        throw new UnsupportedOperationException("A carrier file system can not be watched.");
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        List<Path> namePaths = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            namePaths.add(getName(i));
+        }
+        return namePaths.iterator();
+    }
+
+    @Override
+    public int compareTo(Path other) {
+        return path.compareTo(toCarrierPath(other).path);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CarrierPath && ((CarrierPath) other).fileSystem == fileSystem
+                && ((CarrierPath) other).path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static CarrierPath toCarrierPath(Path path) {
+        if (!(path instanceof CarrierPath)) {
+            throw new ProviderMismatchException();
+        }
+        return (CarrierPath) path;
+    }
+}
@@ -0,0 +1,53 @@
+package steganography.jpeg;
+
+/**
+ * A Huffman table of a JPEG image, as defined in a DHT segment: the number of codes
+ * of every length (1 to 16 bits) and the symbols, in the order of their codes.
+ *
+ * The codes are canonical, so for every code length we only store the smallest and the
+ * largest code, and the index of the first symbol with that code length.
+ */
+public class HuffmanTable {
+    private static final int MAX_CODE_LENGTH = 16;
+
+    private final int[] minCode = new int[MAX_CODE_LENGTH + 1];
+    private final int[] maxCode = new int[MAX_CODE_LENGTH + 1];
+    private final int[] valuePointer = new int[MAX_CODE_LENGTH + 1];
+    private final int[] symbols;
+
+    public HuffmanTable(int[] codeCounts, int[] symbols) {
+        this.symbols = symbols;
+
+        // generate the canonical codes, length by length
+        int code = 0;
+        int symbolIndex = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            int codeCount = codeCounts[length - 1];
+            if (codeCount == 0) {
+                maxCode[length] = -1;
+            } else {
+                valuePointer[length] = symbolIndex;
+                minCode[length] = code;
+                code += codeCount;
+                symbolIndex += codeCount;
+                maxCode[length] = code - 1;
+            }
+            code <<= 1;
+        }
+    }
+
+    /**
+     * Decodes a symbol, reading its code from the bit reader one bit at a time.
+     * Returns -1 if the bits don't form a valid code.
+     */
+    public int decodeSymbol(JpegBitReader bitReader) {
+        int code = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            code = (code << 1) | bitReader.readBit();
+            if (code <= maxCode[length]) {
+                return symbols[valuePointer[length] + code - minCode[length]];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,46 @@
+package steganography.jpeg;
+
+import exceptions.SteganographyException;
+
+/**
+ * Reads the bits of an entropy-coded JPEG segment (with the stuffed bytes already removed),
+ * starting from the most significant bit of every byte.
+ */
+public class JpegBitReader {
+    private final byte[] data;
+    private long bitPosition;
+
+    public JpegBitReader(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Returns the position (in bits) of the next bit that will be read.
+     */
+    public long getBitPosition() {
+        return bitPosition;
+    }
+
+    public int readBit() {
+        validatePosition(bitPosition + 1);
+        int bit = (data[(int) (bitPosition >>> 3)] >> (7 - (int) (bitPosition & 7))) & 0x01;
+        bitPosition++;
+        return bit;
+    }
+
+    public void skipBits(int bitCount) {
+        validatePosition(bitPosition + bitCount);
+        bitPosition += bitCount;
+    }
+
+    /**
+     * Throws a SteganographyException if the segment ends before the given position.
+     */
+    private void validatePosition(long endPosition) {
+        if (endPosition > data.length * 8L) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "The JPEG image is corrupted.");
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package steganography.jpeg;
+
+import exceptions.SteganographyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class parses a baseline JPEG image (sequential, Huffman coded), and finds the quantised
+ * AC coefficients that can hold data, without decoding the image to pixels.
+ *
+ * Every non-zero coefficient is stored in the entropy-coded data as a Huffman symbol (containing
+ * the size category of the coefficient, i.e. the number of bits of its magnitude), followed by
+ * the 'size' extra bits of the coefficient. Only the coefficients with a magnitude of at least 2
+ * (size >= 2) are used: changing the least significant bit of their magnitude never changes their
+ * size, so the Huffman symbols stay the same, and only the last extra bit of the coefficient is
+ * modified (JSteg style). Coefficients of 0 and +/-1 are never touched, so the zero runs stay the same.
+ *
+ * In the extra bits, positive coefficients are stored as they are, and negative coefficients are
+ * stored as (coefficient - 1), which inverts all the bits of the magnitude. So for negative
+ * coefficients the stored bit is the inverse of the magnitude bit.
+ *
+ * The entropy-coded data contains stuffed bytes (a 0x00 after every 0xFF byte) and is split in
+ * restart intervals by RST markers. Every restart interval is kept separately, with the stuffed
+ * bytes removed; after the bits are modified, the stuffed bytes are added back when writing the
+ * image. All the other segments of the image (metadata, tables etc.) are copied as they are.
+ */
+public class JpegCoefficients {
+    private final byte[] jpegBytes;
+
+    // the Huffman tables (DC tables first, then AC tables) and the restart interval
+    private final HuffmanTable[] huffmanTables = new HuffmanTable[8];
+    private int restartInterval;
+
+    // the components of the frame: their ids and sampling factors
+    private int[] componentIds;
+    private int[] horizontalFactors;
+    private int[] verticalFactors;
+    private int frameWidth;
+    private int frameHeight;
+
+    // the restart intervals of all the scans: where they are found in the image, and their unstuffed bytes
+    private final List<int[]> segmentBounds = new ArrayList<>();
+    private final List<byte[]> segments = new ArrayList<>();
+
+    // the usable coefficients: the position of their last extra bit (segment index in the high
+    // 32 bits, bit position in the low 32 bits) and whether they are negative
+    private long[] bitPositions = new long[1024];
+    private final BitSet negativeCoefficients = new BitSet();
+    private int coefficientCount;
+
+    public JpegCoefficients(byte[] jpegBytes) {
+        this.jpegBytes = jpegBytes;
+        parse();
+    }
+
+    /**
+     * Returns the number of coefficients that can hold a bit.
+     */
+    public int getCoefficientCount() {
+        return coefficientCount;
+    }
+
+    /**
+     * Returns the magnitude bits of all the usable coefficients, one per byte (in the least
+     * significant bit), in the order they are found in the image.
+     */
+    public byte[] getCoefficientBits() {
+        byte[] coefficientBits = new byte[coefficientCount];
+        for (int i = 0; i < coefficientCount; i++) {
+            byte[] segment = segments.get((int) (bitPositions[i] >>> 32));
+            int bitPosition = (int) bitPositions[i];
+            int storedBit = (segment[bitPosition >>> 3] >> (7 - (bitPosition & 7))) & 0x01;
+            coefficientBits[i] = (byte) (negativeCoefficients.get(i) ? storedBit ^ 1 : storedBit);
+        }
+        return coefficientBits;
+    }
+
+    /**
+     * Sets the magnitude bits of all the usable coefficients, from the least significant bit of
+     * every byte (the other bits are ignored), in the order they are found in the image.
+     */
+    public void setCoefficientBits(byte[] coefficientBits) {
+        for (int i = 0; i < coefficientCount; i++) {
+            byte[] segment = segments.get((int) (bitPositions[i] >>> 32));
+            int bitPosition = (int) bitPositions[i];
+            int storedBit = negativeCoefficients.get(i) ? (coefficientBits[i] & 0x01) ^ 1 : coefficientBits[i] & 0x01;
+            int mask = 1 << (7 - (bitPosition & 7));
+            segment[bitPosition >>> 3] = (byte) ((segment[bitPosition >>> 3] & ~mask) | (storedBit == 1 ? mask : 0));
+        }
+    }
+
+    /**
+     * Returns the bytes of the JPEG image, with the current coefficients. The entropy-coded
+     * segments are written with their stuffed bytes, everything else is copied as it is.
+     */
+    public byte[] toByteArray() {
+        // compute the length of the image: the stuffed bytes depend on the current coefficients
+        long outputLength = jpegBytes.length;
+        for (int i = 0; i < segments.size(); i++) {
+            int[] bounds = segmentBounds.get(i);
+            outputLength += segments.get(i).length - (bounds[1] - bounds[0]);
+            for (byte segmentByte : segments.get(i)) {
+                if (segmentByte == (byte) 0xFF) {
+                    outputLength++;
+                }
+            }
+        }
+        if (outputLength > Integer.MAX_VALUE - 8) {
+            throw unsupportedImage();
+        }
+
+        // copy the bytes between the segments, and write the segments with their stuffed bytes
+        byte[] output = new byte[(int) outputLength];
+        int outputPosition = 0;
+        int currentPosition = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            int[] bounds = segmentBounds.get(i);
+            System.arraycopy(jpegBytes, currentPosition, output, outputPosition, bounds[0] - currentPosition);
+            outputPosition += bounds[0] - currentPosition;
+            for (byte segmentByte : segments.get(i)) {
+                output[outputPosition++] = segmentByte;
+                if (segmentByte == (byte) 0xFF) {
+                    output[outputPosition++] = 0x00;
+                }
+            }
+            currentPosition = bounds[1];
+        }
+        System.arraycopy(jpegBytes, currentPosition, output, outputPosition, jpegBytes.length - currentPosition);
+        return output;
+    }
+
+    /**
+     * Creates the exception used for all the images that are not baseline JPEG images.
+     */
+    private static SteganographyException unsupportedImage() {
+        return new SteganographyException(
+                "The chosen image is not supported!",
+                "Only baseline JPEG images are supported.");
+    }
+
+    /**
+     * Creates the exception used for all the damaged JPEG images.
+     */
+    private static SteganographyException corruptedImage() {
+        return new SteganographyException(
+                "The chosen image is invalid!",
+                "The JPEG image is corrupted.");
+    }
+
+    private int readUnsignedShort(int position) {
+        if (position + 1 >= jpegBytes.length) {
+            throw corruptedImage();
+        }
+        return ((jpegBytes[position] & 0xFF) << 8) | (jpegBytes[position + 1] & 0xFF);
+    }
+
+    private int readUnsignedByte(int position) {
+        if (position >= jpegBytes.length) {
+            throw corruptedImage();
+        }
+        return jpegBytes[position] & 0xFF;
+    }
+
+    /**
+     * Walks through all the segments of the image, reading the tables and the frame header,
+     * and parsing every scan.
+     */
+    private void parse() {
+        if (jpegBytes.length < 4 || readUnsignedShort(0) != 0xFFD8) {
+            throw unsupportedImage();
+        }
+
+        int position = 2;
+        boolean frameFound = false;
+        while (true) {
+            // find the next marker (skipping the fill bytes)
+            if (readUnsignedByte(position) != 0xFF) {
+                throw corruptedImage();
+            }
+            while (readUnsignedByte(position) == 0xFF) {
+                position++;
+            }
+            int marker = readUnsignedByte(position);
+            position++;
+
+            // end of the image, or markers without a length
+            if (marker == 0xD9) {
+                break;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+
+            int segmentLength = readUnsignedShort(position);
+            int segmentStart = position + 2;
+            int segmentEnd = position + segmentLength;
+            if (segmentLength < 2 || segmentEnd > jpegBytes.length) {
+                throw corruptedImage();
+            }
+
+            if (marker == 0xC4) {
+                parseHuffmanTables(segmentStart, segmentEnd);
+            } else if (marker == 0xC0 || marker == 0xC1) {
+                parseFrameHeader(segmentStart);
+                frameFound = true;
+            } else if ((marker >= 0xC2 && marker <= 0xCF) && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                // progressive, lossless, or arithmetic coded images
+                throw unsupportedImage();
+            } else if (marker == 0xDD) {
+                restartInterval = readUnsignedShort(segmentStart);
+            } else if (marker == 0xDA) {
+                if (!frameFound) {
+                    throw corruptedImage();
+                }
+                segmentEnd = parseScan(segmentStart);
+            }
+            position = segmentEnd;
+        }
+
+        bitPositions = Arrays.copyOf(bitPositions, coefficientCount);
+    }
+
+    /**
+     * Reads all the Huffman tables found in a DHT segment.
+     */
+    private void parseHuffmanTables(int position, int segmentEnd) {
+        while (position < segmentEnd) {
+            int tableInfo = readUnsignedByte(position);
+            int tableClass = tableInfo >> 4;
+            int tableId = tableInfo & 0x0F;
+            if (tableClass > 1 || tableId > 3) {
+                throw corruptedImage();
+            }
+
+            int[] codeCounts = new int[16];
+            int symbolCount = 0;
+            for (int i = 0; i < 16; i++) {
+                codeCounts[i] = readUnsignedByte(position + 1 + i);
+                symbolCount += codeCounts[i];
+            }
+            int[] symbols = new int[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                symbols[i] = readUnsignedByte(position + 17 + i);
+            }
+
+            huffmanTables[tableClass * 4 + tableId] = new HuffmanTable(codeCounts, symbols);
+            position += 17 + symbolCount;
+        }
+    }
+
+    /**
+     * Reads the frame header (SOF0 / SOF1): the size of the image and its components.
+     */
+    private void parseFrameHeader(int position) {
+        frameHeight = readUnsignedShort(position + 1);
+        frameWidth = readUnsignedShort(position + 3);
+        int componentCount = readUnsignedByte(position + 5);
+        if (frameHeight == 0 || frameWidth == 0 || componentCount == 0) {
+            throw unsupportedImage();
+        }
+
+        componentIds = new int[componentCount];
+        horizontalFactors = new int[componentCount];
+        verticalFactors = new int[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            int componentPosition = position + 6 + 3 * i;
+            componentIds[i] = readUnsignedByte(componentPosition);
+            horizontalFactors[i] = readUnsignedByte(componentPosition + 1) >> 4;
+            verticalFactors[i] = readUnsignedByte(componentPosition + 1) & 0x0F;
+            if (horizontalFactors[i] < 1 || horizontalFactors[i] > 4
+                    || verticalFactors[i] < 1 || verticalFactors[i] > 4) {
+                throw corruptedImage();
+            }
+        }
+    }
+
+    /**
+     * Splits the entropy-coded data that starts at 'position' in restart intervals, removing the
+     * stuffed bytes. Returns the position of the marker that ends the scan.
+     */
+    private int splitEntropyCodedData(int position) {
+        while (true) {
+            // find the end of the restart interval (the first 0xFF byte which is not stuffed)
+            int segmentStart = position;
+            int stuffedBytes = 0;
+            while (true) {
+                if (readUnsignedByte(position) != 0xFF) {
+                    position++;
+                } else if (readUnsignedByte(position + 1) == 0x00) {
+                    stuffedBytes++;
+                    position += 2;
+                } else {
+                    break;
+                }
+            }
+
+            // copy the restart interval, without the stuffed bytes
+            byte[] segment = new byte[position - segmentStart - stuffedBytes];
+            int segmentPosition = 0;
+            for (int i = segmentStart; i < position; i++) {
+                segment[segmentPosition++] = jpegBytes[i];
+                if (jpegBytes[i] == (byte) 0xFF) {
+                    i++;
+                }
+            }
+            segmentBounds.add(new int[]{segmentStart, position});
+            segments.add(segment);
+
+            // skip the fill bytes, and continue if the marker is a RST marker
+            int markerPosition = position;
+            while (readUnsignedByte(markerPosition) == 0xFF) {
+                markerPosition++;
+            }
+            int marker = readUnsignedByte(markerPosition);
+            if (marker < 0xD0 || marker > 0xD7) {
+                return position;
+            }
+            position = markerPosition + 1;
+        }
+    }
+
+    /**
+     * Parses a scan: reads its header, splits its entropy-coded data and walks through all its blocks,
+     * remembering the usable coefficients. Returns the position of the marker that ends the scan.
+     */
+    private int parseScan(int position) {
+        // read the scan header: the components and their tables
+        int scanComponentCount = readUnsignedByte(position);
+        int[] scanComponents = new int[scanComponentCount];
+        HuffmanTable[] dcTables = new HuffmanTable[scanComponentCount];
+        HuffmanTable[] acTables = new HuffmanTable[scanComponentCount];
+        for (int i = 0; i < scanComponentCount; i++) {
+            int componentId = readUnsignedByte(position + 1 + 2 * i);
+            int tableIds = readUnsignedByte(position + 2 + 2 * i);
+            scanComponents[i] = -1;
+            for (int j = 0; j < componentIds.length; j++) {
+                if (componentIds[j] == componentId) {
+                    scanComponents[i] = j;
+                }
+            }
+            if (scanComponents[i] == -1 || (tableIds >> 4) > 3 || (tableIds & 0x0F) > 3) {
+                throw corruptedImage();
+            }
+            dcTables[i] = huffmanTables[tableIds >> 4];
+            acTables[i] = huffmanTables[4 + (tableIds & 0x0F)];
+            if (dcTables[i] == null || acTables[i] == null) {
+                throw corruptedImage();
+            }
+        }
+        int spectralStart = readUnsignedByte(position + 1 + 2 * scanComponentCount);
+        int spectralEnd = readUnsignedByte(position + 2 + 2 * scanComponentCount);
+        if (spectralStart != 0 || spectralEnd != 63) {
+            throw unsupportedImage();
+        }
+        int dataStart = position + 4 + 2 * scanComponentCount;
+
+        // split the entropy-coded data in restart intervals
+        int firstSegment = segments.size();
+        int scanEnd = splitEntropyCodedData(dataStart);
+
+        // compute the number of MCUs and the blocks of every MCU
+        int maxHorizontalFactor = Arrays.stream(horizontalFactors).max().getAsInt();
+        int maxVerticalFactor = Arrays.stream(verticalFactors).max().getAsInt();
+        int mcuCount;
+        int[] mcuBlockComponents;
+        if (scanComponentCount == 1) {
+            // non-interleaved scan: every MCU is a single block of the component
+            int component = scanComponents[0];
+            int componentWidth = (frameWidth * horizontalFactors[component] + maxHorizontalFactor - 1)
+                    / maxHorizontalFactor;
+            int componentHeight = (frameHeight * verticalFactors[component] + maxVerticalFactor - 1)
+                    / maxVerticalFactor;
+            mcuCount = ((componentWidth + 7) / 8) * ((componentHeight + 7) / 8);
+            mcuBlockComponents = new int[]{0};
+        } else {
+            // interleaved scan: every MCU contains H x V blocks of every component
+            int mcusPerLine = (frameWidth + 8 * maxHorizontalFactor - 1) / (8 * maxHorizontalFactor);
+            int mcuLines = (frameHeight + 8 * maxVerticalFactor - 1) / (8 * maxVerticalFactor);
+            mcuCount = mcusPerLine * mcuLines;
+            List<Integer> blockComponents = new ArrayList<>();
+            for (int i = 0; i < scanComponentCount; i++) {
+                int blockCount = horizontalFactors[scanComponents[i]] * verticalFactors[scanComponents[i]];
+                for (int j = 0; j < blockCount; j++) {
+                    blockComponents.add(i);
+                }
+            }
+            mcuBlockComponents = blockComponents.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // walk through all the MCUs, moving to the next restart interval when needed
+        int mcusPerSegment = restartInterval > 0 ? restartInterval : mcuCount;
+        int segmentIndex = firstSegment;
+        JpegBitReader bitReader = null;
+        for (int mcu = 0; mcu < mcuCount; mcu++) {
+            if (mcu % mcusPerSegment == 0) {
+                if (segmentIndex >= segments.size()) {
+                    throw corruptedImage();
+                }
+                bitReader = new JpegBitReader(segments.get(segmentIndex));
+                segmentIndex++;
+            }
+            for (int blockComponent : mcuBlockComponents) {
+                parseBlock(bitReader, dcTables[blockComponent], acTables[blockComponent], segmentIndex - 1);
+            }
+        }
+
+        return scanEnd;
+    }
+
+    /**
+     * Parses the 64 coefficients of a block, remembering the usable AC coefficients.
+     */
+    private void parseBlock(JpegBitReader bitReader, HuffmanTable dcTable, HuffmanTable acTable, int segmentIndex) {
+        // the DC coefficient: its size, followed by its extra bits
+        int dcSize = dcTable.decodeSymbol(bitReader);
+        if (dcSize < 0 || dcSize > 15) {
+            throw corruptedImage();
+        }
+        bitReader.skipBits(dcSize);
+
+        // the AC coefficients: (zero run, size) symbols, each followed by the extra bits
+        int coefficientIndex = 1;
+        while (coefficientIndex < 64) {
+            int symbol = acTable.decodeSymbol(bitReader);
+            if (symbol < 0) {
+                throw corruptedImage();
+            }
+            int zeroRun = symbol >> 4;
+            int size = symbol & 0x0F;
+            if (size == 0) {
+                if (zeroRun == 15) {
+                    // sixteen zero coefficients
+                    coefficientIndex += 16;
+                    continue;
+                }
+                // end of block: all the remaining coefficients are 0
+                break;
+            }
+            coefficientIndex += zeroRun;
+
+            if (size >= 2) {
+                // the first extra bit is 1 for positive coefficients, 0 for negative ones
+                long firstBitPosition = bitReader.getBitPosition();
+                int signBit = bitReader.readBit();
+                addCoefficient(segmentIndex, firstBitPosition + size - 1, signBit == 0);
+                bitReader.skipBits(size - 1);
+            } else {
+                bitReader.skipBits(size);
+            }
+            coefficientIndex++;
+        }
+        if (coefficientIndex > 64) {
+            throw corruptedImage();
+        }
+    }
+
+    private void addCoefficient(int segmentIndex, long bitPosition, boolean negative) {
+        if (bitPosition > Integer.MAX_VALUE || coefficientCount == Integer.MAX_VALUE - 8) {
+            throw unsupportedImage();
+        }
+        if (coefficientCount == bitPositions.length) {
+            bitPositions = Arrays.copyOf(bitPositions, bitPositions.length * 2);
+        }
+        bitPositions[coefficientCount] = ((long) segmentIndex << 32) | bitPosition;
+        negativeCoefficients.set(coefficientCount, negative);
+        coefficientCount++;
+    }
+}
@@ -0,0 +1,120 @@
+package steganography.jpeg;
+
+import exceptions.SteganographyException;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+import steganography.metrics.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * This class contains methods that encode files in JPEG images, in the DCT domain: the bits
+ * are placed in the quantised AC coefficients of the image (see JpegCoefficients), so the image
+ * is never decoded to pixels, and the result is a JPEG image of (almost) the same size.
+ *
+ * The encoded file has exactly the same structure as in SteganographyUtils. The usable
+ * coefficients are seen as the bytes of a cover image, each holding a single bit, so the
+ * steganography method (every n coefficients, random, matrix embedding etc.) is applied to them as usual.
+ */
+public class JpegUtils {
+    private static final int BITS_USED = 1;
+
+    /**
+     * Loads and parses a JPEG image.
+     */
+    private static JpegCoefficients loadCoefficients(File selectedImage) {
+        try {
+            return new JpegCoefficients(Files.readAllBytes(selectedImage.toPath()));
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+    }
+
+    /**
+     * Returns the number of bytes that can surely be encoded in a JPEG image,
+     * with the provided steganography method.
+     */
+    public static int getEncodingCapacity(File selectedImage, String methodString) {
+        return SteganographyUtils.getEncodingCapacity(loadCoefficients(selectedImage).getCoefficientCount(),
+                BITS_USED, methodString);
+    }
+
+    /**
+     * This method encodes a file (read from 'fileStream') in the coefficients of a parsed JPEG
+     * image, with the provided steganography method. The coefficients are modified in place.
+     */
+    public static void encodeFile(JpegCoefficients coefficients, String fileName,
+                                  InputStream fileStream, int fileLength,
+                                  String methodString, String encryptionMethodString) {
+        // obtain the bits of the usable coefficients and encode the file in them
+        byte[] coefficientBits = coefficients.getCoefficientBits();
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(coefficientBits, BITS_USED, methodString),
+                fileName, fileStream, fileLength, encryptionMethodString);
+        MetricsRegistry.recordCapacityUtilisation(SteganographyUtils.getEncodedFileLength(fileName, fileLength),
+                SteganographyUtils.getMaximumEncodingCapacity(coefficientBits.length, BITS_USED, methodString));
+
+        // write the modified bits back in the coefficients
+        coefficients.setCoefficientBits(coefficientBits);
+    }
+
+    /**
+     * This method decodes a file from the coefficients of a parsed JPEG image, with the provided
+     * steganography method, and writes the file bytes to the output. Returns the file name.
+     */
+    public static String decodeFile(JpegCoefficients coefficients, OutputStream output,
+                                    String methodString, String encryptionMethodString) {
+        byte[] coefficientBits = coefficients.getCoefficientBits();
+        return SteganographyUtils.decodeFile(
+                SteganographyUtils.createDecodingSource(coefficientBits, BITS_USED, methodString),
+                SteganographyUtils.getMaximumEncodingCapacity(coefficientBits.length, BITS_USED, methodString),
+                output, encryptionMethodString);
+    }
+
+    /**
+     * Returns true if the coefficients of a parsed JPEG image contain an encoded file,
+     * checking only its signature.
+     */
+    public static boolean hasEncodedFile(JpegCoefficients coefficients,
+                                         String methodString, String encryptionMethodString) {
+        byte[] coefficientBits = coefficients.getCoefficientBits();
+        return SteganographyUtils.hasEncodedFile(
+                SteganographyUtils.createDecodingSource(coefficientBits, BITS_USED, methodString),
+                encryptionMethodString);
+    }
+
+    /**
+     * This method encodes a file into a JPEG image, with the provided steganography method,
+     * and returns the bytes of the resulting JPEG image.
+     */
+    public static byte[] encodeFileInImage(File selectedImage, File selectedFile,
+                                           String methodString, String encryptionMethodString) {
+        JpegCoefficients coefficients = loadCoefficients(selectedImage);
+        try (InputStream fileStream = Files.newInputStream(selectedFile.toPath())) {
+            encodeFile(coefficients, SteganographyUtils.getFileName(selectedFile), fileStream,
+                    (int) selectedFile.length(), methodString, encryptionMethodString);
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+        return coefficients.toByteArray();
+    }
+
+    /**
+     * This method decodes a file from a JPEG image, with the provided steganography method.
+     */
+    public static RawDecodedFile decodeFileFromImage(File selectedImage,
+                                                     String methodString, String encryptionMethodString) {
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+        String fileName = decodeFile(loadCoefficients(selectedImage), fileBytes,
+                methodString, encryptionMethodString);
+        return new RawDecodedFile(fileName, fileBytes.toByteArray());
+    }
+}
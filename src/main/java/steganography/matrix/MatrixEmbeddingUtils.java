@@ -0,0 +1,286 @@
+package steganography.matrix;
+
+import exceptions.SteganographyException;
+
+/**
+ * This class contains the matrix embedding steganography methods, based on the (1, 2^k - 1, k)
+ * Hamming codes. The method string is "hamming,k" (k between 2 and 8).
+ *
+ * The cover is split in blocks of n = 2^k - 1 samples, and every block holds k bits: the syndrome
+ * of the block, which is the XOR of the (1-based) positions of the samples whose least significant
+ * bit is 1. To embed k bits, at most one least significant bit of the block is flipped (the one at
+ * the position given by the XOR of the current syndrome and the k bits), instead of about k / 2
+ * with the plain LSB encoding, so far fewer samples are modified (at the cost of a lower capacity:
+ * k bits for every n samples). Only the least significant bit of every sample is used, so the
+ * 'bitsUsed' of the other methods are ignored.
+ *
+ * The syndromes are computed with a table, 8 samples at a time, so that the decoding reads the
+ * samples about as fast as the plain LSB decoding.
+ */
+@SuppressWarnings("DuplicatedCode")
+public class MatrixEmbeddingUtils {
+    public static final String METHOD_NAME = "hamming";
+    public static final int MIN_BLOCK_BITS = 2;
+    public static final int MAX_BLOCK_BITS = 8;
+
+    /**
+     * SYNDROME_TABLE[group][mask] is the syndrome of the samples 8 * group ... 8 * group + 7 of a
+     * block, for the mask of their least significant bits (the first sample in the lowest bit).
+     * The positions don't depend on k, so a single table is used for all the blocks.
+     */
+    private static final int[][] SYNDROME_TABLE = new int[((1 << MAX_BLOCK_BITS) - 1 + 7) / 8][256];
+
+    static {
+        for (int group = 0; group < SYNDROME_TABLE.length; group++) {
+            for (int mask = 1; mask < 256; mask++) {
+                // the syndrome of the mask without its lowest set bit, XOR the position of that bit
+                int lowestBit = Integer.numberOfTrailingZeros(mask);
+                SYNDROME_TABLE[group][mask] = SYNDROME_TABLE[group][mask & (mask - 1)] ^ (group * 8 + lowestBit + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the steganography method is matrix embedding ("hamming,k").
+     */
+    public static boolean isMatrixEmbeddingMethod(String methodString) {
+        return methodString.startsWith(METHOD_NAME);
+    }
+
+    /**
+     * Returns the number of bits (k) held by every block, for the method "hamming,k".
+     * Throws a SteganographyException if the method string is invalid.
+     */
+    public static int getBlockBits(String methodString) {
+        String[] split = methodString.split(",");
+        try {
+            int blockBits = Integer.parseInt(split[1]);
+            if (split.length == 2 && blockBits >= MIN_BLOCK_BITS && blockBits <= MAX_BLOCK_BITS) {
+                return blockBits;
+            }
+        } catch (RuntimeException e) {
+            // handled below
+        }
+        throw new SteganographyException(
+                "Invalid steganography method!",
+                "The matrix embedding method should be 'hamming,k', with k between "
+                        + MIN_BLOCK_BITS + " and " + MAX_BLOCK_BITS + ".");
+    }
+
+    /**
+     * Returns the number of samples in every block, for blocks of 'blockBits' bits.
+     */
+    public static int getBlockLength(int blockBits) {
+        return (1 << blockBits) - 1;
+    }
+
+    /**
+     * Returns the number of bytes that can be encoded in 'sampleCount' samples.
+     */
+    public static int getEncodingCapacity(int sampleCount, String methodString) {
+        int blockBits = getBlockBits(methodString);
+        return (int) ((long) (sampleCount / getBlockLength(blockBits)) * blockBits / 8);
+    }
+
+    /**
+     * Returns the number of samples, from the start of the cover, that are read when decoding
+     * 'byteCount' bytes.
+     */
+    public static long getSampleCount(int byteCount, String methodString) {
+        int blockBits = getBlockBits(methodString);
+        return (byteCount * 8L + blockBits - 1) / blockBits * getBlockLength(blockBits);
+    }
+
+    /**
+     * This method does matrix embedding encoding of the added bytes, starting at 'offset' bytes from
+     * the start of the encoded data, using blocks of 'blockBits' bits. The added bytes don't have to
+     * start or end at a block boundary: the bits of the first and of the last block that belong to
+     * other bytes are kept, since they are read from the current syndrome of the block.
+     */
+    public static void encodeBytes(byte[] coverImageBytes,
+                                   byte[] addedBytes,
+                                   int offset,
+                                   int blockBits) {
+        try {
+            int blockLength = getBlockLength(blockBits);
+            long firstBit = offset * 8L;
+            long endBit = firstBit + addedBytes.length * 8L;
+
+            // loop through all the blocks holding the added bits
+            for (long block = firstBit / blockBits; block * blockBits < endBit; block++) {
+                int blockStart = (int) (block * blockLength);
+                int syndrome = computeSyndrome(coverImageBytes, blockStart, blockLength);
+
+                // replace the syndrome bits (the first bit in the most significant one) with the added bits
+                int message = replaceBits(syndrome, addedBytes, block * blockBits - firstBit, blockBits);
+
+                // flip the single least significant bit which changes the syndrome into the message
+                int difference = syndrome ^ message;
+                if (difference != 0) {
+                    coverImageBytes[blockStart + difference - 1] ^= 0x01;
+                }
+            }
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+    }
+
+    /**
+     * Same as the method above, but the cover image has 16 bits for every sample.
+     */
+    public static void encodeBytes(short[] coverImageSamples,
+                                   byte[] addedBytes,
+                                   int offset,
+                                   int blockBits) {
+        try {
+            int blockLength = getBlockLength(blockBits);
+            long firstBit = offset * 8L;
+            long endBit = firstBit + addedBytes.length * 8L;
+
+            // loop through all the blocks holding the added bits
+            for (long block = firstBit / blockBits; block * blockBits < endBit; block++) {
+                int blockStart = (int) (block * blockLength);
+                int syndrome = computeSyndrome(coverImageSamples, blockStart, blockLength);
+
+                // replace the syndrome bits (the first bit in the most significant one) with the added bits
+                int message = replaceBits(syndrome, addedBytes, block * blockBits - firstBit, blockBits);
+
+                // flip the single least significant bit which changes the syndrome into the message
+                int difference = syndrome ^ message;
+                if (difference != 0) {
+                    coverImageSamples[blockStart + difference - 1] ^= 0x01;
+                }
+            }
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please change the file or the encoding method.");
+        }
+    }
+
+    /**
+     * This method does matrix embedding decoding of 'length' bytes, starting at 'offset' bytes
+     * from the start of the encoded data, using blocks of 'blockBits' bits.
+     */
+    public static byte[] decodeBytes(byte[] imageBytes,
+                                     int offset,
+                                     int length,
+                                     int blockBits) {
+        try {
+            int blockLength = getBlockLength(blockBits);
+            long firstBit = offset * 8L;
+            long endBit = firstBit + length * 8L;
+            byte[] result = new byte[length];
+
+            // loop through all the blocks holding the requested bits, and copy the bits of their syndromes
+            for (long block = firstBit / blockBits; block * blockBits < endBit; block++) {
+                int syndrome = computeSyndrome(imageBytes, (int) (block * blockLength), blockLength);
+                copyBits(syndrome, result, block * blockBits - firstBit, blockBits);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+    }
+
+    /**
+     * Same as the method above, but the cover image has 16 bits for every sample.
+     */
+    public static byte[] decodeBytes(short[] imageSamples,
+                                     int offset,
+                                     int length,
+                                     int blockBits) {
+        try {
+            int blockLength = getBlockLength(blockBits);
+            long firstBit = offset * 8L;
+            long endBit = firstBit + length * 8L;
+            byte[] result = new byte[length];
+
+            // loop through all the blocks holding the requested bits, and copy the bits of their syndromes
+            for (long block = firstBit / blockBits; block * blockBits < endBit; block++) {
+                int syndrome = computeSyndrome(imageSamples, (int) (block * blockLength), blockLength);
+                copyBits(syndrome, result, block * blockBits - firstBit, blockBits);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "There is no encoded file in the provided image.");
+        }
+    }
+
+    /**
+     * Returns the syndrome of the block of 'blockLength' bytes starting at 'blockStart'.
+     */
+    private static int computeSyndrome(byte[] coverImageBytes, int blockStart, int blockLength) {
+        if (blockStart + blockLength > coverImageBytes.length) {
+            throw new ArrayIndexOutOfBoundsException(blockStart + blockLength);
+        }
+        int syndrome = 0;
+        for (int group = 0, groupStart = 0; groupStart < blockLength; group++, groupStart += 8) {
+            // gather the least significant bits of (at most) 8 bytes, and look up their syndrome
+            int groupEnd = Math.min(groupStart + 8, blockLength);
+            int mask = 0;
+            for (int i = groupStart; i < groupEnd; i++) {
+                mask |= (coverImageBytes[blockStart + i] & 0x01) << (i - groupStart);
+            }
+            syndrome ^= SYNDROME_TABLE[group][mask];
+        }
+        return syndrome;
+    }
+
+    /**
+     * Returns the syndrome of the block of 'blockLength' samples starting at 'blockStart'.
+     */
+    private static int computeSyndrome(short[] coverImageSamples, int blockStart, int blockLength) {
+        if (blockStart + blockLength > coverImageSamples.length) {
+            throw new ArrayIndexOutOfBoundsException(blockStart + blockLength);
+        }
+        int syndrome = 0;
+        for (int group = 0, groupStart = 0; groupStart < blockLength; group++, groupStart += 8) {
+            // gather the least significant bits of (at most) 8 samples, and look up their syndrome
+            int groupEnd = Math.min(groupStart + 8, blockLength);
+            int mask = 0;
+            for (int i = groupStart; i < groupEnd; i++) {
+                mask |= (coverImageSamples[blockStart + i] & 0x01) << (i - groupStart);
+            }
+            syndrome ^= SYNDROME_TABLE[group][mask];
+        }
+        return syndrome;
+    }
+
+    /**
+     * Returns the syndrome with its bits replaced by the bits of 'bytes' (the bit 'blockBit' of the
+     * bytes, which may be negative, for the first bit of the block), where there are such bits.
+     */
+    private static int replaceBits(int syndrome, byte[] bytes, long blockBit, int blockBits) {
+        int message = syndrome;
+        for (int i = 0; i < blockBits; i++) {
+            long bit = blockBit + i;
+            if (bit >= 0 && bit < bytes.length * 8L) {
+                int bitToAdd = (bytes[(int) (bit >>> 3)] >>> (7 - (int) (bit & 7))) & 0x01;
+                int bitPosition = blockBits - i - 1;
+                message = (message & ~(1 << bitPosition)) | (bitToAdd << bitPosition);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Copies the bits of the syndrome to 'bytes' (the first bit to the bit 'blockBit' of the bytes,
+     * which may be negative), where there are such bits.
+     */
+    private static void copyBits(int syndrome, byte[] bytes, long blockBit, int blockBits) {
+        for (int i = 0; i < blockBits; i++) {
+            long bit = blockBit + i;
+            if (bit >= 0 && bit < bytes.length * 8L) {
+                int decodedBit = (syndrome >>> (blockBits - i - 1)) & 0x01;
+                bytes[(int) (bit >>> 3)] |= decodedBit << (7 - (int) (bit & 7));
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package steganography.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, with buckets whose bounds grow exponentially: bucket 'i' holds the
+ * latencies between 2^(i - 1) and 2^i microseconds (bucket 0 holds everything below 1 microsecond,
+ * and the last bucket everything above ~35 minutes). A percentile is therefore known within a
+ * factor of 2, which is enough to see regressions, and recording a latency is a single atomic
+ * increment (no locks, no allocations).
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMillis() {
+        long currentCount = count.get();
+        return currentCount == 0 ? 0 : totalNanos.get() / 1e6 / currentCount;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the upper bound (in milliseconds) of the bucket that holds the given percentile
+     * (between 0 and 100) of the recorded latencies, or 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double percentile) {
+        long currentCount = 0;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            currentCount += counts[i];
+        }
+        if (currentCount == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * currentCount);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
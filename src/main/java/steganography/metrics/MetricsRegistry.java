@@ -0,0 +1,191 @@
+package steganography.metrics;
+
+import exceptions.SteganographyException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the metrics of the steganography operations (encoding, decoding and probing
+ * files): their latencies, the number of payload bytes embedded (in total, and per second over the
+ * last minute), how much of the capacity of the carriers is used, and the number of failures, by
+ * the title of their SteganographyException.
+ *
+ * The metrics are exported over JMX (see SteganographyMetricsMBean) once registerMBean is called,
+ * under the name OBJECT_NAME.
+ */
+public class MetricsRegistry {
+    public static final String OBJECT_NAME = "steganography:type=Metrics";
+
+    // the embedded bytes of every second of the last minute
+    private static final int THROUGHPUT_WINDOW_SECONDS = 60;
+
+    /**
+     * The measured operations.
+     */
+    public enum Operation {
+        ENCODE, DECODE, PROBE
+    }
+
+    private static final Map<Operation, LatencyHistogram> LATENCIES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> FAILURES = new ConcurrentHashMap<>();
+    private static final LongAdder EMBEDDED_BYTES = new LongAdder();
+    private static final LongAdder EXTRACTED_BYTES = new LongAdder();
+    private static final AtomicLongArray EMBEDDED_BYTES_PER_SECOND = new AtomicLongArray(THROUGHPUT_WINDOW_SECONDS);
+    private static final AtomicLongArray SECOND_OF_BUCKET = new AtomicLongArray(THROUGHPUT_WINDOW_SECONDS);
+    private static final LongAdder UTILISATION_COUNT = new LongAdder();
+    private static final AtomicLong UTILISATION_PPM_SUM = new AtomicLong();
+
+    static {
+        for (Operation operation : Operation.values()) {
+            LATENCIES.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Registers the MBean in the platform MBean server (doing nothing if it is already registered).
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new SteganographyMetrics(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("The metrics MBean could not be registered.", e);
+        }
+    }
+
+    /**
+     * Returns the time from which the latency of an operation is measured.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a successful operation, started at 'startNanos' (see start).
+     */
+    public static void recordSuccess(Operation operation, long startNanos) {
+        LATENCIES.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a failed operation, started at 'startNanos' (see start).
+     */
+    public static void recordFailure(Operation operation, long startNanos, SteganographyException exception) {
+        LATENCIES.get(operation).record(System.nanoTime() - startNanos);
+        FAILURES.computeIfAbsent(exception.getTitle(), title -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records payload bytes embedded in a carrier.
+     */
+    public static void recordEmbeddedBytes(long bytes) {
+        EMBEDDED_BYTES.add(bytes);
+
+        // add the bytes to the bucket of the current second (resetting the bucket if it was used a minute ago)
+        long second = System.currentTimeMillis() / 1000;
+        int bucket = (int) (second % THROUGHPUT_WINDOW_SECONDS);
+        long bucketSecond = SECOND_OF_BUCKET.get(bucket);
+        if (bucketSecond != second && SECOND_OF_BUCKET.compareAndSet(bucket, bucketSecond, second)) {
+            EMBEDDED_BYTES_PER_SECOND.set(bucket, 0);
+        }
+        EMBEDDED_BYTES_PER_SECOND.addAndGet(bucket, bytes);
+    }
+
+    /**
+     * Records payload bytes extracted from a carrier.
+     */
+    public static void recordExtractedBytes(long bytes) {
+        EXTRACTED_BYTES.add(bytes);
+    }
+
+    /**
+     * Records how much of the capacity of a carrier an encoded file uses.
+     */
+    public static void recordCapacityUtilisation(long encodedBytes, long capacityBytes) {
+        if (capacityBytes <= 0) {
+            return;
+        }
+        UTILISATION_COUNT.increment();
+        UTILISATION_PPM_SUM.addAndGet(Math.min(1_000_000, encodedBytes * 1_000_000 / capacityBytes));
+    }
+
+    public static LatencyHistogram getLatencies(Operation operation) {
+        return LATENCIES.get(operation);
+    }
+
+    public static long getEmbeddedBytes() {
+        return EMBEDDED_BYTES.sum();
+    }
+
+    public static long getExtractedBytes() {
+        return EXTRACTED_BYTES.sum();
+    }
+
+    /**
+     * Returns the mean number of bytes embedded per second, over the last minute.
+     */
+    public static double getEmbeddedBytesPerSecond() {
+        long second = System.currentTimeMillis() / 1000;
+        long bytes = 0;
+        for (int bucket = 0; bucket < THROUGHPUT_WINDOW_SECONDS; bucket++) {
+            if (second - SECOND_OF_BUCKET.get(bucket) < THROUGHPUT_WINDOW_SECONDS) {
+                bytes += EMBEDDED_BYTES_PER_SECOND.get(bucket);
+            }
+        }
+        return (double) bytes / THROUGHPUT_WINDOW_SECONDS;
+    }
+
+    /**
+     * Returns the mean fraction (between 0 and 1) of the carrier capacity used by the encoded files.
+     */
+    public static double getMeanCapacityUtilisation() {
+        long count = UTILISATION_COUNT.sum();
+        return count == 0 ? 0 : UTILISATION_PPM_SUM.get() / 1e6 / count;
+    }
+
+    /**
+     * Returns the number of failures, by the title of their SteganographyException.
+     */
+    public static Map<String, Long> getFailureCounts() {
+        Map<String, Long> failureCounts = new TreeMap<>();
+        FAILURES.forEach((title, count) -> failureCounts.put(title, count.sum()));
+        return failureCounts;
+    }
+
+    public static long getFailureCount() {
+        long failureCount = 0;
+        for (LongAdder count : FAILURES.values()) {
+            failureCount += count.sum();
+        }
+        return failureCount;
+    }
+
+    /**
+     * Resets all the metrics.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : LATENCIES.values()) {
+            histogram.reset();
+        }
+        FAILURES.clear();
+        EMBEDDED_BYTES.reset();
+        EXTRACTED_BYTES.reset();
+        for (int bucket = 0; bucket < THROUGHPUT_WINDOW_SECONDS; bucket++) {
+            EMBEDDED_BYTES_PER_SECOND.set(bucket, 0);
+        }
+        UTILISATION_COUNT.reset();
+        UTILISATION_PPM_SUM.set(0);
+    }
+}
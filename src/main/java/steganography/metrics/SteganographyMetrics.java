@@ -0,0 +1,159 @@
+package steganography.metrics;
+
+import steganography.ImageCache;
+import steganography.buffer.BufferPool;
+import steganography.metrics.MetricsRegistry.Operation;
+
+import java.util.Map;
+
+/**
+ * The MBean that exports the metrics of MetricsRegistry, BufferPool and ImageCache.
+ */
+public class SteganographyMetrics implements SteganographyMetricsMBean {
+    @Override
+    public long getEncodeCount() {
+        return MetricsRegistry.getLatencies(Operation.ENCODE).getCount();
+    }
+
+    @Override
+    public double getEncodeLatencyMeanMillis() {
+        return MetricsRegistry.getLatencies(Operation.ENCODE).getMeanMillis();
+    }
+
+    @Override
+    public double getEncodeLatencyP50Millis() {
+        return MetricsRegistry.getLatencies(Operation.ENCODE).getPercentileMillis(50);
+    }
+
+    @Override
+    public double getEncodeLatencyP99Millis() {
+        return MetricsRegistry.getLatencies(Operation.ENCODE).getPercentileMillis(99);
+    }
+
+    @Override
+    public double getEncodeLatencyMaxMillis() {
+        return MetricsRegistry.getLatencies(Operation.ENCODE).getMaxMillis();
+    }
+
+    @Override
+    public long getDecodeCount() {
+        return MetricsRegistry.getLatencies(Operation.DECODE).getCount();
+    }
+
+    @Override
+    public double getDecodeLatencyMeanMillis() {
+        return MetricsRegistry.getLatencies(Operation.DECODE).getMeanMillis();
+    }
+
+    @Override
+    public double getDecodeLatencyP50Millis() {
+        return MetricsRegistry.getLatencies(Operation.DECODE).getPercentileMillis(50);
+    }
+
+    @Override
+    public double getDecodeLatencyP99Millis() {
+        return MetricsRegistry.getLatencies(Operation.DECODE).getPercentileMillis(99);
+    }
+
+    @Override
+    public double getDecodeLatencyMaxMillis() {
+        return MetricsRegistry.getLatencies(Operation.DECODE).getMaxMillis();
+    }
+
+    @Override
+    public long getProbeCount() {
+        return MetricsRegistry.getLatencies(Operation.PROBE).getCount();
+    }
+
+    @Override
+    public double getProbeLatencyMeanMillis() {
+        return MetricsRegistry.getLatencies(Operation.PROBE).getMeanMillis();
+    }
+
+    @Override
+    public double getProbeLatencyP99Millis() {
+        return MetricsRegistry.getLatencies(Operation.PROBE).getPercentileMillis(99);
+    }
+
+    @Override
+    public long getEmbeddedBytes() {
+        return MetricsRegistry.getEmbeddedBytes();
+    }
+
+    @Override
+    public long getExtractedBytes() {
+        return MetricsRegistry.getExtractedBytes();
+    }
+
+    @Override
+    public double getEmbeddedBytesPerSecond() {
+        return MetricsRegistry.getEmbeddedBytesPerSecond();
+    }
+
+    @Override
+    public double getMeanCapacityUtilisation() {
+        return MetricsRegistry.getMeanCapacityUtilisation();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return MetricsRegistry.getFailureCount();
+    }
+
+    @Override
+    public String[] getFailureCountsByTitle() {
+        Map<String, Long> failureCounts = MetricsRegistry.getFailureCounts();
+        String[] failures = new String[failureCounts.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : failureCounts.entrySet()) {
+            failures[i++] = entry.getKey() + "=" + entry.getValue();
+        }
+        return failures;
+    }
+
+    @Override
+    public long getBufferPoolHitCount() {
+        return BufferPool.getHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMissCount() {
+        return BufferPool.getMissCount();
+    }
+
+    @Override
+    public double getBufferPoolHitRatio() {
+        return BufferPool.getHitRatio();
+    }
+
+    @Override
+    public long getBufferPoolDropCount() {
+        return BufferPool.getDropCount();
+    }
+
+    @Override
+    public int getImageCacheImageCount() {
+        return ImageCache.getImageCount();
+    }
+
+    @Override
+    public long getImageCacheBytes() {
+        return ImageCache.getCachedBytes();
+    }
+
+    @Override
+    public long getImageCacheHitCount() {
+        return ImageCache.getHitCount();
+    }
+
+    @Override
+    public long getImageCacheMissCount() {
+        return ImageCache.getMissCount();
+    }
+
+    @Override
+    public void resetMetrics() {
+        MetricsRegistry.reset();
+        BufferPool.resetStatistics();
+    }
+}
@@ -0,0 +1,66 @@
+package steganography.metrics;
+
+/**
+ * The metrics exported over JMX (see MetricsRegistry). The latencies are in milliseconds;
+ * the percentiles are the upper bounds of the histogram buckets (see LatencyHistogram).
+ */
+public interface SteganographyMetricsMBean {
+    long getEncodeCount();
+
+    double getEncodeLatencyMeanMillis();
+
+    double getEncodeLatencyP50Millis();
+
+    double getEncodeLatencyP99Millis();
+
+    double getEncodeLatencyMaxMillis();
+
+    long getDecodeCount();
+
+    double getDecodeLatencyMeanMillis();
+
+    double getDecodeLatencyP50Millis();
+
+    double getDecodeLatencyP99Millis();
+
+    double getDecodeLatencyMaxMillis();
+
+    long getProbeCount();
+
+    double getProbeLatencyMeanMillis();
+
+    double getProbeLatencyP99Millis();
+
+    long getEmbeddedBytes();
+
+    long getExtractedBytes();
+
+    double getEmbeddedBytesPerSecond();
+
+    double getMeanCapacityUtilisation();
+
+    long getFailureCount();
+
+    /**
+     * The number of failures by the title of their SteganographyException, as "title=count" strings.
+     */
+    String[] getFailureCountsByTitle();
+
+    long getBufferPoolHitCount();
+
+    long getBufferPoolMissCount();
+
+    double getBufferPoolHitRatio();
+
+    long getBufferPoolDropCount();
+
+    int getImageCacheImageCount();
+
+    long getImageCacheBytes();
+
+    long getImageCacheHitCount();
+
+    long getImageCacheMissCount();
+
+    void resetMetrics();
+}
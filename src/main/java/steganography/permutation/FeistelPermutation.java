@@ -0,0 +1,88 @@
+package steganography.permutation;
+
+/**
+ * A keyed permutation of the indices 0 ... length - 1 (of the bytes of a cover), which can be
+ * computed for any index on its own (so the encoding and the decoding can start at any offset,
+ * and different chunks can be done in parallel).
+ *
+ * It is a Feistel network over the smallest number of bits that holds all the indices (a
+ * permutation of 0 ... 2^bits - 1, less than 2 times larger than the cover), whose rounds update
+ * its two halves in turn (the halves differ by one bit when the number of bits is odd), restricted
+ * to the cover by cycle walking: an index outside of the cover is permuted again, until it falls
+ * inside of it (about 1.5 times on average). Since the Feistel network is a bijection, the cycle
+ * walking gives a bijection of the cover indices as well, so no byte of the cover is ever used twice.
+ */
+public class FeistelPermutation {
+    private static final int ROUNDS = 6;
+
+    private final int length;
+    private final int rightBits;
+    private final long leftMask;
+    private final long rightMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public FeistelPermutation(long key, int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("The permutation needs at least one index.");
+        }
+        this.length = length;
+
+        // the smallest number of bits (at least 2) holding all the indices, split in two halves
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(length - 1L));
+        this.rightBits = bits / 2;
+        this.leftMask = (1L << (bits - rightBits)) - 1;
+        this.rightMask = (1L << rightBits) - 1;
+
+        // the round keys are derived from the key
+        long state = key;
+        for (int round = 0; round < ROUNDS; round++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[round] = mix(state);
+        }
+    }
+
+    /**
+     * Returns the number of permuted indices.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the index to which 'index' is permuted. Throws an ArrayIndexOutOfBoundsException
+     * if the index is not between 0 and length - 1.
+     */
+    public int getIndex(long index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of " + length);
+        }
+        long permutedIndex = index;
+        do {
+            permutedIndex = encrypt(permutedIndex);
+        } while (permutedIndex >= length);
+        return (int) permutedIndex;
+    }
+
+    /**
+     * The Feistel network itself: every round changes one half using the other one (and the round
+     * key), which can be undone, so the network is a bijection.
+     */
+    private long encrypt(long value) {
+        long left = value >>> rightBits;
+        long right = value & rightMask;
+        for (int round = 0; round < ROUNDS; round += 2) {
+            left ^= mix(right ^ roundKeys[round]) & leftMask;
+            right ^= mix(left ^ roundKeys[round + 1]) & rightMask;
+        }
+        return (left << rightBits) | right;
+    }
+
+    /**
+     * The finalizer of SplitMix64: every bit of the result depends on every bit of the value.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,46 @@
+package steganography.permutation;
+
+import exceptions.SteganographyException;
+
+/**
+ * This class contains the "permutation,key" steganography method: the bytes of the cover are used
+ * in the order given by a keyed permutation of all of them (see FeistelPermutation), so the encoded
+ * file is spread uniformly over the whole image, without using any byte twice (unlike the random
+ * method, whose jumps only cover a part of the image, depending on the bounds), and the capacity is
+ * the same as with the method "1".
+ */
+public class PermutationUtils {
+    public static final String METHOD_NAME = "permutation";
+
+    /**
+     * Returns true if the steganography method is the permutation method.
+     */
+    public static boolean isPermutationMethod(String methodString) {
+        return methodString.startsWith(METHOD_NAME);
+    }
+
+    /**
+     * Returns the key of the method "permutation,key". Throws a SteganographyException if the
+     * method string is invalid.
+     */
+    public static long getKey(String methodString) {
+        String[] split = methodString.split(",");
+        try {
+            if (split.length == 2 && split[0].equals(METHOD_NAME)) {
+                return Long.parseLong(split[1]);
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new SteganographyException(
+                "Invalid steganography method!",
+                "The permutation method should be 'permutation,key', where the key is a number.");
+    }
+
+    /**
+     * Creates the permutation of the 'coverLength' bytes of a cover, for the method "permutation,key".
+     */
+    public static FeistelPermutation createPermutation(String methodString, int coverLength) {
+        return new FeistelPermutation(getKey(methodString), coverLength);
+    }
+}
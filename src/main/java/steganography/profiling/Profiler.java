@@ -0,0 +1,147 @@
+package steganography.profiling;
+
+import steganography.permutation.PermutationUtils;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * This class records the stages of encoding and decoding files (loading the image, copying it,
+ * encrypting and embedding every chunk, writing the encoded image etc.) as Java Flight Recorder
+ * events, so that a slow encoding can be profiled without changing the code:
+ *
+ *   java -XX:StartFlightRecording=filename=recording.jfr ...
+ *
+ * Usage, around every stage:
+ *
+ *   Object event = Profiler.begin("embed");
+ *   ... (the stage itself)
+ *   Profiler.end(event, chunkLength);
+ *
+ * Every event also has the details of the current operation (the carrier size, 'bitsUsed',
+ * the steganography method and the cipher), which are set once per operation, for the current
+ * thread, with startOperation / setCarrier / endOperation. For security, the seed of the random
+ * method and the encryption key are never recorded.
+ *
+ * When Flight Recorder is not recording (or not available at all), begin returns null and end
+ * does nothing, so the stages cost nothing more than a check.
+ */
+public class Profiler {
+    private static final String RECORDER_CLASS = "steganography.profiling.EventStageRecorder";
+    private static final StageRecorder RECORDER = loadRecorder();
+    private static final boolean AVAILABLE = RECORDER != null;
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * The details of the operation done by a thread, added to all its events.
+     */
+    static class Context {
+        int carrierWidth;
+        int carrierHeight;
+        int bitsUsed;
+        String method;
+        String cipher;
+    }
+
+    /**
+     * Loads the stage recorder (see StageRecorder), or returns null if Flight Recorder is not available.
+     */
+    private static StageRecorder loadRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (StageRecorder) Class.forName(RECORDER_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts an operation (encoding or decoding a file) on the current thread.
+     */
+    public static void startOperation(int bitsUsed, String methodString, String encryptionMethodString) {
+        if (!AVAILABLE) {
+            return;
+        }
+        Context context = new Context();
+        context.bitsUsed = bitsUsed;
+        context.method = getMethodName(methodString);
+        context.cipher = getCipherName(encryptionMethodString);
+        CONTEXT.set(context);
+    }
+
+    /**
+     * Sets the carrier image of the current operation (once it is loaded).
+     */
+    public static void setCarrier(BufferedImage image) {
+        Context context = AVAILABLE ? CONTEXT.get() : null;
+        if (context != null) {
+            context.carrierWidth = image.getWidth();
+            context.carrierHeight = image.getHeight();
+        }
+    }
+
+    /**
+     * Ends the operation of the current thread.
+     */
+    public static void endOperation() {
+        if (AVAILABLE) {
+            CONTEXT.remove();
+        }
+    }
+
+    /**
+     * Begins a stage. Returns the event of the stage, or null if it is not recorded.
+     */
+    public static Object begin(String stage) {
+        return AVAILABLE ? RECORDER.begin(stage) : null;
+    }
+
+    /**
+     * Ends a stage that processed no payload bytes.
+     */
+    public static void end(Object event) {
+        end(event, 0);
+    }
+
+    /**
+     * Ends a stage that processed 'payloadBytes' bytes of the payload.
+     */
+    public static void end(Object event, long payloadBytes) {
+        if (event != null) {
+            RECORDER.end(event, CONTEXT.get(), payloadBytes);
+        }
+    }
+
+    /**
+     * Returns the steganography method, without the seed of the random method (or the key of the
+     * permutation method).
+     */
+    private static String getMethodName(String methodString) {
+        if (methodString == null) {
+            return null;
+        }
+        if (methodString.contains("random")) {
+            String[] split = methodString.split(",");
+            return split.length == 4 ? "random,*," + split[2] + "," + split[3] : "random";
+        }
+        if (PermutationUtils.isPermutationMethod(methodString)) {
+            return "permutation,*";
+        }
+        return methodString;
+    }
+
+    /**
+     * Returns the name of the cipher, without its key.
+     */
+    private static String getCipherName(String encryptionMethodString) {
+        if (encryptionMethodString == null || encryptionMethodString.isEmpty()) {
+            return "none";
+        }
+        if (encryptionMethodString.contains("caesar")) {
+            return "caesar";
+        }
+        if (encryptionMethodString.contains("vigenere")) {
+            return "vigenere";
+        }
+        return "unknown";
+    }
+}
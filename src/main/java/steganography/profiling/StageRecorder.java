@@ -0,0 +1,18 @@
+package steganography.profiling;
+
+/**
+ * Records the stages of the Profiler as Flight Recorder events. Its implementation (EventStageRecorder,
+ * with StageEvent) uses the jdk.jfr API, which is missing from the Java 8 API the main classes are
+ * compiled against, so it is compiled separately (src/main/jfr) and loaded by its name.
+ */
+interface StageRecorder {
+    /**
+     * Begins a stage. Returns its event, or null if the event is not recorded.
+     */
+    Object begin(String stage);
+
+    /**
+     * Ends the event of a stage which processed 'payloadBytes' bytes of the payload.
+     */
+    void end(Object event, Profiler.Context context, long payloadBytes);
+}
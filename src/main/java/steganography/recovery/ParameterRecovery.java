@@ -0,0 +1,172 @@
+package steganography.recovery;
+
+import steganography.DecodingSource;
+import steganography.SteganographyUtils;
+import steganography.engine.EngineParameters;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * This class finds the parameters ('bitsUsed', steganography method and encryption method) with
+ * which a file was encoded in an image, when they are no longer known, by trying all of them.
+ *
+ * Only the signature of the encoded file is decoded for every combination. Since every encryption
+ * method encrypts the signature into known bytes, the first byte of every encrypted signature is
+ * computed once, and the encryption methods are grouped by it. For every 'bitsUsed' & steganography
+ * method, a single byte is decoded first; only if it is the first byte of an encrypted signature is
+ * the whole signature decoded and checked (so almost every combination is rejected after decoding a single byte,
+ * no matter how many encryption methods are tried).
+ *
+ * The combinations are split in blocks, which are tried in parallel on all the available cores.
+ */
+public class ParameterRecovery {
+    private static final int BLOCK_SIZE = 4096;
+
+    private final int minBitsUsed;
+    private final int maxBitsUsed;
+    private final int threadCount;
+
+    // the encryption methods, grouped by the first byte of their encrypted signatures
+    private final List<List<String>> encryptionMethodsByFirstByte = new ArrayList<>();
+    private final AtomicLong testedCount = new AtomicLong();
+
+    /**
+     * Creates a recovery that tries every 'bitsUsed' between 'minBitsUsed' and 'maxBitsUsed' (inclusive)
+     * with every given encryption method ("" meaning no encryption), using 'threadCount' threads.
+     */
+    public ParameterRecovery(int minBitsUsed, int maxBitsUsed, List<String> encryptionMethodStrings, int threadCount) {
+        if (minBitsUsed < 1 || maxBitsUsed > 8 || minBitsUsed > maxBitsUsed) {
+            throw new IllegalArgumentException("The bits used must be between 1 and 8.");
+        }
+        if (encryptionMethodStrings.isEmpty() || threadCount < 1) {
+            throw new IllegalArgumentException("At least one encryption method and one thread are needed.");
+        }
+        this.minBitsUsed = minBitsUsed;
+        this.maxBitsUsed = maxBitsUsed;
+        this.threadCount = threadCount;
+
+        for (int i = 0; i < 256; i++) {
+            encryptionMethodsByFirstByte.add(new ArrayList<>());
+        }
+        for (String encryptionMethodString : encryptionMethodStrings) {
+            byte firstByte = SteganographyUtils.getEncryptedSignatureFirstByte(encryptionMethodString);
+            encryptionMethodsByFirstByte.get(firstByte & 0xFF).add(encryptionMethodString);
+        }
+    }
+
+    /**
+     * Returns the number of combinations tried so far (can be read while a search is running).
+     */
+    public long getTestedCount() {
+        return testedCount.get();
+    }
+
+    /**
+     * Tries every stride (the "n" method) between 'minStride' and 'maxStride' (inclusive).
+     * Returns the combinations for which the image contains an encoded file.
+     */
+    public List<EngineParameters> recoverStride(BufferedImage coverImage, int minStride, int maxStride)
+            throws InterruptedException {
+        if (minStride < 1 || minStride > maxStride) {
+            throw new IllegalArgumentException("The strides must be positive.");
+        }
+        return search(coverImage, (long) maxStride - minStride + 1, index -> Long.toString(minStride + index));
+    }
+
+    /**
+     * Tries every seed of the random method between 'minSeed' and 'maxSeed' (inclusive), with the
+     * given bounds of the random jumps. Returns the combinations for which the image contains an encoded file.
+     */
+    public List<EngineParameters> recoverRandom(BufferedImage coverImage, long minSeed, long maxSeed,
+                                                int lowerBound, int upperBound) throws InterruptedException {
+        if (minSeed > maxSeed || lowerBound < 1 || lowerBound >= upperBound) {
+            throw new IllegalArgumentException("Invalid seed range or bounds.");
+        }
+        String boundsString = "," + lowerBound + "," + upperBound;
+        return search(coverImage, maxSeed - minSeed + 1, index -> "random," + (minSeed + index) + boundsString);
+    }
+
+    /**
+     * Tries 'methodCount' steganography methods (the method with a given index is obtained from 'methodAt')
+     * with every 'bitsUsed' and every encryption method, in blocks of BLOCK_SIZE methods.
+     */
+    private List<EngineParameters> search(BufferedImage coverImage, long methodCount, LongFunction<String> methodAt)
+            throws InterruptedException {
+        List<EngineParameters> matches = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "recovery-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int bitsUsed = minBitsUsed; bitsUsed <= maxBitsUsed; bitsUsed++) {
+                for (long blockStart = 0; blockStart < methodCount; blockStart += BLOCK_SIZE) {
+                    int currentBitsUsed = bitsUsed;
+                    long currentBlockStart = blockStart;
+                    long blockEnd = Math.min(methodCount, blockStart + BLOCK_SIZE);
+                    futures.add(executor.submit(() -> {
+                        for (long index = currentBlockStart; index < blockEnd; index++) {
+                            tryMethod(coverImage, currentBitsUsed, methodAt.apply(index), matches);
+                        }
+                        testedCount.addAndGet(blockEnd - currentBlockStart);
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // sort the matches, so that the result doesn't depend on the order in which the blocks finished
+        List<EngineParameters> sortedMatches = new ArrayList<>(matches);
+        sortedMatches.sort(Comparator.comparingInt(EngineParameters::getBitsUsed)
+                .thenComparing(EngineParameters::getMethodString)
+                .thenComparing(EngineParameters::getEncryptionMethodString));
+        return sortedMatches;
+    }
+
+    /**
+     * Tries a 'bitsUsed' & steganography method with all the encryption methods, adding the matches to the list.
+     */
+    private void tryMethod(BufferedImage coverImage, int bitsUsed, String methodString,
+                           List<EngineParameters> matches) {
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+
+        // decode the first byte, and reject the method if no encrypted signature starts with it
+        byte[] signatureBytes;
+        try {
+            signatureBytes = source.decodeBytes(0, 1);
+        } catch (RuntimeException e) {
+            return;
+        }
+        List<String> encryptionMethodStrings = encryptionMethodsByFirstByte.get(signatureBytes[0] & 0xFF);
+        if (encryptionMethodStrings.isEmpty()) {
+            return;
+        }
+
+        // decode the whole signature, for the encryption methods that weren't rejected
+        for (String encryptionMethodString : encryptionMethodStrings) {
+            if (SteganographyUtils.hasEncodedFile(source, encryptionMethodString)) {
+                matches.add(new EngineParameters(bitsUsed, methodString, encryptionMethodString));
+            }
+        }
+    }
+}
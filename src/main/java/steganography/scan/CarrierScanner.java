@@ -0,0 +1,201 @@
+package steganography.scan;
+
+import exceptions.SteganographyException;
+import steganography.SteganographyUtils;
+import steganography.engine.EngineParameters;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class finds out which carriers (images) contain an encoded file, for a set of candidates
+ * (combinations of 'bitsUsed', steganography method and encryption method).
+ *
+ * Only the signature of an encoded file is checked, and the signature is found in the first
+ * samples of an image. So instead of decoding the whole image once for every candidate, only
+ * the first rows of every image are decoded (enough rows for the candidate that needs the most
+ * samples, see SteganographyUtils.getSignatureSampleCount), and all the candidates are checked
+ * on these rows.
+ *
+ * The carrier files are read by a pool of I/O threads (which mostly wait for the disk), and the
+ * rows are decoded and checked by a separate pool of CPU threads. The number of carriers being
+ * processed at any moment is limited, so that the carriers read from the disk don't pile up
+ * when the CPU threads fall behind.
+ */
+public class CarrierScanner {
+    private final List<EngineParameters> candidates;
+    private final int ioThreadCount;
+    private final int cpuThreadCount;
+    private final long headerSampleCount;
+
+    public CarrierScanner(List<EngineParameters> candidates, int ioThreadCount, int cpuThreadCount) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("At least one candidate is needed.");
+        }
+        if (ioThreadCount < 1 || cpuThreadCount < 1) {
+            throw new IllegalArgumentException("The thread counts must be positive.");
+        }
+        this.candidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+        this.ioThreadCount = ioThreadCount;
+        this.cpuThreadCount = cpuThreadCount;
+
+        // the number of samples needed by all the candidates
+        long sampleCount = 0;
+        for (EngineParameters candidate : candidates) {
+            sampleCount = Math.max(sampleCount, SteganographyUtils.getSignatureSampleCount(
+                    candidate.getBitsUsed(), candidate.getMethodString()));
+        }
+        this.headerSampleCount = sampleCount;
+    }
+
+    public List<EngineParameters> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Scans all the carriers, giving the result of every carrier to the listener as soon as it is
+     * known (so the results are not in the order of the carriers). The listener is called by a
+     * single thread at a time. Returns the number of carriers that matched at least one candidate.
+     */
+    public int scan(List<File> carrierFiles, Consumer<ScanResult> listener) throws InterruptedException {
+        ExecutorService ioExecutor = Executors.newFixedThreadPool(ioThreadCount, createThreadFactory("scan-io"));
+        ExecutorService cpuExecutor = Executors.newFixedThreadPool(cpuThreadCount, createThreadFactory("scan-cpu"));
+        Semaphore carriersInProgress = new Semaphore(2 * (ioThreadCount + cpuThreadCount));
+        CountDownLatch remainingCarriers = new CountDownLatch(carrierFiles.size());
+        AtomicInteger matchedCarriers = new AtomicInteger();
+
+        // the result of a carrier is reported, and the carrier makes room for the next one
+        Consumer<ScanResult> reporter = result -> {
+            if (!result.getMatchingCandidates().isEmpty()) {
+                matchedCarriers.incrementAndGet();
+            }
+            synchronized (listener) {
+                listener.accept(result);
+            }
+            carriersInProgress.release();
+            remainingCarriers.countDown();
+        };
+
+        try {
+            for (File carrierFile : carrierFiles) {
+                carriersInProgress.acquire();
+                ioExecutor.execute(() -> {
+                    // read the carrier file, then check it on a CPU thread
+                    byte[] carrierBytes;
+                    try {
+                        carrierBytes = Files.readAllBytes(carrierFile.toPath());
+                    } catch (IOException | RuntimeException e) {
+                        reporter.accept(new ScanResult(carrierFile, Collections.emptyList(),
+                                "The file can not be read!"));
+                        return;
+                    }
+                    cpuExecutor.execute(() -> {
+                        ScanResult result;
+                        try {
+                            result = scanCarrier(carrierFile, carrierBytes);
+                        } catch (RuntimeException e) {
+                            result = new ScanResult(carrierFile, Collections.emptyList(), e.toString());
+                        }
+                        reporter.accept(result);
+                    });
+                });
+            }
+            remainingCarriers.await();
+        } finally {
+            ioExecutor.shutdownNow();
+            cpuExecutor.shutdownNow();
+        }
+        return matchedCarriers.get();
+    }
+
+    /**
+     * Decodes the first rows of a carrier and checks all the candidates on them.
+     */
+    private ScanResult scanCarrier(File carrierFile, byte[] carrierBytes) {
+        BufferedImage headerImage;
+        try {
+            headerImage = readHeaderRows(carrierBytes);
+        } catch (SteganographyException e) {
+            return new ScanResult(carrierFile, Collections.emptyList(), e.getTitle() + " " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            return new ScanResult(carrierFile, Collections.emptyList(), "The chosen image is invalid!");
+        }
+
+        // the copy of the first rows has the same samples as the first rows of a copy of the whole image
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(headerImage);
+        List<Integer> matchingCandidates = new ArrayList<>();
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                EngineParameters candidate = candidates.get(i);
+                if (SteganographyUtils.hasEncodedFile(SteganographyUtils.createDecodingSource(coverImage,
+                        candidate.getBitsUsed(), candidate.getMethodString()),
+                        candidate.getEncryptionMethodString())) {
+                    matchingCandidates.add(i);
+                }
+            }
+        } finally {
+            SteganographyUtils.releaseCopyOfImage(coverImage);
+        }
+        return new ScanResult(carrierFile, matchingCandidates, null);
+    }
+
+    /**
+     * Decodes only the first rows of an image (enough of them to contain 'headerSampleCount' samples,
+     * even if every pixel has a single sample). Readers that support source regions (e.g. the PNG
+     * reader) stop decoding after these rows.
+     */
+    private BufferedImage readHeaderRows(byte[] carrierBytes) throws IOException {
+        try (ImageInputStream imageStream = ImageIO.createImageInputStream(new ByteArrayInputStream(carrierBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                throw new SteganographyException(
+                        "The chosen image is invalid!",
+                        "Please select an image.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                long rowCount = Math.min(height, (headerSampleCount + width - 1) / width);
+
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                readParam.setSourceRegion(new Rectangle(0, 0, width, (int) rowCount));
+                return reader.read(0, readParam);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads named 'namePrefix-1', 'namePrefix-2' etc.
+     */
+    private static ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package steganography.scan;
+
+import utils.JsonUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of scanning a single carrier: the indices of the candidates (method & key
+ * combinations) for which the carrier contains an encoded file, or the error message
+ * if the carrier could not be scanned.
+ */
+public class ScanResult {
+    private final File carrierFile;
+    private final List<Integer> matchingCandidates;
+    private final String errorMessage;
+
+    public ScanResult(File carrierFile, List<Integer> matchingCandidates, String errorMessage) {
+        this.carrierFile = carrierFile;
+        this.matchingCandidates = Collections.unmodifiableList(matchingCandidates);
+        this.errorMessage = errorMessage;
+    }
+
+    public File getCarrierFile() {
+        return carrierFile;
+    }
+
+    public List<Integer> getMatchingCandidates() {
+        return matchingCandidates;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Returns the result as a single line of JSON, e.g.
+     * {"file":"images/a.png","matches":[0,3]} or {"file":"images/b.txt","error":"..."}.
+     */
+    public String toJsonLine() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"file\":").append(JsonUtils.quote(carrierFile.getPath()));
+        if (errorMessage != null) {
+            json.append(",\"error\":").append(JsonUtils.quote(errorMessage));
+        } else {
+            json.append(",\"matches\":[");
+            for (int i = 0; i < matchingCandidates.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(matchingCandidates.get(i));
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,30 @@
+package steganography.simd;
+
+/**
+ * The loops of the plain LSB encoding (stride 1, with a 'bitsUsed' that divides 8, so that every
+ * added byte is spread over exactly 8 / 'bitsUsed' cover bytes) and of the image difference.
+ * The arguments are validated by LsbKernels, so the implementations don't check them.
+ */
+interface LsbKernel {
+    /**
+     * Encodes the added bytes in the cover bytes starting at 'coverOffset', in their 'bitsUsed'
+     * least significant bits (the first bit in the most significant of them).
+     */
+    void encodeBytes(byte[] coverImageBytes, int coverOffset, byte[] addedBytes, int bitsUsed);
+
+    /**
+     * Decodes result.length bytes from the cover bytes starting at 'coverOffset'.
+     */
+    void decodeBytes(byte[] imageBytes, int coverOffset, byte[] result, int bitsUsed);
+
+    /**
+     * Stores in 'difference' the absolute differences of the original and cover bytes (as signed
+     * bytes), shifted by 8 - 'bitsUsed' bits (so that the differences can be seen).
+     */
+    void computeDifference(byte[] originalBytes, byte[] coverBytes, byte[] difference, int bitsUsed);
+
+    /**
+     * Same as the method above, for 16-bit samples (as unsigned shorts), shifted by 16 - 'bitsUsed' bits.
+     */
+    void computeDifference(short[] originalSamples, short[] coverSamples, short[] difference, int bitsUsed);
+}
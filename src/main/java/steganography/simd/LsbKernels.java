@@ -0,0 +1,102 @@
+package steganography.simd;
+
+/**
+ * This class runs the loops of the plain LSB encoding / decoding (stride 1, with a 'bitsUsed' of 1,
+ * 2, 4 or 8) and of the image difference, with the fastest kernel available on the current JVM:
+ * - on Java 17+, started with "--add-modules jdk.incubator.vector", the Vector API (SIMD) kernel
+ *   (VectorLsbKernel, only present in the multi-release JAR, in META-INF/versions/17);
+ * - otherwise, the scalar kernel.
+ *
+ * The vector kernel is loaded by its name (it can't even be loaded on Java 8). It can be disabled
+ * with -Dsteganography.simd=false. LsbKernelsTest checks that it gives exactly the same bytes as the
+ * scalar kernel (run by the "vectorTest" task, on a JDK 17 with the incubator module).
+ */
+public class LsbKernels {
+    private static final String VECTOR_KERNEL_CLASS = "steganography.simd.VectorLsbKernel";
+    private static final LsbKernel SCALAR_KERNEL = new ScalarLsbKernel();
+    private static final LsbKernel KERNEL = selectKernel();
+
+    private static LsbKernel selectKernel() {
+        if ("false".equals(System.getProperty("steganography.simd"))) {
+            return SCALAR_KERNEL;
+        }
+        try {
+            return (LsbKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // no vector kernel (Java 8, or the incubator module is missing)
+            return SCALAR_KERNEL;
+        }
+    }
+
+    /**
+     * Returns true if the vector kernel is used.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR_KERNEL;
+    }
+
+    /**
+     * Returns true if the kernels can encode / decode with 'bitsUsed' bits in every byte (every
+     * encoded byte must be spread over a whole number of cover bytes).
+     */
+    public static boolean supportsBitsUsed(int bitsUsed) {
+        return bitsUsed >= 1 && bitsUsed <= 8 && 8 % bitsUsed == 0;
+    }
+
+    /**
+     * Encodes the added bytes in the cover bytes starting at 'coverOffset' (8 / 'bitsUsed' cover
+     * bytes for every added byte), exactly like SteganographyEncoding.encodeBytesLSB with the
+     * method "1". Throws an IndexOutOfBoundsException (before changing anything) if they don't fit.
+     */
+    public static void encodeBytes(byte[] coverImageBytes, int coverOffset, byte[] addedBytes, int bitsUsed) {
+        checkCoverRange(coverImageBytes.length, coverOffset, addedBytes.length, bitsUsed);
+        KERNEL.encodeBytes(coverImageBytes, coverOffset, addedBytes, bitsUsed);
+    }
+
+    /**
+     * Decodes 'length' bytes from the cover bytes starting at 'coverOffset', exactly like
+     * SteganographyDecoding.decodeBytesLSB with the method "1". Throws an IndexOutOfBoundsException
+     * if there aren't enough cover bytes.
+     */
+    public static byte[] decodeBytes(byte[] imageBytes, int coverOffset, int length, int bitsUsed) {
+        checkCoverRange(imageBytes.length, coverOffset, length, bitsUsed);
+        byte[] result = new byte[length];
+        KERNEL.decodeBytes(imageBytes, coverOffset, result, bitsUsed);
+        return result;
+    }
+
+    /**
+     * Stores in 'difference' the absolute differences of the original and the cover bytes, shifted
+     * left by 8 - 'bitsUsed' bits, to be displayed (the difference array can be the original one).
+     */
+    public static void computeDifference(byte[] originalBytes, byte[] coverBytes, byte[] difference, int bitsUsed) {
+        checkDifferenceLength(originalBytes.length, coverBytes.length, difference.length);
+        KERNEL.computeDifference(originalBytes, coverBytes, difference, bitsUsed);
+    }
+
+    /**
+     * Same as the method above, for 16-bit samples, shifted left by 16 - 'bitsUsed' bits.
+     */
+    public static void computeDifference(short[] originalSamples, short[] coverSamples, short[] difference,
+                                         int bitsUsed) {
+        checkDifferenceLength(originalSamples.length, coverSamples.length, difference.length);
+        KERNEL.computeDifference(originalSamples, coverSamples, difference, bitsUsed);
+    }
+
+    private static void checkCoverRange(int coverLength, int coverOffset, int length, int bitsUsed) {
+        if (!supportsBitsUsed(bitsUsed)) {
+            throw new IllegalArgumentException("Unsupported number of bits: " + bitsUsed);
+        }
+        long coverEnd = coverOffset + (long) length * (8 / bitsUsed);
+        if (coverOffset < 0 || length < 0 || coverEnd > coverLength) {
+            throw new IndexOutOfBoundsException("Cover bytes " + coverOffset + "-" + coverEnd
+                    + " out of " + coverLength);
+        }
+    }
+
+    private static void checkDifferenceLength(int originalLength, int coverLength, int differenceLength) {
+        if (originalLength < differenceLength || coverLength < differenceLength) {
+            throw new IndexOutOfBoundsException("The images have different sizes.");
+        }
+    }
+}
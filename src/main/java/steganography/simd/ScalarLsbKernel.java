@@ -0,0 +1,45 @@
+package steganography.simd;
+
+/**
+ * The scalar loops, used on every JVM (see LsbKernels).
+ */
+class ScalarLsbKernel implements LsbKernel {
+    @Override
+    public void encodeBytes(byte[] coverImageBytes, int coverOffset, byte[] addedBytes, int bitsUsed) {
+        int mask = (1 << bitsUsed) - 1;
+        for (int i = 0, coverIndex = coverOffset; i < addedBytes.length; i++) {
+            int bitsToAdd = addedBytes[i];
+            for (int shift = 8 - bitsUsed; shift >= 0; shift -= bitsUsed, coverIndex++) {
+                coverImageBytes[coverIndex] = (byte) ((coverImageBytes[coverIndex] & ~mask)
+                        | ((bitsToAdd >>> shift) & mask));
+            }
+        }
+    }
+
+    @Override
+    public void decodeBytes(byte[] imageBytes, int coverOffset, byte[] result, int bitsUsed) {
+        int mask = (1 << bitsUsed) - 1;
+        for (int i = 0, coverIndex = coverOffset; i < result.length; i++) {
+            int decodedBits = 0;
+            for (int shift = 8 - bitsUsed; shift >= 0; shift -= bitsUsed, coverIndex++) {
+                decodedBits |= (imageBytes[coverIndex] & mask) << shift;
+            }
+            result[i] = (byte) decodedBits;
+        }
+    }
+
+    @Override
+    public void computeDifference(byte[] originalBytes, byte[] coverBytes, byte[] difference, int bitsUsed) {
+        for (int i = 0; i < difference.length; i++) {
+            difference[i] = (byte) (Math.abs(originalBytes[i] - coverBytes[i]) << (8 - bitsUsed));
+        }
+    }
+
+    @Override
+    public void computeDifference(short[] originalSamples, short[] coverSamples, short[] difference, int bitsUsed) {
+        for (int i = 0; i < difference.length; i++) {
+            difference[i] = (short) (Math.abs((originalSamples[i] & 0xFFFF) - (coverSamples[i] & 0xFFFF))
+                    << (16 - bitsUsed));
+        }
+    }
+}
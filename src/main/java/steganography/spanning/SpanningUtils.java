@@ -0,0 +1,364 @@
+package steganography.spanning;
+
+import encryption.EncryptionUtils;
+import exceptions.SteganographyException;
+import steganography.DecodingSource;
+import steganography.EncodingTarget;
+import steganography.RawDecodedFile;
+import steganography.SteganographyUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class contains methods that encode a file across multiple cover images (when
+ * the file is too big for a single image), and decode it back.
+ *
+ * Every cover image contains a part of the file, with the following structure:
+ * - first 40 bits (5 bytes): characters ISSPN (ImageSteganographySPaNning, a signature
+ *                            to know the image actually contains a part of a file);
+ * - next 32 bits (4 bytes): the sequence number of the part (starting from 0);
+ * - next 32 bits (4 bytes): the total number of parts (cover images);
+ * - next 32 bits (4 bytes): the length of the file name;
+ * - next bytes: all the file name bytes;
+ * - next 32 bits (4 bytes): the length of the part in bytes;
+ * - next bytes: all the part bytes.
+ *
+ * The cover images are encoded and decoded concurrently, on a thread pool. When decoding,
+ * the parts are written to the output as soon as all the parts before them are decoded.
+ */
+@SuppressWarnings("DuplicatedCode")
+public class SpanningUtils {
+    private static final String SIGNATURE = "ISSPN";
+    private static final int LENGTH_BYTES = 4;
+
+    /**
+     * Holds a decoded part of a file, together with the information from its header.
+     */
+    private static class DecodedPart {
+        private final int sequenceNumber;
+        private final int totalCount;
+        private final String fileName;
+        private final byte[] partBytes;
+
+        private DecodedPart(int sequenceNumber, int totalCount, String fileName, byte[] partBytes) {
+            this.sequenceNumber = sequenceNumber;
+            this.totalCount = totalCount;
+            this.fileName = fileName;
+            this.partBytes = partBytes;
+        }
+    }
+
+    /**
+     * Returns the number of bytes that can surely be encoded in an image, reading only the
+     * image header, not the pixels themselves. The layout of the copy created by SteganographyUtils
+     * is obtained from a 1 x 1 image of the same type.
+     */
+    private static int getEncodingCapacity(File imageFile, int bitsUsed, String methodString) {
+        ImageTypeSpecifier imageType;
+        long pixelCount;
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(imageFile)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream);
+                imageType = reader.getRawImageType(0);
+                if (imageType == null) {
+                    imageType = reader.getImageTypes(0).next();
+                }
+                pixelCount = (long) reader.getWidth(0) * reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception exception) {
+            throw new SteganographyException(
+                    "The chosen image is invalid!",
+                    "Please select an image.");
+        }
+
+        BufferedImage pixelCopy = SteganographyUtils.createCopyOfImage(imageType.createBufferedImage(1, 1));
+        int samplesPerPixel = SteganographyUtils.getSampleCount(pixelCopy);
+        return SteganographyUtils.getEncodingCapacity((int) Math.min(Integer.MAX_VALUE,
+                        pixelCount * samplesPerPixel),
+                SteganographyUtils.getSampleBitsUsed(pixelCopy, bitsUsed), methodString);
+    }
+
+    /**
+     * Reads 'length' bytes of a file, starting from 'position'.
+     */
+    private static byte[] readFilePart(File file, long position, int length) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            byte[] partBytes = new byte[length];
+            randomAccessFile.seek(position);
+            randomAccessFile.readFully(partBytes);
+            return partBytes;
+        } catch (IOException e) {
+            throw new SteganographyException(
+                    "The file can not be read!",
+                    "Please select a different file.");
+        }
+    }
+
+    /**
+     * Encodes a single part of a file in a cover image, and returns the cover image.
+     */
+    private static BufferedImage encodePart(File selectedImage, File selectedFile,
+                                            long partPosition, int partLength,
+                                            int sequenceNumber, int totalCount,
+                                            int bitsUsed, String methodString, String encryptionMethodString) {
+        // load the image and create a copy of it, in which we will encode the part
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        EncodingTarget target = SteganographyUtils.createEncodingTarget(coverImage, bitsUsed, methodString);
+
+        // encode the signature in the first bytes
+        byte[] signatureBytes = EncryptionUtils.encryptBytes(SIGNATURE.getBytes(), encryptionMethodString);
+        target.encodeBytes(signatureBytes, 0);
+        int currentOffsetInBytes = signatureBytes.length;
+
+        // encode the sequence number and the total number of parts
+        currentOffsetInBytes += SteganographyUtils.encodeInt(target, sequenceNumber, currentOffsetInBytes, encryptionMethodString);
+        currentOffsetInBytes += SteganographyUtils.encodeInt(target, totalCount, currentOffsetInBytes, encryptionMethodString);
+
+        // encode the file name (length first, then the name itself)
+        byte[] fileName = SteganographyUtils.getFileName(selectedFile).getBytes();
+        currentOffsetInBytes += SteganographyUtils.encodeInt(target, fileName.length, currentOffsetInBytes, encryptionMethodString);
+        byte[] fileNameBytes = EncryptionUtils.encryptBytes(fileName, encryptionMethodString);
+        target.encodeBytes(fileNameBytes, currentOffsetInBytes);
+        currentOffsetInBytes += fileNameBytes.length;
+
+        // encode the part (length first, then the bytes themselves)
+        currentOffsetInBytes += SteganographyUtils.encodeInt(target, partLength, currentOffsetInBytes, encryptionMethodString);
+        byte[] partBytes = EncryptionUtils.encryptBytes(
+                readFilePart(selectedFile, partPosition, partLength), encryptionMethodString);
+        target.encodeBytes(partBytes, currentOffsetInBytes);
+
+        return coverImage;
+    }
+
+    /**
+     * Decodes a single part of a file from a cover image.
+     */
+    private static DecodedPart decodePart(File selectedImage,
+                                          int bitsUsed, String methodString, String encryptionMethodString) {
+        // load the image and create the source of its pixels
+        BufferedImage coverImage = SteganographyUtils.createCopyOfImage(SteganographyUtils.loadImage(selectedImage));
+        DecodingSource source = SteganographyUtils.createDecodingSource(coverImage, bitsUsed, methodString);
+
+        // validate the signature
+        SteganographyUtils.validateSignature(source, SIGNATURE, encryptionMethodString);
+        int offsetInBytes = SIGNATURE.getBytes().length;
+        int capacity = SteganographyUtils.getMaximumEncodingCapacity(coverImage, bitsUsed, methodString);
+
+        // obtain the sequence number and the total number of parts
+        int sequenceNumber = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        int totalCount = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+
+        // obtain the file name
+        int fileNameLength = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        SteganographyUtils.validateLength(fileNameLength, offsetInBytes, capacity);
+        byte[] fileNameBytes = source.decodeBytes(offsetInBytes, fileNameLength);
+        String fileName = new String(EncryptionUtils.decryptBytes(fileNameBytes, encryptionMethodString));
+        offsetInBytes += fileNameLength;
+
+        // obtain the part itself
+        int partLength = SteganographyUtils.decodeInt(source, offsetInBytes, encryptionMethodString);
+        offsetInBytes += LENGTH_BYTES;
+        SteganographyUtils.validateLength(partLength, offsetInBytes, capacity);
+        byte[] partBytes = source.decodeBytes(offsetInBytes, partLength);
+        partBytes = EncryptionUtils.decryptBytes(partBytes, encryptionMethodString);
+
+        return new DecodedPart(sequenceNumber, totalCount, fileName, partBytes);
+    }
+
+    /**
+     * Creates the thread pool used to encode / decode the cover images concurrently.
+     */
+    private static ExecutorService createExecutor(int imageCount) {
+        int threadCount = Math.max(1, Math.min(imageCount, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threadCount);
+    }
+
+    /**
+     * Returns the result of a task, rethrowing the SteganographyException that
+     * made the task fail (if that is the case).
+     */
+    private static <T> T getTaskResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof SteganographyException) {
+                throw (SteganographyException) exception.getCause();
+            }
+            throw new SteganographyException(
+                    "Image processing error!",
+                    "One of the cover images could not be processed.");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SteganographyException(
+                    "Image processing error!",
+                    "The operation was interrupted.");
+        }
+    }
+
+    /**
+     * This method encodes a file across the selected images (in the given order), with the
+     * provided 'bitsUsed' and the provided steganography method. Every image is filled as much
+     * as possible before moving on to the next one, and only the images that were actually
+     * needed are returned (in the same order).
+     * Throws a SteganographyException if the file doesn't fit in all the images together.
+     */
+    public static List<BufferedImage> encodeFileInImagesLSB(List<File> selectedImages, File selectedFile,
+                                                            int bitsUsed, String methodString,
+                                                            String encryptionMethodString) {
+        // calculate the size of the header of every part
+        int headerLength = SIGNATURE.getBytes().length + 4 * LENGTH_BYTES
+                + SteganographyUtils.getFileName(selectedFile).getBytes().length;
+
+        // split the file in parts, according to the capacity of every image
+        List<Long> partPositions = new ArrayList<>();
+        List<Integer> partLengths = new ArrayList<>();
+        long remainingBytes = selectedFile.length();
+        long currentPosition = 0;
+        for (File selectedImage : selectedImages) {
+            if (remainingBytes == 0 && !partLengths.isEmpty()) {
+                break;
+            }
+            int capacity = getEncodingCapacity(selectedImage, bitsUsed, methodString) - headerLength;
+            if (capacity <= 0) {
+                throw new SteganographyException(
+                        "The chosen image is too small!",
+                        "Please select bigger images or change the encoding method.");
+            }
+            int partLength = (int) Math.max(0, Math.min(capacity, remainingBytes));
+            partPositions.add(currentPosition);
+            partLengths.add(partLength);
+            currentPosition += partLength;
+            remainingBytes -= partLength;
+        }
+        if (remainingBytes > 0) {
+            throw new SteganographyException(
+                    "The loaded file size is too big!",
+                    "Please add more images or change the encoding method.");
+        }
+
+        // encode every part in its image, concurrently
+        int totalCount = partLengths.size();
+        ExecutorService executor = createExecutor(totalCount);
+        try {
+            List<Future<BufferedImage>> futures = new ArrayList<>();
+            for (int i = 0; i < totalCount; i++) {
+                File selectedImage = selectedImages.get(i);
+                long partPosition = partPositions.get(i);
+                int partLength = partLengths.get(i);
+                int sequenceNumber = i;
+                futures.add(executor.submit(() -> encodePart(selectedImage, selectedFile,
+                        partPosition, partLength, sequenceNumber, totalCount,
+                        bitsUsed, methodString, encryptionMethodString)));
+            }
+
+            // collect the cover images, in order
+            List<BufferedImage> coverImages = new ArrayList<>();
+            for (Future<BufferedImage> future : futures) {
+                coverImages.add(getTaskResult(future));
+            }
+            return coverImages;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * This method decodes a file that was encoded across multiple images (given in any order),
+     * with the provided 'bitsUsed' and the provided steganography method. The images are decoded
+     * concurrently, and every part is written to the output as soon as the parts before it were
+     * written, so only the parts that were decoded out of order are kept in memory.
+     * Returns the name of the decoded file.
+     */
+    public static String decodeFileFromImagesLSB(List<File> selectedImages, OutputStream output,
+                                                 int bitsUsed, String methodString,
+                                                 String encryptionMethodString) {
+        ExecutorService executor = createExecutor(selectedImages.size());
+        try {
+            // decode every part, concurrently
+            CompletionService<DecodedPart> completionService = new ExecutorCompletionService<>(executor);
+            for (File selectedImage : selectedImages) {
+                completionService.submit(() -> decodePart(selectedImage,
+                        bitsUsed, methodString, encryptionMethodString));
+            }
+
+            // write the parts in order, as they become available
+            Map<Integer, DecodedPart> pendingParts = new HashMap<>();
+            String fileName = null;
+            int nextSequenceNumber = 0;
+            for (int i = 0; i < selectedImages.size(); i++) {
+                DecodedPart part = getTaskResult(completionService.take());
+
+                // all the parts must belong to the same file
+                if (part.totalCount != selectedImages.size()
+                        || part.sequenceNumber < 0 || part.sequenceNumber >= part.totalCount
+                        || pendingParts.containsKey(part.sequenceNumber)
+                        || part.sequenceNumber < nextSequenceNumber
+                        || (fileName != null && !fileName.equals(part.fileName))) {
+                    throw new SteganographyException(
+                            "Decoding error!",
+                            "The provided images do not contain all the parts of a single file.");
+                }
+                fileName = part.fileName;
+                pendingParts.put(part.sequenceNumber, part);
+
+                // write all the consecutive parts that are available
+                while (pendingParts.containsKey(nextSequenceNumber)) {
+                    output.write(pendingParts.remove(nextSequenceNumber).partBytes);
+                    nextSequenceNumber++;
+                }
+            }
+            return fileName;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SteganographyException(
+                    "Decoding error!",
+                    "The operation was interrupted.");
+        } catch (IOException exception) {
+            throw new SteganographyException(
+                    "Saving error!",
+                    "The decoded file could not be saved.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Same as the method above, but the decoded file is kept in memory and
+     * returned as a RawDecodedFile.
+     */
+    public static RawDecodedFile decodeFileFromImagesLSB(List<File> selectedImages,
+                                                         int bitsUsed, String methodString,
+                                                         String encryptionMethodString) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String fileName = decodeFileFromImagesLSB(selectedImages, output,
+                bitsUsed, methodString, encryptionMethodString);
+        return new RawDecodedFile(fileName, output.toByteArray());
+    }
+}
@@ -17,8 +17,8 @@ import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import steganography.RawDecodedFile;
+import steganography.engine.EncodedCarrier;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -101,17 +101,18 @@ public class GUIUtils {
 
     /**
      * Returns the maximum file size possible that can be encoded in an image,
-     * based on the image width & height, and the number of least significant
-     * bits that are used.
+     * based on the image width & height, the number of samples of every pixel
+     * (3 for RGB images, 4 for images with alpha), and the number of least
+     * significant bits that are used in every sample.
      * It also takes into account the pixel choosing pattern (every N pixels,
      * or random).
      */
-    public static long getMaxFileSize(Image image, int bitsUsed,
+    public static long getMaxFileSize(Image image, int samplesPerPixel, int bitsUsed,
                                       boolean everyNPixelsEnabled, int everyNPixelsValue,
                                       boolean randomEnabled, int lowerBound, int upperBound) {
         // calculate the bytes based on the 'bitsUsed' value
         double bytes = image.getWidth() * image.getHeight(); // number of pixels
-        bytes *= 3; // max number of encoded bits if we use 1 bit
+        bytes *= samplesPerPixel; // max number of encoded bits if we use 1 bit
         bytes *= bitsUsed; // max number of encoded bits if we use 'bitsUsed' bits
         bytes /= 8; // max number of encoded bytes
 
@@ -130,10 +131,10 @@ public class GUIUtils {
      * formatted as bytes, KBytes or MBytes.
      * It returns the amount of bytes that can be encoded.
      */
-    public static long setMaxFileSize(Image image, Label maxFileSizeLabel, int bitsUsed,
+    public static long setMaxFileSize(Image image, Label maxFileSizeLabel, int samplesPerPixel, int bitsUsed,
                                       boolean everyNPixelsEnabled, int everyNPixelsValue,
                                       boolean randomEnabled, int lowerBound, int upperBound) {
-        long bytes = getMaxFileSize(image, bitsUsed,
+        long bytes = getMaxFileSize(image, samplesPerPixel, bitsUsed,
                 everyNPixelsEnabled, everyNPixelsValue,
                 randomEnabled, lowerBound, upperBound);
 
@@ -216,7 +217,7 @@ public class GUIUtils {
      * allows the user to either save the image or cancel the operation altogether.
      */
     public static void showSaveImageDialog(Stage mainStage, String originalImageFileName,
-                                           Image originalImage, BufferedImage coverImage,
+                                           Image originalImage, EncodedCarrier encodedCarrier,
                                            int bitsUsed, File originalImageFile) {
         try {
             // load the new window and the components
@@ -229,7 +230,7 @@ public class GUIUtils {
             controller.setOriginalImageFileName(originalImageFileName);
             controller.setOriginalImageFile(originalImageFile);
             controller.setOriginalImage(originalImage);
-            controller.setCoverImage(coverImage);
+            controller.setEncodedCarrier(encodedCarrier);
             controller.setBitsUsed(bitsUsed);
 
             // show the new window on the screen, modal
@@ -0,0 +1,51 @@
+package utils;
+
+/**
+ * This class contains methods used to write JSON output (the command line tools print their
+ * results as JSON lines, which are easy to process with other tools).
+ */
+public class JsonUtils {
+    /**
+     * Returns the string as a JSON string literal (with the quotes and the escaped characters).
+     */
+    public static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char character : value.toCharArray()) {
+            switch (character) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        quoted.append(character);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Returns the number as a JSON number (JSON has no representation for NaN and the infinities,
+     * so null is returned for them).
+     */
+    public static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return Double.toString(value);
+    }
+}
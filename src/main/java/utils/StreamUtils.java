@@ -0,0 +1,96 @@
+package utils;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class contains methods that adapt the other sources and destinations of bytes (byte buffers,
+ * image input streams and channels) to streams, so that they can be used without copying them
+ * into an array, or spilling them to a temporary file, first.
+ */
+public class StreamUtils {
+    /**
+     * Returns a stream reading the remaining bytes of the buffer (heap or direct). The position
+     * of the buffer itself is not changed.
+     */
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int readLength = Math.min(length, source.remaining());
+                source.get(bytes, offset, readLength);
+                return readLength;
+            }
+
+            @Override
+            public long skip(long count) {
+                int skipped = (int) Math.max(0, Math.min(count, source.remaining()));
+                source.position(source.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining();
+            }
+        };
+    }
+
+    /**
+     * Returns a stream reading the image input stream from its current position. Closing the
+     * returned stream doesn't close the image input stream.
+     */
+    public static InputStream asInputStream(ImageInputStream imageStream) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return imageStream.read();
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return length == 0 ? 0 : imageStream.read(bytes, offset, length);
+            }
+
+            @Override
+            public long skip(long count) throws IOException {
+                return imageStream.skipBytes(count);
+            }
+        };
+    }
+
+    /**
+     * Returns a stream writing to the channel. Closing the returned stream doesn't close the channel.
+     */
+    public static OutputStream asOutputStream(WritableByteChannel channel) {
+        OutputStream channelStream = Channels.newOutputStream(channel);
+        return new OutputStream() {
+            @Override
+            public void write(int value) throws IOException {
+                channelStream.write(value);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                channelStream.write(bytes, offset, length);
+            }
+        };
+    }
+}
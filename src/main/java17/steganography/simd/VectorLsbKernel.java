@@ -0,0 +1,157 @@
+package steganography.simd;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The loops of ScalarLsbKernel, with the Vector API (only compiled for Java 17+, and loaded by
+ * LsbKernels when the jdk.incubator.vector module is present). The last bytes, which don't fill
+ * a whole vector, are done by the scalar kernel.
+ *
+ * Encoding: every added byte is broadcast to its 8 / 'bitsUsed' lanes (with a shuffle), shifted
+ * right by the position of the lane in its group, masked and merged with the cover bytes.
+ * Decoding: the masked cover bytes are shifted left by the position of the lane in its group, the
+ * groups are OR-ed together in 64-bit lanes (a group never crosses a long), and the first byte of
+ * every group is gathered at the start of the vector (with a shuffle).
+ */
+class VectorLsbKernel implements LsbKernel {
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORT_SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = BYTE_SPECIES.length();
+
+    private final ScalarLsbKernel scalarKernel = new ScalarLsbKernel();
+
+    /**
+     * The shuffles, shifts and mask used for a 'bitsUsed' (1, 2, 4 or 8).
+     */
+    private static class Lanes {
+        final VectorShuffle<Byte> spreadShuffle;
+        final VectorShuffle<Byte> gatherShuffle;
+        final ByteVector shifts;
+        final VectorMask<Byte> gatherMask;
+
+        Lanes(int bitsUsed) {
+            int valuesPerByte = 8 / bitsUsed;
+            int bytesPerVector = LANES / valuesPerByte;
+            spreadShuffle = VectorShuffle.fromOp(BYTE_SPECIES, lane -> lane / valuesPerByte);
+            gatherShuffle = VectorShuffle.fromOp(BYTE_SPECIES,
+                    lane -> lane < bytesPerVector ? lane * valuesPerByte : 0);
+            byte[] laneShifts = new byte[LANES];
+            for (int lane = 0; lane < LANES; lane++) {
+                laneShifts[lane] = (byte) (8 - bitsUsed * (lane % valuesPerByte + 1));
+            }
+            shifts = ByteVector.fromArray(BYTE_SPECIES, laneShifts, 0);
+            gatherMask = BYTE_SPECIES.indexInRange(0, bytesPerVector);
+        }
+    }
+
+    /**
+     * The lanes of every 'bitsUsed', indexed by log2(bitsUsed).
+     */
+    private final Lanes[] lanes = new Lanes[4];
+
+    VectorLsbKernel() {
+        if (LANES < 8) {
+            throw new UnsupportedOperationException("The vectors are too short.");
+        }
+        for (int index = 0; index < lanes.length; index++) {
+            lanes[index] = new Lanes(1 << index);
+        }
+    }
+
+    @Override
+    public void encodeBytes(byte[] coverImageBytes, int coverOffset, byte[] addedBytes, int bitsUsed) {
+        Lanes bitsLanes = lanes[Integer.numberOfTrailingZeros(bitsUsed)];
+        int valuesPerByte = 8 / bitsUsed;
+        int bytesPerVector = LANES / valuesPerByte;
+        byte mask = (byte) ((1 << bitsUsed) - 1);
+
+        // a whole vector of added bytes is loaded (only its first 'bytesPerVector' bytes are used)
+        int i = 0;
+        for (; i + LANES <= addedBytes.length; i += bytesPerVector) {
+            int coverIndex = coverOffset + i * valuesPerByte;
+            ByteVector values = ByteVector.fromArray(BYTE_SPECIES, addedBytes, i)
+                    .rearrange(bitsLanes.spreadShuffle)
+                    .lanewise(VectorOperators.LSHR, bitsLanes.shifts)
+                    .and(mask);
+            ByteVector.fromArray(BYTE_SPECIES, coverImageBytes, coverIndex)
+                    .and((byte) ~mask)
+                    .or(values)
+                    .intoArray(coverImageBytes, coverIndex);
+        }
+        if (i < addedBytes.length) {
+            byte[] remainingBytes = new byte[addedBytes.length - i];
+            System.arraycopy(addedBytes, i, remainingBytes, 0, remainingBytes.length);
+            scalarKernel.encodeBytes(coverImageBytes, coverOffset + i * valuesPerByte, remainingBytes, bitsUsed);
+        }
+    }
+
+    @Override
+    public void decodeBytes(byte[] imageBytes, int coverOffset, byte[] result, int bitsUsed) {
+        Lanes bitsLanes = lanes[Integer.numberOfTrailingZeros(bitsUsed)];
+        int valuesPerByte = 8 / bitsUsed;
+        int bytesPerVector = LANES / valuesPerByte;
+        byte mask = (byte) ((1 << bitsUsed) - 1);
+
+        // only the first 'bytesPerVector' bytes of every vector are stored (with a mask)
+        int i = 0;
+        for (; i + bytesPerVector <= result.length; i += bytesPerVector) {
+            ByteVector values = ByteVector.fromArray(BYTE_SPECIES, imageBytes, coverOffset + i * valuesPerByte)
+                    .and(mask)
+                    .lanewise(VectorOperators.LSHL, bitsLanes.shifts);
+            LongVector groups = values.reinterpretAsLongs();
+            for (int shift = 4 * valuesPerByte; shift >= 8; shift /= 2) {
+                groups = groups.or(groups.lanewise(VectorOperators.LSHR, shift));
+            }
+            groups.reinterpretAsBytes()
+                    .rearrange(bitsLanes.gatherShuffle)
+                    .intoArray(result, i, bitsLanes.gatherMask);
+        }
+        if (i < result.length) {
+            byte[] remainingResult = new byte[result.length - i];
+            scalarKernel.decodeBytes(imageBytes, coverOffset + i * valuesPerByte, remainingResult, bitsUsed);
+            System.arraycopy(remainingResult, 0, result, i, remainingResult.length);
+        }
+    }
+
+    @Override
+    public void computeDifference(byte[] originalBytes, byte[] coverBytes, byte[] difference, int bitsUsed) {
+        // the absolute difference is (a < b ? b - a : a - b), computed modulo 256 (only the low bits are kept)
+        int i = 0;
+        for (; i + LANES <= difference.length; i += LANES) {
+            ByteVector original = ByteVector.fromArray(BYTE_SPECIES, originalBytes, i);
+            ByteVector cover = ByteVector.fromArray(BYTE_SPECIES, coverBytes, i);
+            original.sub(cover)
+                    .blend(cover.sub(original), original.lt(cover))
+                    .lanewise(VectorOperators.LSHL, 8 - bitsUsed)
+                    .intoArray(difference, i);
+        }
+        for (; i < difference.length; i++) {
+            difference[i] = (byte) (Math.abs(originalBytes[i] - coverBytes[i]) << (8 - bitsUsed));
+        }
+    }
+
+    @Override
+    public void computeDifference(short[] originalSamples, short[] coverSamples, short[] difference, int bitsUsed) {
+        // the same, with an unsigned comparison of the samples
+        int lanes = SHORT_SPECIES.length();
+        int i = 0;
+        for (; i + lanes <= difference.length; i += lanes) {
+            ShortVector original = ShortVector.fromArray(SHORT_SPECIES, originalSamples, i);
+            ShortVector cover = ShortVector.fromArray(SHORT_SPECIES, coverSamples, i);
+            original.sub(cover)
+                    .blend(cover.sub(original), original.compare(VectorOperators.UNSIGNED_LT, cover))
+                    .lanewise(VectorOperators.LSHL, 16 - bitsUsed)
+                    .intoArray(difference, i);
+        }
+        for (; i < difference.length; i++) {
+            difference[i] = (short) (Math.abs((originalSamples[i] & 0xFFFF) - (coverSamples[i] & 0xFFFF))
+                    << (16 - bitsUsed));
+        }
+    }
+}
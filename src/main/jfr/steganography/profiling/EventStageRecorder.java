@@ -0,0 +1,16 @@
+package steganography.profiling;
+
+/**
+ * The stage recorder used by the Profiler when Flight Recorder is available: every stage is a StageEvent.
+ */
+class EventStageRecorder implements StageRecorder {
+    @Override
+    public Object begin(String stage) {
+        return StageEvent.beginStage(stage);
+    }
+
+    @Override
+    public void end(Object event, Profiler.Context context, long payloadBytes) {
+        ((StageEvent) event).endStage(context, payloadBytes);
+    }
+}
@@ -0,0 +1,76 @@
+package steganography.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Flight Recorder event recorded for a stage of encoding or decoding a file (see Profiler).
+ * This is the only class that uses the jdk.jfr API, and it is only loaded when Flight Recorder
+ * is available (so the application still runs on Java versions without it).
+ */
+@Name("steganography.Stage")
+@Label("Steganography Stage")
+@Category("Steganography")
+@Description("A stage of encoding or decoding a file in a carrier image.")
+@StackTrace(false)
+class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Carrier Width")
+    int carrierWidth;
+
+    @Label("Carrier Height")
+    int carrierHeight;
+
+    @Label("Payload Bytes")
+    @Description("The number of payload bytes processed by the stage.")
+    @DataAmount
+    long payloadBytes;
+
+    @Label("Bits Used")
+    int bitsUsed;
+
+    @Label("Method")
+    String method;
+
+    @Label("Cipher")
+    String cipher;
+
+    /**
+     * Creates and begins the event of a stage, or returns null if the event is not enabled
+     * (no recording, or the event is disabled in the recording settings).
+     */
+    static StageEvent beginStage(String stage) {
+        StageEvent event = new StageEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it (if it lasted long enough for the recording settings).
+     */
+    void endStage(Profiler.Context context, long stagePayloadBytes) {
+        end();
+        if (shouldCommit()) {
+            if (context != null) {
+                carrierWidth = context.carrierWidth;
+                carrierHeight = context.carrierHeight;
+                bitsUsed = context.bitsUsed;
+                method = context.method;
+                cipher = context.cipher;
+            }
+            payloadBytes = stagePayloadBytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package server;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SteganographyServerTest {
+    private static final byte[] FILE_BYTES = "The file sent to the server.".getBytes(StandardCharsets.UTF_8);
+
+    private SteganographyServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new SteganographyServer(0, 2, 2);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPngCarrier() throws Exception {
+        testEncodeDecode("png", "image/png");
+    }
+
+    @Test
+    public void testJpegCarrier() throws Exception {
+        testEncodeDecode("jpg", "image/jpeg");
+    }
+
+    @Test
+    public void testInvalidCarrier() throws Exception {
+        HttpURLConnection connection = post("/probe?bits=1", FILE_BYTES);
+        assertEquals(422, connection.getResponseCode());
+    }
+
+    private void testEncodeDecode(String carrierFormat, String expectedContentType) throws Exception {
+        ByteArrayOutputStream carrierBytes = new ByteArrayOutputStream();
+        ImageIO.write(createImage(), carrierFormat, carrierBytes);
+        byte[] body = new byte[carrierBytes.size() + FILE_BYTES.length];
+        System.arraycopy(carrierBytes.toByteArray(), 0, body, 0, carrierBytes.size());
+        System.arraycopy(FILE_BYTES, 0, body, carrierBytes.size(), FILE_BYTES.length);
+
+        HttpURLConnection encodeConnection = post("/encode?bits=2&method=3&vigenere=KEY&name=file.txt"
+                + "&carrierLength=" + carrierBytes.size(), body);
+        assertEquals(200, encodeConnection.getResponseCode());
+        assertEquals(expectedContentType, encodeConnection.getContentType());
+        byte[] encodedCarrier = read(encodeConnection);
+
+        HttpURLConnection probeConnection = post("/probe?bits=2&method=3&vigenere=KEY", encodedCarrier);
+        assertEquals("{\"encoded\": true}", new String(read(probeConnection), StandardCharsets.UTF_8));
+
+        HttpURLConnection decodeConnection = post("/decode?bits=2&method=3&vigenere=KEY", encodedCarrier);
+        assertEquals(200, decodeConnection.getResponseCode());
+        assertEquals("attachment; filename=\"file.txt\"", decodeConnection.getHeaderField("Content-Disposition"));
+        assertArrayEquals(FILE_BYTES, read(decodeConnection));
+    }
+
+    private HttpURLConnection post(String path, byte[] body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path)
+                .openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        }
+        return connection;
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws Exception {
+        try (InputStream input = connection.getInputStream()) {
+            return ByteStreams.toByteArray(input);
+        }
+    }
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(96, 96, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,114 @@
+package steganography;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EncodedFileChannelTest {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String ENCRYPTION = "vigenereKEY";
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void testReadWindows() throws Exception {
+        for (String methodString : new String[]{"1", "random,7,1,3"}) {
+            byte[] fileBytes = randomBytes(2 * CHUNK_SIZE + 500);
+            byte[] cover = encode(fileBytes, methodString);
+            try (EncodedFileChannel channel = open(cover, methodString, null)) {
+                assertEquals("file.bin", channel.getFileName());
+                assertEquals(fileBytes.length, channel.size());
+
+                // windows inside a chunk, across the chunk boundaries and at the end of the file,
+                // read in any order (the positions of the random method are found again)
+                int[][] windows = {{CHUNK_SIZE - 10, 20}, {0, 100}, {2 * CHUNK_SIZE - 1, 2}, {12345, 1},
+                        {fileBytes.length - 30, 30}, {5, CHUNK_SIZE * 2}, {CHUNK_SIZE, CHUNK_SIZE}};
+                for (int[] window : windows) {
+                    ByteBuffer buffer = ByteBuffer.allocate(window[1]);
+                    channel.position(window[0]);
+                    assertEquals(window[1], channel.read(buffer));
+                    assertEquals(window[0] + window[1], channel.position());
+                    assertArrayEquals(methodString + " " + window[0],
+                            Arrays.copyOfRange(fileBytes, window[0], window[0] + window[1]), buffer.array());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadAtEnd() throws Exception {
+        byte[] fileBytes = randomBytes(1000);
+        try (EncodedFileChannel channel = open(encode(fileBytes, "1"), "1", null)) {
+            // a read past the end of the file is shortened
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            channel.position(950);
+            assertEquals(50, channel.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(fileBytes, 950, 1000), Arrays.copyOf(buffer.array(), 50));
+
+            assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+            channel.position(5000);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePosition() throws Exception {
+        try (EncodedFileChannel channel = open(encode(randomBytes(10), "1"), "1", null)) {
+            channel.position(-1);
+        }
+    }
+
+    @Test(expected = NonWritableChannelException.class)
+    public void testWrite() throws Exception {
+        try (EncodedFileChannel channel = open(encode(randomBytes(10), "1"), "1", null)) {
+            channel.write(ByteBuffer.allocate(1));
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        AtomicInteger closeCount = new AtomicInteger();
+        EncodedFileChannel channel = open(encode(randomBytes(10), "1"), "1", closeCount::incrementAndGet);
+        channel.close();
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertEquals(1, closeCount.get());
+        try {
+            channel.read(ByteBuffer.allocate(1));
+            throw new AssertionError("A closed channel was read.");
+        } catch (ClosedChannelException expected) {
+            // the channel is closed
+        }
+    }
+
+    private byte[] encode(byte[] fileBytes, String methodString) {
+        // 8 cover bytes for every byte with 1 bit, and 3 times more for the random method
+        byte[] cover = randomBytes((int) SteganographyUtils.getEncodedFileLength("file.bin", fileBytes.length)
+                * 8 * 3 + 100);
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(cover, 1, methodString), "file.bin",
+                new ByteArrayInputStream(fileBytes), fileBytes.length, ENCRYPTION);
+        return cover;
+    }
+
+    private static EncodedFileChannel open(byte[] cover, String methodString, Runnable closeAction) {
+        return SteganographyUtils.openEncodedFile(SteganographyUtils.createDecodingSource(cover, 1, methodString),
+                SteganographyUtils.getMaximumEncodingCapacity(cover.length, 1, methodString), ENCRYPTION,
+                closeAction);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,95 @@
+package steganography;
+
+import exceptions.SteganographyException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SteganographyUtilsTest {
+    private static final int BITS_USED = 2;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // the header of a file named "file.bin": signature, name length, name and file length
+    private static final int HEADER_LENGTH = 5 + 4 + 8 + 4;
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        // several chunks, the last one smaller
+        byte[] fileBytes = randomBytes(2 * CHUNK_SIZE + 123);
+        byte[] cover = encode(fileBytes, "vigenereKEY");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String fileName = SteganographyUtils.decodeFile(createSource(cover), getCapacity(cover), output,
+                "vigenereKEY");
+        assertEquals("file.bin", fileName);
+        assertArrayEquals(fileBytes, output.toByteArray());
+    }
+
+    @Test
+    public void testChecksumMismatch() {
+        byte[] fileBytes = randomBytes(2 * CHUNK_SIZE + 123);
+        byte[] cover = encode(fileBytes, "");
+
+        // flip a bit of the second chunk (after the first chunk and its checksum)
+        int corruptedOffset = HEADER_LENGTH + CHUNK_SIZE + 4 + 10;
+        cover[corruptedOffset * (8 / BITS_USED)] ^= 1;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            SteganographyUtils.decodeFile(createSource(cover), getCapacity(cover), output, "");
+            fail("The corrupted chunk was not detected.");
+        } catch (SteganographyException exception) {
+            assertEquals("The encoded file is corrupted.", exception.getMessage());
+        }
+
+        // only the chunk before the corrupted one was written
+        assertArrayEquals(Arrays.copyOf(fileBytes, CHUNK_SIZE), output.toByteArray());
+    }
+
+    @Test
+    public void testCorruptedChecksum() {
+        byte[] fileBytes = randomBytes(1000);
+        byte[] cover = encode(fileBytes, "  caesar7");
+
+        // flip a bit of the checksum of the only chunk
+        cover[(HEADER_LENGTH + fileBytes.length + 2) * (8 / BITS_USED)] ^= 1;
+        try {
+            SteganographyUtils.decodeFile(createSource(cover), getCapacity(cover), new ByteArrayOutputStream(),
+                    "  caesar7");
+            fail("The corrupted checksum was not detected.");
+        } catch (SteganographyException exception) {
+            assertEquals("The encoded file is corrupted.", exception.getMessage());
+        }
+    }
+
+    private byte[] encode(byte[] fileBytes, String encryptionMethodString) {
+        byte[] cover = randomBytes((int) SteganographyUtils.getEncodedFileLength("file.bin", fileBytes.length)
+                * (8 / BITS_USED) + 100);
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(cover, BITS_USED, "1"), "file.bin",
+                new ByteArrayInputStream(fileBytes), fileBytes.length, encryptionMethodString);
+        return cover;
+    }
+
+    private static DecodingSource createSource(byte[] cover) {
+        return SteganographyUtils.createDecodingSource(cover, BITS_USED, "1");
+    }
+
+    private static int getCapacity(byte[] cover) {
+        return SteganographyUtils.getMaximumEncodingCapacity(cover.length, BITS_USED, "1");
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,73 @@
+package steganography.archive;
+
+import exceptions.SteganographyException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import steganography.RawDecodedFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ArchiveUtilsTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws Exception {
+        File directory = temporaryFolder.newFolder("directory");
+        byte[] firstBytes = "The first entry.".getBytes(StandardCharsets.UTF_8);
+        byte[] secondBytes = new byte[300];
+        new Random(1).nextBytes(secondBytes);
+        Files.write(new File(directory, "first.txt").toPath(), firstBytes);
+        Files.createDirectory(directory.toPath().resolve("sub"));
+        Files.write(directory.toPath().resolve("sub").resolve("second.bin"), secondBytes);
+        Files.write(new File(directory, "third.txt").toPath(), new byte[0]);
+
+        BufferedImage coverImage = ArchiveUtils.encodeDirectoryInImageLSB(createImage(64), directory,
+                2, "1", "  caesar5");
+        List<ArchiveEntry> entries = ArchiveUtils.decodeArchiveEntries(coverImage, 2, "1", "  caesar5");
+        assertEquals(3, entries.size());
+        assertEquals("first.txt", entries.get(0).getName());
+        assertEquals("sub/second.bin", entries.get(1).getName());
+        assertEquals("third.txt", entries.get(2).getName());
+
+        // a single entry is decoded from its offset
+        RawDecodedFile secondEntry = ArchiveUtils.decodeArchiveEntry(coverImage, entries.get(1), 2, "1", "  caesar5");
+        assertEquals("second.bin", secondEntry.getFileName());
+        assertArrayEquals(secondBytes, secondEntry.getFileBytes());
+
+        List<RawDecodedFile> decodedFiles = ArchiveUtils.decodeArchive(coverImage, 2, "1", "  caesar5");
+        assertArrayEquals(firstBytes, decodedFiles.get(0).getFileBytes());
+        assertArrayEquals(secondBytes, decodedFiles.get(1).getFileBytes());
+        assertEquals(0, decodedFiles.get(2).getFileBytes().length);
+    }
+
+    @Test(expected = SteganographyException.class)
+    public void testArchiveTooBig() throws Exception {
+        File directory = temporaryFolder.newFolder("directory");
+        Files.write(new File(directory, "file.bin").toPath(), new byte[200]);
+        ArchiveUtils.encodeDirectoryInImageLSB(createImage(16), directory, 1, "1", "");
+    }
+
+    private File createImage(int size) throws Exception {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        File imageFile = temporaryFolder.newFile("image" + size + ".png");
+        ImageIO.write(image, "png", imageFile);
+        return imageFile;
+    }
+}
@@ -0,0 +1,81 @@
+package steganography.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import steganography.RawDecodedFile;
+import steganography.engine.Carrier;
+import steganography.engine.EngineParameters;
+import steganography.engine.JpegDctEngine;
+import steganography.engine.LsbEngine;
+import steganography.engine.SteganographyEngines;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchPipelineTest {
+    private static final byte[] FILE_BYTES = "The file encoded in every carrier.".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEncodeFileInImages() throws Exception {
+        File carrierDirectory = temporaryFolder.newFolder("carriers");
+        File pngCarrier = new File(carrierDirectory, "first.png");
+        File jpegCarrier = new File(carrierDirectory, "second.jpg");
+        File invalidCarrier = new File(carrierDirectory, "third.txt");
+        ImageIO.write(createImage(), "png", pngCarrier);
+        ImageIO.write(createImage(), "jpg", jpegCarrier);
+        Files.write(invalidCarrier.toPath(), FILE_BYTES);
+        File selectedFile = temporaryFolder.newFile("file.txt");
+        Files.write(selectedFile.toPath(), FILE_BYTES);
+        File outputDirectory = temporaryFolder.newFolder("output");
+
+        List<BatchResult> results = new BatchPipeline(1, "1", "  caesar3", 2, 1, 2)
+                .encodeFileInImages(Arrays.asList(pngCarrier, jpegCarrier, invalidCarrier), selectedFile,
+                        outputDirectory);
+        assertEquals(3, results.size());
+        for (BatchResult result : results) {
+            assertEquals(result.getErrorMessage(), result.getCarrierFile() != invalidCarrier, result.isSuccessful());
+        }
+
+        // the PNG carrier is encoded in its pixels, the JPEG carrier in its coefficients
+        EngineParameters parameters = new EngineParameters(1, "1", "  caesar3");
+        assertDecodedFile(new File(outputDirectory, "first.png"), LsbEngine.NAME, parameters);
+        assertDecodedFile(new File(outputDirectory, "second.jpg"), JpegDctEngine.NAME, parameters);
+        assertFalse(new File(outputDirectory, "third.png").exists());
+    }
+
+    private static void assertDecodedFile(File outputFile, String engineName, EngineParameters parameters) {
+        assertTrue(outputFile.isFile());
+        Carrier carrier = new Carrier(outputFile);
+        assertEquals(engineName, SteganographyEngines.findFastestEngine(carrier).getName());
+        RawDecodedFile decodedFile = SteganographyEngines.decodeFile(
+                SteganographyEngines.findFastestEngine(carrier), carrier, parameters);
+        assertEquals("file.txt", decodedFile.getFileName());
+        assertArrayEquals(FILE_BYTES, decodedFile.getFileBytes());
+    }
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(96, 96, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,37 @@
+package steganography.engine;
+
+import exceptions.SteganographyException;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class EncodedCarrierTest {
+    @Test
+    public void testWriteImage() throws Exception {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(1, 2, 0x123456);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new EncodedCarrier("png", image).writeTo(output);
+        assertEquals(0x123456, ImageIO.read(new ByteArrayInputStream(output.toByteArray())).getRGB(1, 2) & 0xFFFFFF);
+    }
+
+    @Test
+    public void testWriteBytes() throws Exception {
+        byte[] bytes = {1, 2, 3};
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new EncodedCarrier("jpg", bytes).writeTo(output);
+        assertArrayEquals(bytes, output.toByteArray());
+    }
+
+    @Test(expected = SteganographyException.class)
+    public void testWriteUnsupportedFormat() throws Exception {
+        new EncodedCarrier("unknown", new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR))
+                .writeTo(new ByteArrayOutputStream());
+    }
+}
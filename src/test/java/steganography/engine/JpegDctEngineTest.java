@@ -0,0 +1,93 @@
+package steganography.engine;
+
+import org.junit.Test;
+import steganography.RawDecodedFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JpegDctEngineTest {
+    private static final byte[] PAYLOAD = "The payload encoded in the coefficients.".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testJpegCarrierUsesJpegDctEngine() throws Exception {
+        Carrier carrier = new Carrier(ByteBuffer.wrap(createJpegImage()));
+        assertEquals(JpegDctEngine.NAME, SteganographyEngines.findFastestEngine(carrier).getName());
+    }
+
+    @Test
+    public void testPngCarrierUsesLsbEngine() throws Exception {
+        ByteArrayOutputStream pngBytes = new ByteArrayOutputStream();
+        ImageIO.write(createImage(), "png", pngBytes);
+        Carrier carrier = new Carrier(ByteBuffer.wrap(pngBytes.toByteArray()));
+        assertEquals(LsbEngine.NAME, SteganographyEngines.findFastestEngine(carrier).getName());
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws Exception {
+        for (String methodString : new String[]{"1", "3", "random,7,1,4", "hamming,3", "fibonacci", "permutation,12345"}) {
+            EngineParameters parameters = new EngineParameters(1, methodString, "vigenereKEY");
+            byte[] encodedBytes = encode(createJpegImage(), parameters);
+
+            // the saved bytes are a JPEG image again, from which the payload is decoded
+            assertNotNull(ImageIO.read(new ByteArrayInputStream(encodedBytes)));
+            RawDecodedFile decodedFile = SteganographyEngines.decodeFile(new JpegDctEngine(),
+                    new Carrier(ByteBuffer.wrap(encodedBytes)), parameters);
+            assertEquals(methodString, "payload.txt", decodedFile.getFileName());
+            assertArrayEquals(methodString, PAYLOAD, decodedFile.getFileBytes());
+        }
+    }
+
+    @Test
+    public void testReencodeEncodedCarrier() throws Exception {
+        EngineParameters parameters = new EngineParameters(1, "1", "");
+        byte[] encodedBytes = encode(createJpegImage(), parameters);
+        byte[] reencodedBytes = encode(encodedBytes, parameters);
+        assertArrayEquals(encodedBytes, reencodedBytes);
+    }
+
+    @Test
+    public void testProbe() throws Exception {
+        EngineParameters parameters = new EngineParameters(1, "1", "");
+        JpegDctEngine engine = new JpegDctEngine();
+        assertFalse(engine.probe(new Carrier(ByteBuffer.wrap(createJpegImage())), parameters));
+        assertTrue(engine.probe(new Carrier(ByteBuffer.wrap(encode(createJpegImage(), parameters))), parameters));
+    }
+
+    private static byte[] encode(byte[] jpegBytes, EngineParameters parameters) throws Exception {
+        EncodedCarrier encodedCarrier = new JpegDctEngine().encode(new Carrier(ByteBuffer.wrap(jpegBytes)),
+                "payload.txt", new ByteArrayInputStream(PAYLOAD), PAYLOAD.length, parameters);
+        assertEquals("jpg", encodedCarrier.getFormatName());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encodedCarrier.writeTo(output);
+        return output.toByteArray();
+    }
+
+    private static byte[] createJpegImage() throws Exception {
+        ByteArrayOutputStream jpegBytes = new ByteArrayOutputStream();
+        ImageIO.write(createImage(), "jpg", jpegBytes);
+        return jpegBytes.toByteArray();
+    }
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
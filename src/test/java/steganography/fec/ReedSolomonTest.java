@@ -0,0 +1,102 @@
+package steganography.fec;
+
+import exceptions.SteganographyException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReedSolomonTest {
+    private final Random random = new Random(0);
+
+    @Test
+    public void testCorrectsUpToHalfTheParitySymbols() {
+        for (int paritySymbols = 2; paritySymbols <= 32; paritySymbols += 2) {
+            for (int dataLength : new int[]{1, 10, 100, ReedSolomon.MAX_CODEWORD_LENGTH - paritySymbols}) {
+                ReedSolomon reedSolomon = new ReedSolomon(paritySymbols);
+                byte[] codeword = createCodeword(reedSolomon, dataLength);
+                for (int errorCount = 0; errorCount <= paritySymbols / 2; errorCount++) {
+                    byte[] damagedCodeword = addErrors(codeword, errorCount);
+                    assertTrue(reedSolomon.decode(damagedCodeword));
+                    assertArrayEquals("parity " + paritySymbols + ", errors " + errorCount,
+                            codeword, damagedCodeword);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailsAboveHalfTheParitySymbols() {
+        int uncorrectableCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            ReedSolomon reedSolomon = new ReedSolomon(8);
+            byte[] codeword = createCodeword(reedSolomon, 100);
+            byte[] damagedCodeword = addErrors(codeword, 5);
+
+            // the original codeword is too far to be found; the decoder either gives up, or (rarely)
+            // finds another codeword within 4 errors
+            boolean corrected = reedSolomon.decode(damagedCodeword);
+            assertFalse(Arrays.equals(codeword, damagedCodeword));
+            if (!corrected) {
+                uncorrectableCount++;
+            }
+        }
+        assertTrue("only " + uncorrectableCount + " uncorrectable codewords", uncorrectableCount > 990);
+    }
+
+    @Test
+    public void testRecoverInterleavedBytes() {
+        byte[] bytes = new byte[5000];
+        random.nextBytes(bytes);
+        byte[] protectedBytes = FecUtils.protectBytes(bytes, 16);
+
+        // a burst of damaged bytes is spread over the interleaved codewords (at most 8 in each)
+        int blockCount = protectedBytes.length / ReedSolomon.MAX_CODEWORD_LENGTH;
+        for (int i = 0; i < 8 * blockCount; i++) {
+            protectedBytes[1000 + i] ^= (byte) (random.nextInt(255) + 1);
+        }
+        assertArrayEquals(bytes, FecUtils.recoverBytes(protectedBytes, bytes.length, 16));
+    }
+
+    @Test(expected = SteganographyException.class)
+    public void testRecoverTooDamagedBytes() {
+        byte[] bytes = new byte[5000];
+        random.nextBytes(bytes);
+        byte[] protectedBytes = FecUtils.protectBytes(bytes, 16);
+        int blockCount = protectedBytes.length / ReedSolomon.MAX_CODEWORD_LENGTH;
+        for (int i = 0; i < 12 * blockCount; i++) {
+            protectedBytes[1000 + i] ^= (byte) (random.nextInt(255) + 1);
+        }
+        FecUtils.recoverBytes(protectedBytes, bytes.length, 16);
+    }
+
+    private byte[] createCodeword(ReedSolomon reedSolomon, int dataLength) {
+        byte[] codeword = new byte[dataLength + reedSolomon.getParitySymbols()];
+        for (int i = 0; i < dataLength; i++) {
+            codeword[i] = (byte) random.nextInt();
+        }
+        reedSolomon.encode(codeword, dataLength);
+        return codeword;
+    }
+
+    /**
+     * Returns a copy of the codeword, with 'errorCount' bytes changed (at different positions).
+     */
+    private byte[] addErrors(byte[] codeword, int errorCount) {
+        byte[] damagedCodeword = codeword.clone();
+        Set<Integer> positions = new HashSet<>();
+        while (positions.size() < errorCount) {
+            positions.add(random.nextInt(codeword.length));
+        }
+        for (int position : positions) {
+            damagedCodeword[position] ^= (byte) (random.nextInt(255) + 1);
+        }
+        return damagedCodeword;
+    }
+}
@@ -0,0 +1,59 @@
+package steganography.fibonacci;
+
+import org.junit.Test;
+import steganography.SteganographyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FibonacciUtilsTest {
+    @Test
+    public void testSequenceIsBijective() {
+        // small and large covers, prime and highly composite lengths
+        for (int coverLength : new int[]{1, 2, 3, 4, 5, 10, 64, 97, 360, 1000, 2310, 65536, 100003, 720720}) {
+            int step = FibonacciUtils.getStep(coverLength);
+            boolean[] visited = new boolean[coverLength];
+            for (long i = 0; i < coverLength; i++) {
+                int coverIndex = FibonacciUtils.getCoverIndex(i, coverLength, step);
+                assertFalse("length " + coverLength + ", index " + i, visited[coverIndex]);
+                visited[coverIndex] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testStepIsCloseToGoldenRatio() {
+        for (int coverLength : new int[]{100, 1000, 2310, 65536, 720720}) {
+            int step = FibonacciUtils.getStep(coverLength);
+            assertTrue(Math.abs(step - coverLength / 1.618034) < 10);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testSequenceEnd() {
+        FibonacciUtils.getCoverIndex(100, 100, FibonacciUtils.getStep(100));
+    }
+
+    @Test
+    public void testEncodeDecodeFile() {
+        Random random = new Random(0);
+        byte[] fileBytes = new byte[2000];
+        random.nextBytes(fileBytes);
+        byte[] cover = new byte[(int) SteganographyUtils.getEncodedFileLength("file.bin", fileBytes.length) * 4];
+        random.nextBytes(cover);
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(cover, 2, "fibonacci"), "file.bin",
+                new ByteArrayInputStream(fileBytes), fileBytes.length, "");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals("file.bin", SteganographyUtils.decodeFile(
+                SteganographyUtils.createDecodingSource(cover, 2, "fibonacci"),
+                SteganographyUtils.getMaximumEncodingCapacity(cover.length, 2, "fibonacci"), output, ""));
+        assertArrayEquals(fileBytes, output.toByteArray());
+    }
+}
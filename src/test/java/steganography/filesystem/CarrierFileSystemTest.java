@@ -0,0 +1,72 @@
+package steganography.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import steganography.SteganographyUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CarrierFileSystemTest {
+    private static final byte[] FILE_BYTES = "The file encoded in the carrier.".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadEncodedFile() throws Exception {
+        try (FileSystem fileSystem = FileSystems.newFileSystem(createCarrier().toPath(), (ClassLoader) null)) {
+            assertTrue(fileSystem instanceof CarrierFileSystem);
+            assertArrayEquals(FILE_BYTES, Files.readAllBytes(fileSystem.getPath("/file.txt")));
+        }
+    }
+
+    @Test
+    public void testCloseClosesChannels() throws Exception {
+        FileSystem fileSystem = FileSystems.newFileSystem(createCarrier().toPath(), (ClassLoader) null);
+        SeekableByteChannel channel = Files.newByteChannel(fileSystem.getPath("/file.txt"));
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        assertEquals(3, channel.read(buffer));
+
+        fileSystem.close();
+        assertFalse(channel.isOpen());
+        try {
+            channel.read(ByteBuffer.allocate(3));
+            throw new AssertionError("The channel can still be read.");
+        } catch (ClosedChannelException expected) {
+            // the copy of the carrier was given back to the buffer pool
+        }
+        channel.close();
+    }
+
+    private File createCarrier() throws Exception {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        BufferedImage coverImage = SteganographyUtils.encodeFileInImageLSB(image, "file.txt",
+                new ByteArrayInputStream(FILE_BYTES), FILE_BYTES.length, 1, "1", "");
+        File carrier = temporaryFolder.newFile("carrier.png");
+        ImageIO.write(coverImage, "png", carrier);
+        return carrier;
+    }
+}
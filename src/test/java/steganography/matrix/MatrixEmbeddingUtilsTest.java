@@ -0,0 +1,108 @@
+package steganography.matrix;
+
+import exceptions.SteganographyException;
+import org.junit.Test;
+import steganography.SteganographyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MatrixEmbeddingUtilsTest {
+    private final Random random = new Random(0);
+
+    @Test
+    public void testEncodeDecodeBytes() {
+        for (int blockBits = MatrixEmbeddingUtils.MIN_BLOCK_BITS; blockBits <= MatrixEmbeddingUtils.MAX_BLOCK_BITS;
+             blockBits++) {
+            int blockLength = MatrixEmbeddingUtils.getBlockLength(blockBits);
+            byte[] addedBytes = randomBytes(40);
+            byte[] originalCover = randomBytes((int) MatrixEmbeddingUtils.getSampleCount(addedBytes.length,
+                    "hamming," + blockBits));
+            byte[] cover = originalCover.clone();
+
+            // in two parts, which don't start or end at a block boundary (the first part is encoded
+            // last, so the bits of the shared block that belong to the second part must be kept)
+            byte[] firstPart = Arrays.copyOf(addedBytes, 7);
+            byte[] secondPart = Arrays.copyOfRange(addedBytes, 7, addedBytes.length);
+            MatrixEmbeddingUtils.encodeBytes(cover, secondPart, 7, blockBits);
+            MatrixEmbeddingUtils.encodeBytes(cover, firstPart, 0, blockBits);
+            assertArrayEquals("k = " + blockBits, addedBytes,
+                    MatrixEmbeddingUtils.decodeBytes(cover, 0, addedBytes.length, blockBits));
+            assertArrayEquals(secondPart, MatrixEmbeddingUtils.decodeBytes(cover, 7, secondPart.length, blockBits));
+
+            // only least significant bits are changed, at most one in every block by each of the two encodings
+            for (int blockStart = 0; blockStart + blockLength <= cover.length; blockStart += blockLength) {
+                int changedSamples = 0;
+                for (int i = blockStart; i < blockStart + blockLength; i++) {
+                    assertEquals(originalCover[i] & ~1, cover[i] & ~1);
+                    changedSamples += originalCover[i] != cover[i] ? 1 : 0;
+                }
+                assertTrue("k = " + blockBits + ", " + changedSamples + " changed samples", changedSamples <= 2);
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeDecodeSamples() {
+        for (int blockBits = MatrixEmbeddingUtils.MIN_BLOCK_BITS; blockBits <= MatrixEmbeddingUtils.MAX_BLOCK_BITS;
+             blockBits++) {
+            byte[] addedBytes = randomBytes(25);
+            short[] cover = new short[(int) MatrixEmbeddingUtils.getSampleCount(addedBytes.length,
+                    "hamming," + blockBits)];
+            for (int i = 0; i < cover.length; i++) {
+                cover[i] = (short) random.nextInt();
+            }
+            MatrixEmbeddingUtils.encodeBytes(cover, addedBytes, 0, blockBits);
+            assertArrayEquals(addedBytes, MatrixEmbeddingUtils.decodeBytes(cover, 0, addedBytes.length, blockBits));
+        }
+    }
+
+    @Test
+    public void testEncodeDecodeFile() {
+        byte[] fileBytes = randomBytes(3000);
+        int coverLength = (int) MatrixEmbeddingUtils.getSampleCount(
+                (int) SteganographyUtils.getEncodedFileLength("file.bin", fileBytes.length), "hamming,4");
+        byte[] cover = randomBytes(coverLength);
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(cover, 1, "hamming,4"), "file.bin",
+                new ByteArrayInputStream(fileBytes), fileBytes.length, "vigenereKEY");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals("file.bin", SteganographyUtils.decodeFile(
+                SteganographyUtils.createDecodingSource(cover, 1, "hamming,4"),
+                SteganographyUtils.getMaximumEncodingCapacity(cover.length, 1, "hamming,4"), output, "vigenereKEY"));
+        assertArrayEquals(fileBytes, output.toByteArray());
+    }
+
+    @Test
+    public void testGetEncodingCapacity() {
+        // 15 samples for every 4 bits
+        assertEquals(100 / 15 * 4 / 8, MatrixEmbeddingUtils.getEncodingCapacity(100, "hamming,4"));
+        assertEquals(2 * 15, MatrixEmbeddingUtils.getSampleCount(1, "hamming,4"));
+        assertEquals(3 * 7, MatrixEmbeddingUtils.getSampleCount(1, "hamming,3"));
+    }
+
+    @Test
+    public void testInvalidMethods() {
+        for (String methodString : new String[]{"hamming", "hamming,1", "hamming,9", "hamming,x", "hamming,3,4"}) {
+            try {
+                MatrixEmbeddingUtils.getBlockBits(methodString);
+                fail(methodString + " was accepted.");
+            } catch (SteganographyException expected) {
+                // invalid
+            }
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
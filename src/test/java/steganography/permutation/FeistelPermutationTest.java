@@ -0,0 +1,70 @@
+package steganography.permutation;
+
+import exceptions.SteganographyException;
+import org.junit.Test;
+import steganography.SteganographyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class FeistelPermutationTest {
+    @Test
+    public void testPermutationIsBijective() {
+        // powers of two (no cycle walking), lengths just above them (the most cycle walking) and odd bit counts
+        for (int length : new int[]{1, 2, 3, 4, 5, 7, 8, 9, 255, 256, 257, 1000, 4097, 65536, 65537, 123457}) {
+            for (long key : new long[]{0, 1, -1, 123456789}) {
+                FeistelPermutation permutation = new FeistelPermutation(key, length);
+                boolean[] visited = new boolean[length];
+                for (long i = 0; i < length; i++) {
+                    int index = permutation.getIndex(i);
+                    assertFalse("length " + length + ", key " + key + ", index " + i, visited[index]);
+                    visited[index] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKeysGiveDifferentPermutations() {
+        FeistelPermutation firstPermutation = new FeistelPermutation(1, 10000);
+        FeistelPermutation secondPermutation = new FeistelPermutation(2, 10000);
+        int sameIndices = 0;
+        for (int i = 0; i < 10000; i++) {
+            sameIndices += firstPermutation.getIndex(i) == secondPermutation.getIndex(i) ? 1 : 0;
+        }
+        assertNotEquals(10000, sameIndices);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testIndexOutOfRange() {
+        new FeistelPermutation(0, 100).getIndex(100);
+    }
+
+    @Test(expected = SteganographyException.class)
+    public void testInvalidKey() {
+        PermutationUtils.getKey("permutation,key");
+    }
+
+    @Test
+    public void testEncodeDecodeFile() {
+        Random random = new Random(0);
+        byte[] fileBytes = new byte[2000];
+        random.nextBytes(fileBytes);
+        byte[] cover = new byte[(int) SteganographyUtils.getEncodedFileLength("file.bin", fileBytes.length) * 8];
+        random.nextBytes(cover);
+        SteganographyUtils.encodeFile(SteganographyUtils.createEncodingTarget(cover, 1, "permutation,42"),
+                "file.bin", new ByteArrayInputStream(fileBytes), fileBytes.length, "");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals("file.bin", SteganographyUtils.decodeFile(
+                SteganographyUtils.createDecodingSource(cover, 1, "permutation,42"),
+                SteganographyUtils.getMaximumEncodingCapacity(cover.length, 1, "permutation,42"), output, ""));
+        assertArrayEquals(fileBytes, output.toByteArray());
+    }
+}
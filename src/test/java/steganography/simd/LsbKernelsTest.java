@@ -0,0 +1,127 @@
+package steganography.simd;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the vector kernel against the scalar kernel. The vector kernel is only present on a JDK 17
+ * started with "--add-modules jdk.incubator.vector" (the "vectorTest" task, which sets
+ * -Dsteganography.test.vector=true so that a missing vector kernel fails instead of being skipped).
+ */
+public class LsbKernelsTest {
+    private static final String VECTOR_KERNEL_CLASS = "steganography.simd.VectorLsbKernel";
+    private static final int[] LENGTHS = {0, 1, 7, 63, 64, 65, 257, 1031};
+
+    private final LsbKernel scalarKernel = new ScalarLsbKernel();
+    private final Random random = new Random(0);
+
+    @Test
+    public void testVectorKernelIsUsed() {
+        LsbKernel vectorKernel = loadVectorKernel();
+        assertTrue(vectorKernel != null && LsbKernels.isVectorized());
+    }
+
+    @Test
+    public void testEncodeBytes() {
+        LsbKernel vectorKernel = loadVectorKernel();
+        for (int length : LENGTHS) {
+            for (int bitsUsed = 1; bitsUsed <= 8; bitsUsed *= 2) {
+                // at an offset, so that unaligned cover positions are checked too
+                int coverOffset = random.nextInt(13);
+                byte[] addedBytes = randomBytes(length);
+                byte[] scalarCover = randomBytes(coverOffset + length * 8 / bitsUsed + 5);
+                byte[] vectorCover = scalarCover.clone();
+                scalarKernel.encodeBytes(scalarCover, coverOffset, addedBytes, bitsUsed);
+                vectorKernel.encodeBytes(vectorCover, coverOffset, addedBytes, bitsUsed);
+                assertArrayEquals("length " + length + ", bits " + bitsUsed, scalarCover, vectorCover);
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeBytes() {
+        LsbKernel vectorKernel = loadVectorKernel();
+        for (int length : LENGTHS) {
+            for (int bitsUsed = 1; bitsUsed <= 8; bitsUsed *= 2) {
+                int coverOffset = random.nextInt(13);
+                byte[] cover = randomBytes(coverOffset + length * 8 / bitsUsed + 5);
+                byte[] scalarResult = new byte[length];
+                byte[] vectorResult = new byte[length];
+                scalarKernel.decodeBytes(cover, coverOffset, scalarResult, bitsUsed);
+                vectorKernel.decodeBytes(cover, coverOffset, vectorResult, bitsUsed);
+                assertArrayEquals("length " + length + ", bits " + bitsUsed, scalarResult, vectorResult);
+            }
+        }
+    }
+
+    @Test
+    public void testComputeDifference() {
+        LsbKernel vectorKernel = loadVectorKernel();
+        for (int length : LENGTHS) {
+            byte[] originalBytes = randomBytes(length);
+            byte[] coverBytes = randomBytes(length);
+            for (int bitsUsed = 1; bitsUsed <= 8; bitsUsed++) {
+                byte[] scalarDifference = new byte[length];
+                byte[] vectorDifference = new byte[length];
+                scalarKernel.computeDifference(originalBytes, coverBytes, scalarDifference, bitsUsed);
+                vectorKernel.computeDifference(originalBytes, coverBytes, vectorDifference, bitsUsed);
+                assertArrayEquals("length " + length + ", bits " + bitsUsed, scalarDifference, vectorDifference);
+            }
+
+            short[] originalSamples = randomShorts(length);
+            short[] coverSamples = randomShorts(length);
+            for (int bitsUsed = 1; bitsUsed <= 16; bitsUsed++) {
+                short[] scalarDifference = new short[length];
+                short[] vectorDifference = new short[length];
+                scalarKernel.computeDifference(originalSamples, coverSamples, scalarDifference, bitsUsed);
+                vectorKernel.computeDifference(originalSamples, coverSamples, vectorDifference, bitsUsed);
+                assertArrayEquals("length " + length + ", bits " + bitsUsed, scalarDifference, vectorDifference);
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        for (int bitsUsed = 1; bitsUsed <= 8; bitsUsed *= 2) {
+            byte[] addedBytes = randomBytes(1031);
+            byte[] cover = randomBytes(3 + addedBytes.length * 8 / bitsUsed);
+            LsbKernels.encodeBytes(cover, 3, addedBytes, bitsUsed);
+            assertArrayEquals(addedBytes, LsbKernels.decodeBytes(cover, 3, addedBytes.length, bitsUsed));
+        }
+    }
+
+    /**
+     * Returns the vector kernel, or skips the test if it can't be loaded (unless it is required).
+     */
+    private static LsbKernel loadVectorKernel() {
+        try {
+            return (LsbKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            if (Boolean.getBoolean("steganography.test.vector")) {
+                fail("The vector kernel can't be loaded: " + e);
+            }
+            Assume.assumeNoException(e);
+            return null;
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private short[] randomShorts(int length) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) random.nextInt();
+        }
+        return samples;
+    }
+}
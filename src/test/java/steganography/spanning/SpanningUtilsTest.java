@@ -0,0 +1,74 @@
+package steganography.spanning;
+
+import exceptions.SteganographyException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import steganography.RawDecodedFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SpanningUtilsTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws Exception {
+        List<File> selectedImages = Arrays.asList(createImage("first.png"), createImage("second.png"),
+                createImage("third.png"), createImage("fourth.png"));
+        byte[] fileBytes = new byte[900];
+        random.nextBytes(fileBytes);
+        File selectedFile = temporaryFolder.newFile("file.bin");
+        Files.write(selectedFile.toPath(), fileBytes);
+
+        // the file needs 3 images (of 384 bytes each), so the fourth is not returned
+        List<BufferedImage> coverImages = SpanningUtils.encodeFileInImagesLSB(selectedImages, selectedFile,
+                1, "1", "vigenereKEY");
+        assertEquals(3, coverImages.size());
+
+        // the parts are decoded from the images in any order
+        List<File> encodedImages = new ArrayList<>();
+        for (int i = 0; i < coverImages.size(); i++) {
+            File encodedImage = temporaryFolder.newFile("encoded" + i + ".png");
+            ImageIO.write(coverImages.get(i), "png", encodedImage);
+            encodedImages.add(encodedImage);
+        }
+        Collections.reverse(encodedImages);
+        RawDecodedFile decodedFile = SpanningUtils.decodeFileFromImagesLSB(encodedImages, 1, "1", "vigenereKEY");
+        assertEquals("file.bin", decodedFile.getFileName());
+        assertArrayEquals(fileBytes, decodedFile.getFileBytes());
+    }
+
+    @Test(expected = SteganographyException.class)
+    public void testFileTooBig() throws Exception {
+        File selectedFile = temporaryFolder.newFile("file.bin");
+        Files.write(selectedFile.toPath(), new byte[1000]);
+        SpanningUtils.encodeFileInImagesLSB(Collections.singletonList(createImage("first.png")), selectedFile,
+                1, "1", "");
+    }
+
+    private File createImage(String name) throws Exception {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        File imageFile = temporaryFolder.newFile(name);
+        ImageIO.write(image, "png", imageFile);
+        return imageFile;
+    }
+}